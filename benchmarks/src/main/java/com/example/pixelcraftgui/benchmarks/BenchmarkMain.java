@@ -0,0 +1,43 @@
+package com.example.pixelcraftgui.benchmarks;
+
+import com.example.pixelcraftgui.model.ConverterFactory;
+import java.io.IOException;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar. Accepts the usual JMH options and adds two defaults:
+ * every converter of {@link ConverterFactory#getAvailableConverters()} is benchmarked
+ * unless {@code -p converter=...} is given, and the GC profiler reports the allocation
+ * rate unless other profilers are chosen with {@code -prof}.
+ *
+ * Example: {@code java -jar benchmarks.jar ConverterBenchmark -p size=MP12 -p threads=1}
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp()) {
+            options.showHelp();
+            return;
+        }
+        if (options.shouldList()) {
+            new Runner(options).list();
+            return;
+        }
+
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+        if (!options.getParameter("converter").hasValue()) {
+            builder.param("converter", ConverterFactory.getAvailableConverters());
+        }
+        if (options.getProfilers().isEmpty()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.pixelcraftgui.benchmarks;
+
+import com.example.pixelcraftgui.model.ConverterFactory;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import com.example.pixelcraftgui.model.engine.TileExecutor;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs each converter on the tile executor, as the application does.
+ *
+ * {@link BenchmarkMain} replaces the converter list below with
+ * {@link ConverterFactory#getAvailableConverters()}, so new effects are benchmarked
+ * without editing this class.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "--add-modules", "jdk.incubator.vector"})
+public class ConverterBenchmark {
+
+    @Param({"Grayscale", "Rotate 90°", "Blur", "Box Blur", "Gaussian Blur", "Invert", "Mirror", "Sharpen",
+            "Edge Detect", "Emboss", "Posterize", "Old Photo", "Poster Negative", "Soft Vintage", "Crisp Poster"})
+    public String converter;
+
+    @Param({"MP1", "MP12", "MP48"})
+    public ImageSize size;
+
+    /** Worker threads; 0 uses every core. */
+    @Param({"1", "4", "0"})
+    public int threads;
+
+    private ImageRaster input;
+    private ImageConverter instance;
+    private ForkJoinPool pool;
+    private TileExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        input = SyntheticImages.create(size);
+        // A fixed seed keeps Old Photo's grain the same in every fork
+        instance = ConverterFactory.createConverter(converter,
+                Map.of(ConverterFactory.PARAM_SEED, "1", "0." + ConverterFactory.PARAM_SEED, "1"));
+        if (instance == null) {
+            throw new IllegalArgumentException("Unknown converter: " + converter);
+        }
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        executor = new TileExecutor(pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public ImageRaster convert(Megapixels counter) {
+        ImageRaster output = executor.execute(instance, input);
+        counter.add(size);
+        return output;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.pixelcraftgui.benchmarks;
+
+/**
+ * The image sizes benchmarks are parameterized over.
+ */
+public enum ImageSize {
+    MP1(1000, 1000),
+    MP12(4000, 3000),
+    MP48(8000, 6000);
+
+    private final int width;
+    private final int height;
+
+    ImageSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public double getMegapixels() {
+        return width * (double) height / 1e6;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.pixelcraftgui.benchmarks;
+
+import com.example.pixelcraftgui.model.AwtRasterAdapter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import com.example.pixelcraftgui.model.PixelCraftModel;
+import com.example.pixelcraftgui.model.engine.CancellationToken;
+import com.example.pixelcraftgui.model.engine.ProgressListener;
+import com.example.pixelcraftgui.model.io.PngOptions;
+import com.example.pixelcraftgui.model.io.PngWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import javafx.scene.image.Image;
+import javax.imageio.ImageIO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loads a synthetic image written to a temporary file, through the GUI path
+ * ({@link PixelCraftModel#loadImage}, which also resets the history) and through
+ * the batch path (ImageIO decoding wrapped as a raster).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class LoadBenchmark {
+
+    @Param({"MP1", "MP12", "MP48"})
+    public ImageSize size;
+
+    @Param({"png", "jpg"})
+    public String format;
+
+    private PixelCraftModel model;
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        model = new PixelCraftModel();
+        file = Files.createTempFile("pixelcraft-bench", "." + format);
+        ImageRaster raster = SyntheticImages.create(size);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            if (format.equals("png")) {
+                PngWriter.write(raster, out, PngOptions.DEFAULT, new CancellationToken(), ProgressListener.NONE);
+            } else {
+                ImageIO.write(AwtRasterAdapter.toBufferedImage(raster, false), format, out);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Image loadModel(Megapixels counter) throws IOException {
+        model.loadImage(file.toString());
+        counter.add(size);
+        return model.getCurrentImage();
+    }
+
+    @Benchmark
+    public ImageRaster decodeRaster(Megapixels counter) throws IOException {
+        ImageRaster raster = AwtRasterAdapter.fromBufferedImage(ImageIO.read(file.toFile()));
+        counter.add(size);
+        return raster;
+    }
+}
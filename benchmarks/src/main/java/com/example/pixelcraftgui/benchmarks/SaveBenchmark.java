@@ -0,0 +1,74 @@
+package com.example.pixelcraftgui.benchmarks;
+
+import com.example.pixelcraftgui.model.FxRasterAdapter;
+import com.example.pixelcraftgui.model.PixelCraftModel;
+import com.example.pixelcraftgui.model.engine.CancellationToken;
+import com.example.pixelcraftgui.model.engine.ProgressListener;
+import com.example.pixelcraftgui.model.io.PngOptions;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import javafx.scene.image.Image;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Saves an image through {@link PixelCraftModel#saveImage}, including the copy out of the
+ * JavaFX image, the PNG encoding and the move into place.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class SaveBenchmark {
+
+    @Param({"MP1", "MP12", "MP48"})
+    public ImageSize size;
+
+    @Param({"FASTEST", "DEFAULT", "SMALLEST"})
+    public String compression;
+
+    private PixelCraftModel model;
+    private Image image;
+    private Path directory;
+    private String target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        model = new PixelCraftModel();
+        model.setSaveOptions(switch (compression) {
+            case "FASTEST" -> PngOptions.FASTEST;
+            case "SMALLEST" -> PngOptions.SMALLEST;
+            default -> PngOptions.DEFAULT;
+        });
+        image = FxRasterAdapter.toImage(SyntheticImages.create(size));
+        directory = Files.createTempDirectory("pixelcraft-bench");
+        target = directory.resolve("saved.png").toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(Path.of(target));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public void save(Megapixels counter) throws IOException {
+        model.saveImage(image, target, new CancellationToken(), ProgressListener.NONE);
+        counter.add(size);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.pixelcraftgui.benchmarks;
+
+import com.example.pixelcraftgui.model.ImageRaster;
+
+/**
+ * Generates benchmark images in memory, so the benchmarks need no image files.
+ *
+ * Images are opaque, as photos are, and mix smooth gradients with fine grain so that
+ * encoders and decoders see content that compresses like a photo rather than like a
+ * flat color or pure noise. The same size always gives the same pixels.
+ */
+final class SyntheticImages {
+
+    private SyntheticImages() {
+    }
+
+    static ImageRaster create(ImageSize size) {
+        int width = size.getWidth();
+        int height = size.getHeight();
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int grain = grain(x, y);
+                int r = clamp(255 * x / width + grain);
+                int g = clamp(255 * y / height + grain);
+                int b = clamp(128 + (int) (96 * Math.sin((x + y) / 64.0)) + grain);
+                pixels[y * width + x] = 0xff000000 | r << 16 | g << 8 | b;
+            }
+        }
+        return new ImageRaster(width, height, pixels);
+    }
+
+    /**
+     * Small position-based noise in [-8, 8).
+     */
+    private static int grain(int x, int y) {
+        int h = x * 0x45d9f3b ^ y * 0x119de1f3;
+        h = (h ^ (h >>> 16)) * 0x45d9f3b;
+        return ((h ^ (h >>> 16)) & 15) - 8;
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : (value > 255 ? 255 : value);
+    }
+}
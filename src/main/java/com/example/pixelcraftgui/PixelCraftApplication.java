@@ -2,9 +2,15 @@ package com.example.pixelcraftgui;
 
 import com.example.pixelcraftgui.controller.PixelCraftController;
 import com.example.pixelcraftgui.model.PixelCraftModel;
+import com.example.pixelcraftgui.model.engine.TileExecutor;
+import com.example.pixelcraftgui.model.history.EditHistory;
+import com.example.pixelcraftgui.model.history.ImageHistory;
+import com.example.pixelcraftgui.model.history.OperationHistory;
+import com.example.pixelcraftgui.model.history.TiledHistory;
 import com.example.pixelcraftgui.view.PixelCraftView;
 import javafx.application.Application;
 import javafx.stage.Stage;
+import javax.management.JMException;
 
 /**
  * Main application class for PixelCraft GUI.
@@ -13,15 +19,27 @@ import javafx.stage.Stage;
 public class PixelCraftApplication extends Application {
     
     @Override
-    public void start(Stage stage) {
-        // Create MVC components
-        PixelCraftModel model = new PixelCraftModel();
+    public void start(Stage stage) throws JMException {
+        // Create MVC components; -Dpixelcraft.history=operations records effects instead of images,
+        // =tiles shares unchanged tiles between states, and =heap keeps recent states as images
+        // instead of off-heap copies
+        TileExecutor tileExecutor = new TileExecutor();
+        EditHistory history = switch (String.valueOf(System.getProperty("pixelcraft.history"))) {
+            case "operations" -> new OperationHistory(tileExecutor);
+            case "tiles" -> new TiledHistory();
+            case "heap" -> new ImageHistory(Runtime.getRuntime().maxMemory() / 4, ImageHistory.DEFAULT_HOT_STATES, false);
+            default -> new ImageHistory();
+        };
+        PixelCraftModel model = new PixelCraftModel(tileExecutor, history);
         PixelCraftView view = new PixelCraftView(stage);
         PixelCraftController controller = new PixelCraftController(model, view);
         
         // Install event handlers
         controller.installControllers();
         
+        // Expose history, throughput and cache metrics to JConsole
+        new PixelCraftMonitor(model, tileExecutor, controller.getPreviewExecutor(), controller).register();
+        
         // Show the application
         view.show();
     }
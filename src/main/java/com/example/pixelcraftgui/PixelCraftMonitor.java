@@ -0,0 +1,190 @@
+package com.example.pixelcraftgui;
+
+import com.example.pixelcraftgui.controller.PixelCraftController;
+import com.example.pixelcraftgui.model.PixelCraftModel;
+import com.example.pixelcraftgui.model.cache.ResultCache;
+import com.example.pixelcraftgui.model.engine.ConversionStats;
+import com.example.pixelcraftgui.model.engine.TileExecutor;
+import com.example.pixelcraftgui.model.history.EditHistory;
+import javafx.application.Platform;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Exposes the history, the conversion statistics and the result cache of the editor over JMX.
+ *
+ * Attributes are read on demand from the objects the editor already maintains, so the monitor
+ * adds nothing to the conversion paths. The operations change the model on the JavaFX
+ * Application Thread and return once it is done.
+ */
+public class PixelCraftMonitor implements PixelCraftMonitorMXBean {
+
+    /** The name the monitor is registered under. */
+    public static final String OBJECT_NAME = "com.example.pixelcraftgui:type=PixelCraft";
+
+    private final PixelCraftModel model;
+    private final TileExecutor tileExecutor;
+    private final TileExecutor previewExecutor;
+    private final PixelCraftController controller;
+
+    /**
+     * @param model the model whose history and cache are reported
+     * @param tileExecutor the executor that applies the effects of the model
+     * @param previewExecutor the executor that renders the live previews
+     * @param controller the controller running the background tasks
+     */
+    public PixelCraftMonitor(PixelCraftModel model, TileExecutor tileExecutor, TileExecutor previewExecutor,
+                             PixelCraftController controller) {
+        this.model = model;
+        this.tileExecutor = tileExecutor;
+        this.previewExecutor = previewExecutor;
+        this.controller = controller;
+    }
+
+    /**
+     * Registers the monitor with the platform MBean server.
+     * @throws JMException if a monitor is already registered or the registration fails
+     */
+    public void register() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+    }
+
+    private EditHistory history() {
+        return model.getHistory();
+    }
+
+    private ConversionStats stats() {
+        return tileExecutor.getStats();
+    }
+
+    private ResultCache cache() {
+        return model.getResultCache();
+    }
+
+    @Override
+    public int getHistorySize() {
+        return history().size();
+    }
+
+    @Override
+    public int getHistoryIndex() {
+        return history().getIndex();
+    }
+
+    @Override
+    public long getHistoryHeapBytes() {
+        return history().getHeapBytes();
+    }
+
+    @Override
+    public long getHistoryOffHeapBytes() {
+        return history().getOffHeapBytes();
+    }
+
+    @Override
+    public long getConversions() {
+        return stats().getCount();
+    }
+
+    @Override
+    public Map<String, Long> getConversionCounts() {
+        return stats().getCounts();
+    }
+
+    @Override
+    public String[] getConversionSummaries() {
+        return stats().summaries().values().stream().map(ConversionStats.Summary::toString).toArray(String[]::new);
+    }
+
+    @Override
+    public long getConvertedPixels() {
+        return stats().getPixels();
+    }
+
+    @Override
+    public double getMegapixelsPerSecond() {
+        return stats().getMegapixelsPerSecond();
+    }
+
+    @Override
+    public int getActiveConversions() {
+        return tileExecutor.getActiveConversions() + previewExecutor.getActiveConversions();
+    }
+
+    @Override
+    public int getActivePreviews() {
+        return previewExecutor.getActiveConversions();
+    }
+
+    @Override
+    public long getQueuedPoolTasks() {
+        ForkJoinPool pool = tileExecutor.getPool();
+        long tasks = pool.getQueuedTaskCount();
+        // Both executors normally share the common pool, which must be counted once
+        if (previewExecutor.getPool() != pool) {
+            tasks += previewExecutor.getPool().getQueuedTaskCount();
+        }
+        return tasks;
+    }
+
+    @Override
+    public boolean isTaskRunning() {
+        return controller.isTaskRunning();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cache().getHits();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cache().getMisses();
+    }
+
+    @Override
+    public double getCacheHitRatio() {
+        return cache().getHitRatio();
+    }
+
+    @Override
+    public int getCacheEntries() {
+        return cache().size();
+    }
+
+    @Override
+    public long getCacheBytes() {
+        return cache().getBytes();
+    }
+
+    @Override
+    public void trimHistory() {
+        runOnFxThread(model::trimHistory);
+    }
+
+    @Override
+    public void clearCaches() {
+        model.clearCaches();
+    }
+
+    /**
+     * Runs an action on the JavaFX Application Thread, where the model and the view are changed,
+     * and waits for it.
+     */
+    private static void runOnFxThread(Runnable action) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                action.run();
+                done.complete(null);
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+            }
+        });
+        done.join();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.pixelcraftgui;
+
+import java.util.Map;
+
+/**
+ * Management interface of the running editor, registered as
+ * {@value PixelCraftMonitor#OBJECT_NAME} so that JConsole or any JMX client can
+ * follow memory and throughput during a long session.
+ */
+public interface PixelCraftMonitorMXBean {
+
+    /**
+     * @return the number of history states, including the loaded image
+     */
+    int getHistorySize();
+
+    /**
+     * @return the position of the current state in the history
+     */
+    int getHistoryIndex();
+
+    long getHistoryHeapBytes();
+
+    long getHistoryOffHeapBytes();
+
+    /**
+     * @return the conversions completed since the start, over all effects; previews are not counted
+     */
+    long getConversions();
+
+    /**
+     * @return the conversions completed since the start, by effect
+     */
+    Map<String, Long> getConversionCounts();
+
+    /**
+     * @return the p50, p95 and maximum times of the recent conversions of each effect
+     */
+    String[] getConversionSummaries();
+
+    /**
+     * @return the input pixels of the conversions completed since the start
+     */
+    long getConvertedPixels();
+
+    /**
+     * @return the megapixels converted per second of conversion since the start
+     */
+    double getMegapixelsPerSecond();
+
+    /**
+     * @return the conversions running: effects, undo replays and live previews
+     */
+    int getActiveConversions();
+
+    /**
+     * @return the live previews being rendered, which are also counted as active conversions
+     */
+    int getActivePreviews();
+
+    /**
+     * Gets the tasks waiting for a thread of the fork/join pools that run the conversions.
+     * Bands are split into tasks as they run, so this measures the backlog rather than
+     * counting bands, and the common pool also queues the tasks of parallel streams.
+     * @return the tasks queued in the pools
+     */
+    long getQueuedPoolTasks();
+
+    /**
+     * @return true while an effect is being applied or an image saved
+     */
+    boolean isTaskRunning();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    double getCacheHitRatio();
+
+    int getCacheEntries();
+
+    long getCacheBytes();
+
+    /**
+     * Drops every history state but the current one.
+     */
+    void trimHistory();
+
+    /**
+     * Drops the cached conversion results.
+     */
+    void clearCaches();
+}
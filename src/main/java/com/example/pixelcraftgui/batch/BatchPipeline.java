@@ -0,0 +1,277 @@
+package com.example.pixelcraftgui.batch;
+
+import com.example.pixelcraftgui.model.AwtRasterAdapter;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import com.example.pixelcraftgui.model.engine.CancellationToken;
+import com.example.pixelcraftgui.model.engine.ProgressListener;
+import com.example.pixelcraftgui.model.io.PngOptions;
+import com.example.pixelcraftgui.model.io.PngWriter;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.ImageIO;
+
+/**
+ * Converts many image files with the same converter in three overlapping stages:
+ * decode, convert and encode, each with its own worker threads.
+ *
+ * The stages are connected by bounded queues. When a later stage falls behind, the
+ * queue in front of it fills up and the stage before it blocks, so the number of images
+ * held in memory is bounded by the worker counts and queue capacity, not by the number
+ * of files. Each image is converted sequentially by one worker; with many files,
+ * converting several images side by side keeps every core busy without splitting them.
+ */
+public class BatchPipeline {
+
+    private final ImageConverter converter;
+    private final Path outputDirectory;
+    private final String format;
+    private final PngOptions pngOptions;
+    private final int decoders;
+    private final int workers;
+    private final int encoders;
+    private final int queueCapacity;
+
+    /**
+     * An image moving through the pipeline.
+     * @param source the input file
+     * @param raster the pixels, decoded or converted
+     */
+    private record Job(Path source, ImageRaster raster) {
+    }
+
+    // Tells the next stage that no more jobs will come
+    private static final Job END = new Job(null, null);
+
+    /**
+     * The outcome of a batch run.
+     * @param stages the decode, convert and encode counters
+     * @param wallNanos the elapsed time of the whole run
+     * @param errors one message per file that could not be converted
+     */
+    public record Result(List<StageStats> stages, long wallNanos, List<String> errors) {
+    }
+
+    /**
+     * @param converter the converter applied to every image; must be safe to share between threads
+     * @param outputDirectory the directory the converted images are written to
+     * @param format the output format name understood by ImageIO, such as "png" or "jpg"
+     * @param pngOptions the compression used when the format is png
+     * @param decoders the number of decoding threads
+     * @param workers the number of converting threads
+     * @param encoders the number of encoding threads
+     * @param queueCapacity the number of images buffered between two stages
+     */
+    public BatchPipeline(ImageConverter converter, Path outputDirectory, String format, PngOptions pngOptions,
+                         int decoders, int workers, int encoders, int queueCapacity) {
+        if (decoders < 1 || workers < 1 || encoders < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Worker counts and queue capacity must be at least 1");
+        }
+        this.converter = converter;
+        this.outputDirectory = outputDirectory;
+        this.format = format;
+        this.pngOptions = pngOptions;
+        this.decoders = decoders;
+        this.workers = workers;
+        this.encoders = encoders;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Converts the files and waits until all of them are written.
+     * Files that fail are reported in the result and do not stop the others.
+     * @param sources the input files
+     * @return the stage counters and errors
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public Result run(List<Path> sources) throws InterruptedException {
+        Map<Path, Path> targets = outputFiles(outputDirectory, sources, format);
+        Queue<Path> pending = new ConcurrentLinkedQueue<>(sources);
+        BlockingQueue<Job> decoded = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Job> converted = new ArrayBlockingQueue<>(queueCapacity);
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+        StageStats decodeStats = new StageStats("decode", decoders);
+        StageStats convertStats = new StageStats("convert", workers);
+        StageStats encodeStats = new StageStats("encode", encoders);
+        AtomicInteger activeDecoders = new AtomicInteger(decoders);
+        AtomicInteger activeWorkers = new AtomicInteger(workers);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < decoders; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (Path source = pending.poll(); source != null; source = pending.poll()) {
+                        long start = System.nanoTime();
+                        try {
+                            ImageRaster raster = decode(source);
+                            decodeStats.record(pixelCount(raster), System.nanoTime() - start);
+                            decoded.put(new Job(source, raster));
+                        } catch (IOException | RuntimeException e) {
+                            errors.add(source + ": " + e.getMessage());
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finishStage(activeDecoders, decoded, workers);
+                }
+            }, "batch-decode-" + i));
+        }
+        for (int i = 0; i < workers; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (Job job = decoded.take(); job != END; job = decoded.take()) {
+                        long start = System.nanoTime();
+                        try {
+                            ImageRaster output = converter.convertRaster(job.raster());
+                            convertStats.record(pixelCount(job.raster()), System.nanoTime() - start);
+                            converted.put(new Job(job.source(), output));
+                        } catch (RuntimeException e) {
+                            errors.add(job.source() + ": " + e.getMessage());
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    finishStage(activeWorkers, converted, encoders);
+                }
+            }, "batch-convert-" + i));
+        }
+        for (int i = 0; i < encoders; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    for (Job job = converted.take(); job != END; job = converted.take()) {
+                        long start = System.nanoTime();
+                        try {
+                            encode(job.raster(), targets.get(job.source()));
+                            encodeStats.record(pixelCount(job.raster()), System.nanoTime() - start);
+                        } catch (IOException | RuntimeException e) {
+                            errors.add(job.source() + ": " + e.getMessage());
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "batch-encode-" + i));
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+            throw e;
+        }
+        return new Result(List.of(decodeStats, convertStats, encodeStats), System.nanoTime() - start, List.copyOf(errors));
+    }
+
+    /**
+     * Called by each worker of a stage when it stops, even if it died; the last one tells
+     * every worker of the next stage to stop.
+     */
+    private static void finishStage(AtomicInteger active, BlockingQueue<Job> next, int nextWorkers) {
+        if (active.decrementAndGet() == 0) {
+            try {
+                for (int i = 0; i < nextWorkers; i++) {
+                    next.put(END);
+                }
+            } catch (InterruptedException e) {
+                // The run was interrupted, and so were the workers of the next stage
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static long pixelCount(ImageRaster raster) {
+        return (long) raster.getWidth() * raster.getHeight();
+    }
+
+    /**
+     * Gets the files the converted images are written to, all distinct: the source name with
+     * the output format's extension, such as {@code a.png} for {@code a.jpg}. Sources that
+     * would share a name, such as {@code a.jpg} and {@code a.png}, keep their own extension
+     * ({@code a.jpg.png} and {@code a.png.png}), and equal names from different directories
+     * are numbered ({@code a-2.png}). Names are compared ignoring case, as some file systems do.
+     * @param outputDirectory the directory the outputs are written to
+     * @param sources the input files
+     * @param format the output format
+     * @return the output file of each source
+     */
+    static Map<Path, Path> outputFiles(Path outputDirectory, List<Path> sources, String format) {
+        Map<String, Integer> uses = new HashMap<>();
+        for (Path source : sources) {
+            uses.merge(key(baseName(source) + "." + format), 1, Integer::sum);
+        }
+        Map<Path, Path> targets = new HashMap<>();
+        Set<String> taken = new HashSet<>();
+        for (Path source : sources) {
+            String base = baseName(source);
+            if (uses.get(key(base + "." + format)) > 1) {
+                base = source.getFileName().toString();
+            }
+            String name = base + "." + format;
+            for (int copy = 2; !taken.add(key(name)); copy++) {
+                name = base + "-" + copy + "." + format;
+            }
+            targets.put(source, outputDirectory.resolve(name));
+        }
+        return targets;
+    }
+
+    private static String baseName(Path source) {
+        String name = source.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static ImageRaster decode(Path source) throws IOException {
+        BufferedImage image = ImageIO.read(source.toFile());
+        if (image == null) {
+            throw new IOException("Unsupported image format");
+        }
+        return AwtRasterAdapter.fromBufferedImage(image);
+    }
+
+    private void encode(ImageRaster raster, Path target) throws IOException {
+        if ("png".equalsIgnoreCase(format)) {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target), 1 << 16)) {
+                PngWriter.write(raster, out, pngOptions, new CancellationToken(), ProgressListener.NONE);
+            }
+            return;
+        }
+        // Formats without alpha (such as JPEG) cannot be written from an ARGB image
+        BufferedImage image = AwtRasterAdapter.toBufferedImage(raster, false);
+        if (!ImageIO.write(image, format, target.toFile())) {
+            throw new IOException("No writer for format " + format);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.pixelcraftgui.batch;
+
+import com.example.pixelcraftgui.model.ConverterFactory;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.engine.CancellationToken;
+import com.example.pixelcraftgui.model.engine.ProgressListener;
+import com.example.pixelcraftgui.model.engine.TileExecutor;
+import com.example.pixelcraftgui.model.io.PngFilter;
+import com.example.pixelcraftgui.model.io.PngOptions;
+import com.example.pixelcraftgui.model.io.StreamingProcessor;
+import com.example.pixelcraftgui.model.simd.Simd;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+
+/**
+ * Command-line entry point that applies effects to many images without starting the JavaFX toolkit.
+ *
+ * Usage: {@code PixelCraftBatch [options] <input directory or glob> <output directory>}
+ */
+public class PixelCraftBatch {
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: PixelCraftBatch [options] <input directory or glob> <output directory>",
+            "  -e, --effects <list>  comma-separated effects or recipes, applied in order (required)",
+            "  -f, --format <name>   output format, png (default) or jpg",
+            "  --png-level <0-9>     PNG deflate level (default: 4)",
+            "  --png-filter <name>   PNG row filter: none, sub (default), up, average, paeth or adaptive",
+            "  --decoders <n>        decoding threads (default: half the cores)",
+            "  --workers <n>         converting threads (default: the cores)",
+            "  --encoders <n>        encoding threads (default: half the cores)",
+            "  --queue <n>           images buffered between stages (default: 2 per converting thread)",
+            "  --stream              convert one image at a time in strips of rows, for images too large",
+            "                        to hold in memory (PNG output only)",
+            "  --strip-rows <n>      rows per strip with --stream (default: about 4 million pixels)",
+            "  --list                list the available effects and exit",
+            "A glob such as 'photos/*.jpg' must be quoted so the shell does not expand it.");
+
+    public static void main(String[] args) {
+        try {
+            System.exit(run(args));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs a batch.
+     * @param args the command-line arguments
+     * @return the process exit code: 0 if every image was converted, 1 otherwise
+     * @throws IllegalArgumentException if the arguments are not valid
+     * @throws IOException if the input cannot be listed or the output directory cannot be created
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    static int run(String[] args) throws IOException, InterruptedException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        String effects = null;
+        String format = "png";
+        int pngLevel = PngOptions.DEFAULT.compressionLevel();
+        PngFilter pngFilter = PngOptions.DEFAULT.filter();
+        int decoders = Math.max(1, cores / 2);
+        int workers = cores;
+        int encoders = Math.max(1, cores / 2);
+        int queue = -1;
+        boolean stream = false;
+        int stripRows = 0;
+        List<String> positional = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-e", "--effects" -> effects = value(args, ++i);
+                case "-f", "--format" -> format = value(args, ++i).toLowerCase(Locale.ROOT);
+                case "--png-level" -> pngLevel = Integer.parseInt(value(args, ++i));
+                case "--png-filter" -> pngFilter = PngFilter.valueOf(value(args, ++i).toUpperCase(Locale.ROOT));
+                case "--decoders" -> decoders = count(args, ++i);
+                case "--workers" -> workers = count(args, ++i);
+                case "--encoders" -> encoders = count(args, ++i);
+                case "--queue" -> queue = count(args, ++i);
+                case "--stream" -> stream = true;
+                case "--strip-rows" -> stripRows = count(args, ++i);
+                case "--list" -> {
+                    for (String name : ConverterFactory.getAvailableConverters()) {
+                        System.out.println(name);
+                    }
+                    return 0;
+                }
+                default -> {
+                    if (args[i].startsWith("-")) {
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                    }
+                    positional.add(args[i]);
+                }
+            }
+        }
+        if (effects == null || positional.size() != 2) {
+            throw new IllegalArgumentException("Expected --effects, an input and an output directory");
+        }
+        if (!Set.of(ImageIO.getWriterFormatNames()).contains(format)) {
+            throw new IllegalArgumentException("Unsupported output format: " + format);
+        }
+
+        ImageConverter converter = createConverter(effects);
+        if (stream && !format.equals("png")) {
+            throw new IllegalArgumentException("--stream writes PNG only, got --format " + format);
+        }
+        if (stream && !StreamingProcessor.canStream(converter)) {
+            throw new IllegalArgumentException("--stream cannot apply " + effects + ": it needs the whole image");
+        }
+        List<Path> sources = listSources(positional.get(0));
+        Path outputDirectory = Files.createDirectories(Paths.get(positional.get(1)));
+        if (sources.isEmpty()) {
+            System.err.println("No images found in " + positional.get(0));
+            return 1;
+        }
+
+        if (stream) {
+            return runStreaming(new StreamingProcessor(new TileExecutor(workers), stripRows), converter,
+                    sources, outputDirectory, new PngOptions(pngLevel, pngFilter));
+        }
+        BatchPipeline pipeline = new BatchPipeline(converter, outputDirectory, format, new PngOptions(pngLevel, pngFilter),
+                decoders, workers, encoders, queue > 0 ? queue : 2 * workers);
+        BatchPipeline.Result result = pipeline.run(sources);
+        printReport(result, sources.size());
+        return result.errors().isEmpty() ? 0 : 1;
+    }
+
+    /**
+     * Converts the images one at a time, each strip by strip, so only a few strips are
+     * held in memory however large the images are.
+     */
+    private static int runStreaming(StreamingProcessor processor, ImageConverter converter, List<Path> sources,
+                                    Path outputDirectory, PngOptions options) throws IOException {
+        long start = System.nanoTime();
+        int converted = 0;
+        Map<Path, Path> targets = BatchPipeline.outputFiles(outputDirectory, sources, "png");
+        for (Path source : sources) {
+            Path target = targets.get(source);
+            try {
+                processor.process(converter, source, target, options, new CancellationToken(), ProgressListener.NONE);
+                converted++;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Failed: " + source + ": " + e.getMessage());
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Converted %d of %d images in %.1f s, streaming, %s%n",
+                converted, sources.size(), seconds, Simd.describe());
+        return converted == sources.size() ? 0 : 1;
+    }
+
+    private static String value(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+        }
+        return args[index];
+    }
+
+    private static int count(String[] args, int index) {
+        String value = value(args, index);
+        try {
+            int count = Integer.parseInt(value);
+            if (count >= 1) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException(args[index - 1] + " expects a positive number, got " + value);
+    }
+
+    /**
+     * Creates the converter for a comma-separated list of effects.
+     * Several effects are chained into one pipeline so point-wise effects run fused.
+     */
+    private static ImageConverter createConverter(String effects) {
+        String[] types = Stream.of(effects.split(",")).map(String::trim).toArray(String[]::new);
+        for (String type : types) {
+            if (ConverterFactory.createConverter(type) == null) {
+                throw new IllegalArgumentException("Unknown effect: " + type + " (see --list)");
+            }
+        }
+        return types.length == 1 ? ConverterFactory.createConverter(types[0]) : ConverterFactory.createPipeline(effects, types);
+    }
+
+    /**
+     * Lists the images in a directory, or the files matching a glob such as {@code photos/**.png}.
+     */
+    private static List<Path> listSources(String input) throws IOException {
+        Path directory = Paths.get(input);
+        if (Files.isDirectory(directory)) {
+            Set<String> suffixes = Set.of(ImageIO.getReaderFileSuffixes());
+            try (Stream<Path> files = Files.list(directory)) {
+                return files.filter(Files::isRegularFile)
+                        .filter(file -> suffixes.contains(extension(file)))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+        }
+
+        // Walk from the deepest directory that contains no glob characters
+        int firstGlob = indexOfGlob(input);
+        if (firstGlob < 0) {
+            throw new IllegalArgumentException("Not a directory: " + input);
+        }
+        int separator = input.lastIndexOf(FileSystems.getDefault().getSeparator(), firstGlob);
+        Path base = separator < 0 ? Paths.get("") : Paths.get(input.substring(0, Math.max(separator, 1)));
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + input);
+        try (Stream<Path> files = Files.walk(base)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(matcher::matches)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static int indexOfGlob(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            if ("*?[{".indexOf(input.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static void printReport(BatchPipeline.Result result, int total) {
+        long converted = result.stages().get(result.stages().size() - 1).getImages();
+        double seconds = result.wallNanos() / 1e9;
+        System.out.printf("Converted %d of %d images in %.1f s (%.1f images/s), %s%n",
+                converted, total, seconds, converted / seconds, Simd.describe());
+        for (StageStats stage : result.stages()) {
+            System.out.println("  " + stage);
+        }
+        for (String error : result.errors()) {
+            System.err.println("Failed: " + error);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.pixelcraftgui.batch;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput counters of one pipeline stage, updated concurrently by its workers.
+ */
+public class StageStats {
+
+    private final String name;
+    private final int threads;
+    private final LongAdder images = new LongAdder();
+    private final LongAdder pixels = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+
+    public StageStats(String name, int threads) {
+        this.name = name;
+        this.threads = threads;
+    }
+
+    /**
+     * Records one image processed by the stage.
+     * @param pixelCount the number of pixels in the image
+     * @param nanos the time the worker spent on it
+     */
+    void record(long pixelCount, long nanos) {
+        images.increment();
+        pixels.add(pixelCount);
+        busyNanos.add(nanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public long getImages() {
+        return images.sum();
+    }
+
+    public long getPixels() {
+        return pixels.sum();
+    }
+
+    public long getBusyNanos() {
+        return busyNanos.sum();
+    }
+
+    /**
+     * Gets the rate the stage sustains with all its workers busy, which tells whether
+     * it is the bottleneck: the time its workers were busy, divided across the workers.
+     * @return images per second, or 0 if the stage did no work
+     */
+    public double getImagesPerSecond() {
+        return perSecond(getImages());
+    }
+
+    /**
+     * @return megapixels per second with all workers busy, or 0 if the stage did no work
+     */
+    public double getMegapixelsPerSecond() {
+        return perSecond(getPixels()) / 1e6;
+    }
+
+    private double perSecond(long count) {
+        long busy = getBusyNanos();
+        return busy == 0 ? 0 : count * 1e9 * threads / busy;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-8s %6d images %9.1f images/s %9.1f MP/s  (%d threads, %.1f s busy)",
+                name, getImages(), getImagesPerSecond(), getMegapixelsPerSecond(), threads, getBusyNanos() / 1e9);
+    }
+}
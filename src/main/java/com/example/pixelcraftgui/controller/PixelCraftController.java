@@ -3,12 +3,26 @@ package com.example.pixelcraftgui.controller;
 import com.example.pixelcraftgui.model.ConverterFactory;
 import com.example.pixelcraftgui.model.ImageConverter;
 import com.example.pixelcraftgui.model.PixelCraftModel;
+import com.example.pixelcraftgui.model.engine.CancellationToken;
+import com.example.pixelcraftgui.model.engine.ConversionStats;
+import com.example.pixelcraftgui.model.engine.TileExecutor;
+import com.example.pixelcraftgui.model.engine.ViewportFocus;
+import com.example.pixelcraftgui.model.history.EditHistory;
+import com.example.pixelcraftgui.model.io.StreamingProcessor;
+import com.example.pixelcraftgui.model.preview.PreviewRenderer;
 import com.example.pixelcraftgui.view.PixelCraftView;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.control.Alert;
+import javafx.scene.image.Image;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Controller class for the PixelCraft GUI application.
@@ -19,6 +33,21 @@ public class PixelCraftController implements PropertyChangeListener {
     private PixelCraftModel model;
     private PixelCraftView view;
     
+    // Runs effects and saves off the JavaFX Application Thread, one at a time
+    private final ExecutorService taskExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pixelcraft-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Task<?> runningTask;
+    
+    // The visible part of the image, followed by a running effect to compute it first
+    private final ViewportFocus viewportFocus = new ViewportFocus();
+    
+    // Renders the selected effect on a downscaled copy of the current image while its settings change
+    private final TileExecutor previewExecutor = new TileExecutor();
+    private final PreviewRenderer previewRenderer = new PreviewRenderer(previewExecutor, Platform::runLater);
+    
     public PixelCraftController(PixelCraftModel model, PixelCraftView view) {
         this.model = model;
         this.view = view;
@@ -43,6 +72,14 @@ public class PixelCraftController implements PropertyChangeListener {
         
         // Converter operations
         view.getApplyButton().setOnAction(_ -> handleApplyConverter());
+        view.getCancelButton().setOnAction(_ -> handleCancelConverter());
+        
+        // Live preview
+        view.setOnParametersChanged(this::handlePreview);
+        view.getPreviewCheckBox().selectedProperty().addListener((_, _, _) -> handlePreview());
+        
+        // Progressive rendering follows the viewport
+        view.addViewportListener(this::updateViewportFocus);
         
         // Install global keyboard shortcuts
         installGlobalKeyboardShortcuts();
@@ -84,6 +121,10 @@ public class PixelCraftController implements PropertyChangeListener {
     private void handleLoadImage() {
         File selectedFile = view.showLoadDialog();
         if (selectedFile != null) {
+            if (model.isTooLargeToLoad(selectedFile.getAbsolutePath())) {
+                handleLargeImage(selectedFile);
+                return;
+            }
             try {
                 model.loadImage(selectedFile.getAbsolutePath());
                 view.updateStatus("Image loaded: " + selectedFile.getName());
@@ -94,10 +135,75 @@ public class PixelCraftController implements PropertyChangeListener {
         }
     }
     
+    /**
+     * Handles an image too large to edit in memory by offering to apply the selected effect
+     * straight to a file, reading and writing it a strip of rows at a time. The image is
+     * not loaded, so the current image and its history stay as they are.
+     */
+    private void handleLargeImage(File source) {
+        String converterName = view.getSelectedConverter();
+        ImageConverter converter = converterName != null
+                ? ConverterFactory.createConverter(converterName, view.getParameterValues()) : null;
+        if (converter == null || !StreamingProcessor.canStream(converter)) {
+            view.showAlert("Image too large", source.getName() + " is too large to edit in memory. Select an effect other "
+                    + "than Rotate, Mirror or a WRAP border and open it again to apply the effect straight to a file.",
+                    Alert.AlertType.WARNING);
+            return;
+        }
+        if (runningTask != null || !view.showConfirmation("Image too large", source.getName()
+                + " is too large to edit in memory. Apply " + converterName + " to it and save the result to a file?")) {
+            return;
+        }
+        File selectedFile = view.showSaveDialog();
+        if (selectedFile == null) {
+            return;
+        }
+        String path = selectedFile.getAbsolutePath();
+        String filePath = path.toLowerCase().endsWith(".png") ? path : path + ".png";
+        String fileName = new File(filePath).getName();
+        
+        CancellationToken token = new CancellationToken();
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws IOException {
+                model.applyToFile(converter, source.getAbsolutePath(), filePath, token, this::updateProgress);
+                return null;
+            }
+            
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                token.cancel();
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        
+        task.setOnSucceeded(_ -> {
+            finishTask();
+            view.updateStatus("Applied " + converterName + " effect and saved: " + fileName);
+        });
+        task.setOnCancelled(_ -> {
+            finishTask();
+            view.updateStatus(converterName + " effect cancelled");
+        });
+        task.setOnFailed(_ -> {
+            finishTask();
+            view.showAlert("Error", "Failed to apply effect: " + task.getException().getMessage(), Alert.AlertType.ERROR);
+            view.updateStatus("Failed to apply effect");
+        });
+        
+        runningTask = task;
+        view.showProgress(task.progressProperty());
+        view.updateStatus("Applying " + converterName + " effect to " + source.getName() + "...");
+        taskExecutor.execute(task);
+    }
+    
     /**
      * Handles saving the current image to file.
      */
     private void handleSaveImage() {
+        if (runningTask != null) {
+            return;
+        }
         if (!model.hasImage()) {
             view.showAlert("Warning", "No image to save", Alert.AlertType.WARNING);
             return;
@@ -106,19 +212,46 @@ public class PixelCraftController implements PropertyChangeListener {
         File selectedFile = view.showSaveDialog();
 
         if (selectedFile != null) {
-            try {
-                // Ensure file has .png extension
-                String filePath = selectedFile.getAbsolutePath();
-                if (!filePath.toLowerCase().endsWith(".png")) {
-                    filePath += ".png";
+            // Ensure file has .png extension
+            String path = selectedFile.getAbsolutePath();
+            String filePath = path.toLowerCase().endsWith(".png") ? path : path + ".png";
+            String fileName = new File(filePath).getName();
+            
+            // Encode on a background thread so large images do not freeze the UI
+            Image image = model.getCurrentImage();
+            CancellationToken token = new CancellationToken();
+            Task<Void> task = new Task<>() {
+                @Override
+                protected Void call() throws IOException {
+                    model.saveImage(image, filePath, token, this::updateProgress);
+                    return null;
                 }
                 
-                model.saveImage(filePath);
-                view.updateStatus("Image saved: " + new File(filePath).getName());
-            } catch (IOException e) {
-                view.showAlert("Error", "Failed to save image: " + e.getMessage(), Alert.AlertType.ERROR);
+                @Override
+                public boolean cancel(boolean mayInterruptIfRunning) {
+                    token.cancel();
+                    return super.cancel(mayInterruptIfRunning);
+                }
+            };
+            
+            task.setOnSucceeded(_ -> {
+                finishTask();
+                view.updateStatus("Image saved: " + fileName);
+            });
+            task.setOnCancelled(_ -> {
+                finishTask();
+                view.updateStatus("Save cancelled");
+            });
+            task.setOnFailed(_ -> {
+                finishTask();
+                view.showAlert("Error", "Failed to save image: " + task.getException().getMessage(), Alert.AlertType.ERROR);
                 view.updateStatus("Failed to save image");
-            }
+            });
+            
+            runningTask = task;
+            view.showProgress(task.progressProperty());
+            view.updateStatus("Saving " + fileName + "...");
+            taskExecutor.execute(task);
         }
     }
     
@@ -126,9 +259,8 @@ public class PixelCraftController implements PropertyChangeListener {
      * Handles undoing the last operation.
      */
     private void handleUndo() {
-        if (model.canUndo()) {
-            model.undo();
-            view.updateStatus("Undo completed");
+        if (runningTask == null && model.canUndo()) {
+            restoreState(model.getHistory().getIndex() - 1, "Undo");
         }
     }
     
@@ -136,12 +268,53 @@ public class PixelCraftController implements PropertyChangeListener {
      * Handles redoing the last undone operation.
      */
     private void handleRedo() {
-        if (model.canRedo()) {
-            model.redo();
-            view.updateStatus("Redo completed");
+        if (runningTask == null && model.canRedo()) {
+            restoreState(model.getHistory().getIndex() + 1, "Redo");
         }
     }
     
+    /**
+     * Restores a history state on a background task, since histories that decode or replay
+     * their states can take as long as an effect, and makes it current once it succeeded.
+     */
+    private void restoreState(int position, String action) {
+        CancellationToken token = new CancellationToken();
+        Task<EditHistory.Restored> task = new Task<>() {
+            @Override
+            protected EditHistory.Restored call() {
+                return model.restoreState(position, token, this::updateProgress);
+            }
+            
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                token.cancel();
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        
+        task.setOnSucceeded(_ -> {
+            finishTask();
+            if (model.moveTo(task.getValue())) {
+                view.updateStatus(action + " completed");
+            } else {
+                view.updateStatus(action + " failed: the state was dropped from the history");
+            }
+        });
+        task.setOnCancelled(_ -> {
+            finishTask();
+            view.updateStatus(action + " cancelled");
+        });
+        task.setOnFailed(_ -> {
+            finishTask();
+            view.showAlert("Error", action + " failed: " + task.getException().getMessage(), Alert.AlertType.ERROR);
+            view.updateStatus(action + " failed");
+        });
+        
+        runningTask = task;
+        view.showProgress(task.progressProperty());
+        taskExecutor.execute(task);
+    }
+    
     /**
      * Handles resetting the image to its original state.
      */
@@ -154,8 +327,13 @@ public class PixelCraftController implements PropertyChangeListener {
     
     /**
      * Handles applying the selected converter to the current image.
+     * The converter runs on a background thread; the model and its history are only
+     * updated once the job completes.
      */
     private void handleApplyConverter() {
+        if (runningTask != null) {
+            return;
+        }
         if (!model.hasImage()) {
             view.showAlert("Warning", "No image loaded", Alert.AlertType.WARNING);
             return;
@@ -167,24 +345,164 @@ public class PixelCraftController implements PropertyChangeListener {
             return;
         }
         
-        ImageConverter converter = ConverterFactory.createConverter(converterName);
+        ImageConverter converter = ConverterFactory.createConverter(converterName, view.getParameterValues());
         if (converter == null) {
             view.showAlert("Error", "Unknown converter: " + converterName, Alert.AlertType.ERROR);
             return;
         }
         
-        try {
-            model.applyConverter(converter);
-            view.updateStatus("Applied " + converterName + " effect");
-        } catch (Exception e) {
+        // The full-resolution result replaces the preview
+        previewRenderer.cancel();
+        
+        Image source = model.getCurrentImage();
+        CancellationToken token = new CancellationToken();
+        // Show the visible rows first and fill in the rest as they complete
+        ProgressiveDisplay display = view.isProgressiveEnabled()
+                ? new ProgressiveDisplay(source, view::showPartialResult) : null;
+        updateViewportFocus();
+        Task<Image> task = new Task<>() {
+            @Override
+            protected Image call() {
+                if (display != null) {
+                    // The display assembles the result as the bands complete
+                    model.convertProgressively(source, converter, token, this::updateProgress, viewportFocus, display);
+                    return null;
+                }
+                return model.convertImage(source, converter, token, this::updateProgress);
+            }
+            
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                // Stop scheduling tiles right away instead of waiting for the task to notice
+                token.cancel();
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        
+        ConversionStats.Measurement previous = model.getConversionStats().getLatest();
+        task.setOnSucceeded(_ -> {
+            Image result = display != null ? display.complete() : task.getValue();
+            stopProgressiveDisplay(display);
+            finishTask();
+            model.addConvertedImage(result, converter);
+            view.updateStatus("Applied " + converterName + " effect" + timing(previous, converter, source));
+        });
+        task.setOnCancelled(_ -> {
+            stopProgressiveDisplay(display);
+            finishTask();
+            view.updateStatus(converterName + " effect cancelled");
+        });
+        task.setOnFailed(_ -> {
+            stopProgressiveDisplay(display);
+            finishTask();
+            Throwable e = task.getException();
             view.showAlert("Error", "Failed to apply effect: " + e.getMessage(), Alert.AlertType.ERROR);
             view.updateStatus("Failed to apply effect");
+        });
+        
+        runningTask = task;
+        view.showProgress(task.progressProperty());
+        view.updateStatus("Applying " + converterName + " effect...");
+        taskExecutor.execute(task);
+    }
+    
+    /**
+     * @return true while an effect is being applied or an image saved
+     */
+    public boolean isTaskRunning() {
+        return runningTask != null;
+    }
+    
+    /**
+     * @return the executor that renders the live previews, separate from the model's
+     */
+    public TileExecutor getPreviewExecutor() {
+        return previewExecutor;
+    }
+    
+    /**
+     * Describes how long the conversion just applied took, from the latest measurement of the
+     * tile executor; a result taken from the cache was not measured.
+     */
+    private String timing(ConversionStats.Measurement previous, ImageConverter converter, Image source) {
+        ConversionStats.Measurement latest = model.getConversionStats().getLatest();
+        if (latest == null || latest == previous || !latest.converter().equals(converter.getName())
+                || latest.width() != (int) source.getWidth() || latest.height() != (int) source.getHeight()) {
+            return " (cached result)";
+        }
+        return " in " + latest.describe();
+    }
+    
+    /**
+     * Handles a change of the selected effect, its settings or the preview mode by
+     * rendering a new preview. The preview is sized to the image viewport; settings
+     * measured in pixels are scaled down with it, so the preview looks like the
+     * full-resolution result. Only Apply changes the image.
+     */
+    private void handlePreview() {
+        String converterName = view.getSelectedConverter();
+        if (!view.isPreviewEnabled() || !model.hasImage() || runningTask != null || converterName == null) {
+            previewRenderer.cancel();
+            view.clearPreview();
+            return;
+        }
+        
+        int width = view.getPreviewWidth();
+        int height = view.getPreviewHeight();
+        double scale = previewRenderer.scaleFor(width, height);
+        Map<String, String> parameters = ConverterFactory.scaleParameters(converterName, view.getParameterValues(), scale);
+        ImageConverter converter = ConverterFactory.createConverter(converterName, parameters);
+        if (converter == null) {
+            return;
+        }
+        previewRenderer.render(converter, width, height, preview -> {
+            view.showPreview(preview.image());
+            view.updateStatus(String.format("Preview of %s at %.0f%% (%.1f ms)", converterName,
+                    preview.scale() * 100, preview.renderNanos() / 1e6));
+        });
+    }
+    
+    /**
+     * Stops copying bands into the partial result and shows the current image again.
+     */
+    private void stopProgressiveDisplay(ProgressiveDisplay display) {
+        if (display != null) {
+            display.stop();
+            view.clearPreview();
         }
     }
+    
+    /**
+     * Moves the viewport focus to the part of the image that is on screen, so that a
+     * running effect computes the pending rows there before the others.
+     */
+    private void updateViewportFocus() {
+        Rectangle2D visible = view.getVisibleRegion();
+        viewportFocus.set(visible.getMinY(), visible.getMaxY());
+    }
+    
+    /**
+     * Handles cancelling the running converter or save.
+     */
+    private void handleCancelConverter() {
+        if (runningTask != null) {
+            runningTask.cancel();
+        }
+    }
+    
+    private void finishTask() {
+        runningTask = null;
+        view.hideProgress();
+    }
 
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
         if ("image".equals(evt.getPropertyName())) {
+            // Previews of the previous image are stale; the next change renders from the new one
+            previewRenderer.setSource(model.getCurrentImage());
+            if (view.isPreviewEnabled()) {
+                previewRenderer.prepare(view.getPreviewWidth(), view.getPreviewHeight());
+            }
             view.getUndoButton().setDisable(!model.canUndo());
             view.getRedoButton().setDisable(!model.canRedo());
         }
@@ -0,0 +1,133 @@
+package com.example.pixelcraftgui.controller;
+
+import com.example.pixelcraftgui.model.FxRasterAdapter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import com.example.pixelcraftgui.model.engine.BandListener;
+import javafx.application.Platform;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.WritableImage;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Shows the bands of a running conversion as they complete, and turns the finished
+ * conversion into the result image.
+ *
+ * The image shown is backed by a {@link PixelBuffer}, a direct buffer that the scene graph
+ * renders from. The workers write the output raster, which serves as the back buffer;
+ * completed bands are queued and copied into the pixel buffer on the JavaFX Application
+ * Thread inside {@link PixelBuffer#updateBuffer}, so a frame never shows a half-written
+ * band and only the copied rows are uploaded to the texture again. Copies are batched,
+ * with at most one waiting in the event queue, so a conversion made of many small bands
+ * does not flood it. Until its band completes, each row shows the source image (when the
+ * result has the same size) or stays transparent.
+ */
+class ProgressiveDisplay implements BandListener {
+
+    private final Image source;
+    private final Consumer<Image> show;
+
+    // Bands completed since the last copy; guarded by this
+    private List<int[]> completed = new ArrayList<>();
+    private ImageRaster output;
+    private boolean flushScheduled;
+
+    // Only touched on the JavaFX Application Thread
+    private PixelBuffer<IntBuffer> buffer;
+    private WritableImage image;
+    private boolean stopped;
+
+    /**
+     * @param source the image being converted
+     * @param show called on the JavaFX Application Thread with the partial result when it is first created
+     */
+    ProgressiveDisplay(Image source, Consumer<Image> show) {
+        this.source = source;
+        this.show = show;
+    }
+
+    @Override
+    public void bandCompleted(ImageRaster output, int startRow, int endRow) {
+        synchronized (this) {
+            this.output = output;
+            completed.add(new int[]{startRow, endRow});
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        Platform.runLater(this::flush);
+    }
+
+    /**
+     * Stops updating the partial result, once the conversion has been cancelled or has failed.
+     * Must be called on the JavaFX Application Thread.
+     */
+    void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Copies the bands not shown yet and stops updating, once the conversion has completed.
+     * The image then holds the whole result and can be used as it, without another copy.
+     * Must be called on the JavaFX Application Thread.
+     * @return the result image
+     */
+    Image complete() {
+        if (!stopped) {
+            copyPending();
+            stopped = true;
+        }
+        return image;
+    }
+
+    private void flush() {
+        if (!stopped) {
+            copyPending();
+        }
+    }
+
+    private void copyPending() {
+        List<int[]> bands;
+        ImageRaster raster;
+        synchronized (this) {
+            bands = completed;
+            raster = output;
+            completed = new ArrayList<>();
+            flushScheduled = false;
+        }
+        if (raster == null) {
+            return;
+        }
+        int width = raster.getWidth();
+        if (image == null) {
+            buffer = FxRasterAdapter.createPixelBuffer(width, raster.getHeight());
+            if (source.getWidth() == width && source.getHeight() == raster.getHeight()) {
+                FxRasterAdapter.copy(source, buffer);
+            }
+            image = new WritableImage(buffer);
+            show.accept(image);
+        }
+
+        // One update per run of adjacent bands, so the rows in between are not uploaded again
+        bands.sort(Comparator.comparingInt(band -> band[0]));
+        for (int i = 0; i < bands.size(); ) {
+            int startRow = bands.get(i)[0];
+            int endRow = bands.get(i)[1];
+            for (i++; i < bands.size() && bands.get(i)[0] == endRow; i++) {
+                endRow = bands.get(i)[1];
+            }
+            int top = startRow;
+            int bottom = endRow;
+            buffer.updateBuffer(pixels -> {
+                FxRasterAdapter.copyRows(raster, top, bottom, pixels);
+                return new Rectangle2D(0, top, width, bottom - top);
+            });
+        }
+    }
+}
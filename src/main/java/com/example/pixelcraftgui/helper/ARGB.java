@@ -3,6 +3,8 @@ package com.example.pixelcraftgui.helper;
 /**
  * Represents an ARGB (Alpha, Red, Green, Blue) color.
  * Provides methods to extract ARGB components from a packed integer and vice versa.
+ * The static methods work directly on packed integers and should be preferred in
+ * per-pixel loops, since they do not allocate.
  */
 public class ARGB {
 
@@ -19,10 +21,10 @@ public class ARGB {
      */
     public ARGB(int pixel) {
         // Extract ARGB components from the pixel integer
-        this.alpha = (pixel >> ALPHA_SHIFT) & BLUE_MASK;
-        this.red = (pixel >> RED_SHIFT) & BLUE_MASK;
-        this.green = (pixel >> GREEN_SHIFT) & BLUE_MASK;
-        this.blue = pixel & BLUE_MASK;
+        this.alpha = alpha(pixel);
+        this.red = red(pixel);
+        this.green = green(pixel);
+        this.blue = blue(pixel);
     }
 
     /**
@@ -45,6 +47,75 @@ public class ARGB {
      */
     public int toInt() {
         // Encode ARGB components into a single integer
-        return (this.alpha << ALPHA_SHIFT) | (this.red << RED_SHIFT) | (this.green << GREEN_SHIFT) | this.blue;
+        return pack(this.alpha, this.red, this.green, this.blue);
     }
-}
\ No newline at end of file
+
+    /**
+     * Extracts the alpha component of a packed ARGB integer.
+     * @param pixel the packed ARGB integer
+     * @return the alpha component (0-255)
+     */
+    public static int alpha(int pixel) {
+        return (pixel >> ALPHA_SHIFT) & BLUE_MASK;
+    }
+
+    /**
+     * Extracts the red component of a packed ARGB integer.
+     * @param pixel the packed ARGB integer
+     * @return the red component (0-255)
+     */
+    public static int red(int pixel) {
+        return (pixel >> RED_SHIFT) & BLUE_MASK;
+    }
+
+    /**
+     * Extracts the green component of a packed ARGB integer.
+     * @param pixel the packed ARGB integer
+     * @return the green component (0-255)
+     */
+    public static int green(int pixel) {
+        return (pixel >> GREEN_SHIFT) & BLUE_MASK;
+    }
+
+    /**
+     * Extracts the blue component of a packed ARGB integer.
+     * @param pixel the packed ARGB integer
+     * @return the blue component (0-255)
+     */
+    public static int blue(int pixel) {
+        return pixel & BLUE_MASK;
+    }
+
+    /**
+     * Packs ARGB components into a single integer. The components must already be in 0-255.
+     * @param a alpha component (0-255)
+     * @param r red component (0-255)
+     * @param g green component (0-255)
+     * @param b blue component (0-255)
+     * @return the packed ARGB integer
+     */
+    public static int pack(int a, int r, int g, int b) {
+        return (a << ALPHA_SHIFT) | (r << RED_SHIFT) | (g << GREEN_SHIFT) | b;
+    }
+
+    /**
+     * Packs ARGB components into a single integer, saturating each component to 0-255 first.
+     * @param a alpha component
+     * @param r red component
+     * @param g green component
+     * @param b blue component
+     * @return the packed ARGB integer
+     */
+    public static int packClamped(int a, int r, int g, int b) {
+        return pack(clamp(a), clamp(r), clamp(g), clamp(b));
+    }
+
+    /**
+     * Saturates a channel value to the 0-255 range.
+     * @param value the channel value
+     * @return the value clamped to 0-255
+     */
+    public static int clamp(int value) {
+        return value < 0 ? 0 : (value > BLUE_MASK ? BLUE_MASK : value);
+    }
+}
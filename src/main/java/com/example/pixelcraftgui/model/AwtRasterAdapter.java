@@ -0,0 +1,64 @@
+package com.example.pixelcraftgui.model;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Moves pixels between rasters and AWT images.
+ * Rasters and {@code TYPE_INT_ARGB} images share the same pixel layout, so they are
+ * wrapped around each other's {@link DataBufferInt} array without copying.
+ */
+public final class AwtRasterAdapter {
+
+    private static final int[] ARGB_MASKS = {0x00ff0000, 0x0000ff00, 0x000000ff, 0xff000000};
+    private static final int[] RGB_MASKS = {0x00ff0000, 0x0000ff00, 0x000000ff};
+
+    private AwtRasterAdapter() {
+    }
+
+    /**
+     * Gets the pixels of an AWT image. A {@code TYPE_INT_ARGB} image (or a subimage of one)
+     * is wrapped without copying, so writes to the raster show in the image; other types
+     * are converted into a new raster with one bulk getRGB call.
+     * @param image the source image
+     * @return a raster of the image pixels
+     */
+    public static ImageRaster fromBufferedImage(BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB
+                && raster.getDataBuffer() instanceof DataBufferInt buffer && buffer.getNumBanks() == 1
+                && raster.getSampleModel() instanceof SinglePixelPackedSampleModel model) {
+            // A subimage starts inside its parent's array, at the translated origin
+            int offset = buffer.getOffset()
+                    + model.getOffset(-raster.getSampleModelTranslateX(), -raster.getSampleModelTranslateY());
+            return new ImageRaster(image.getWidth(), image.getHeight(), buffer.getData(), offset, model.getScanlineStride());
+        }
+        ImageRaster result = new ImageRaster(image.getWidth(), image.getHeight());
+        image.getRGB(0, 0, image.getWidth(), image.getHeight(), result.getPixels(), 0, image.getWidth());
+        return result;
+    }
+
+    /**
+     * Wraps a raster in an AWT image without copying; the image shares the raster pixels.
+     * @param raster the pixels
+     * @param alpha true for a {@code TYPE_INT_ARGB} image, false for an opaque
+     *              {@code TYPE_INT_RGB} image that ignores the alpha bits, as needed
+     *              by writers of formats without alpha such as JPEG
+     * @return an image backed by the raster array
+     */
+    public static BufferedImage toBufferedImage(ImageRaster raster, boolean alpha) {
+        int[] pixels = raster.getPixels();
+        DataBufferInt buffer = new DataBufferInt(pixels, pixels.length - raster.getOffset(), raster.getOffset());
+        SinglePixelPackedSampleModel model = new SinglePixelPackedSampleModel(DataBuffer.TYPE_INT,
+                raster.getWidth(), raster.getHeight(), raster.getStride(), alpha ? ARGB_MASKS : RGB_MASKS);
+        WritableRaster writable = Raster.createWritableRaster(model, buffer, null);
+        ColorModel colors = alpha ? ColorModel.getRGBdefault() : new DirectColorModel(24, RGB_MASKS[0], RGB_MASKS[1], RGB_MASKS[2]);
+        return new BufferedImage(colors, writable, false, null);
+    }
+}
@@ -1,6 +1,11 @@
 package com.example.pixelcraftgui.model;
 
 import com.example.pixelcraftgui.model.converters.*;
+import com.example.pixelcraftgui.model.convolution.BorderMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Factory class for creating image converters.
@@ -8,59 +13,196 @@ import com.example.pixelcraftgui.model.converters.*;
  * Uses the original converter logic from the user's existing code.
  */
 public class ConverterFactory {
-    
+
     // Converter name constants
     public static final String GRAYSCALE = "Grayscale";
     public static final String ROTATE_90 = "Rotate 90°";
     public static final String BLUR = "Blur";
+    public static final String BOX_BLUR = "Box Blur";
+    public static final String GAUSSIAN_BLUR = "Gaussian Blur";
     public static final String INVERT = "Invert";
     public static final String MIRROR = "Mirror";
     public static final String SHARPEN = "Sharpen";
+    public static final String EDGE_DETECT = "Edge Detect";
+    public static final String EMBOSS = "Emboss";
     public static final String POSTERIZE = "Posterize";
     public static final String OLD_PHOTO = "Old Photo";
-    
+
+    // Recipe name constants
+    public static final String POSTER_NEGATIVE = "Poster Negative";
+    public static final String SOFT_VINTAGE = "Soft Vintage";
+    public static final String CRISP_POSTER = "Crisp Poster";
+
+    // Parameter names, see ImageConverter.getParameters()
+    public static final String PARAM_LEVELS = "levels";
+    public static final String PARAM_SEED = "seed";
+    public static final String PARAM_RADIUS = "radius";
+    public static final String PARAM_LENGTH = "length";
+    public static final String PARAM_ANGLE = "angle";
+    public static final String PARAM_BORDER = "border";
+
+    // Recipes are applied as a single effect; consecutive point-wise stages run fused in one pass
+    private static final Map<String, String[]> RECIPES = new LinkedHashMap<>();
+    static {
+        RECIPES.put(POSTER_NEGATIVE, new String[]{GRAYSCALE, POSTERIZE, INVERT});
+        RECIPES.put(SOFT_VINTAGE, new String[]{OLD_PHOTO, BLUR});
+        RECIPES.put(CRISP_POSTER, new String[]{SHARPEN, POSTERIZE});
+    }
+
     /**
      * Creates a converter based on the specified type.
-     * @param type the type of converter to create
+     * @param type the type of converter to create, either a single effect or a recipe
      * @return the created converter, or null if type is not recognized
      */
     public static ImageConverter createConverter(String type) {
+        return createConverter(type, Map.of());
+    }
+
+    /**
+     * Creates a converter with the given settings. Settings that are missing take their
+     * default value; a recipe takes the settings of its stages prefixed with the stage
+     * index, as returned by {@link PipelineConverter#getParameters()}.
+     * @param type the type of converter to create, either a single effect or a recipe
+     * @param parameters the settings by name
+     * @return the created converter, or null if type is not recognized
+     * @throws IllegalArgumentException if a setting is not valid for the converter
+     */
+    public static ImageConverter createConverter(String type, Map<String, String> parameters) {
+        String levels = parameters.get(PARAM_LEVELS);
+        String seed = parameters.get(PARAM_SEED);
+        String radius = parameters.get(PARAM_RADIUS);
+        BorderMode border = BorderMode.valueOf(parameters.getOrDefault(PARAM_BORDER, BorderMode.CLAMP.name()));
         switch (type) {
             case GRAYSCALE:
                 return new GrayscaleConverter();
             case ROTATE_90:
                 return new RotateConverter();
             case BLUR:
-                return new BlurConverter();
+                return new BlurConverter(
+                        Integer.parseInt(parameters.getOrDefault(PARAM_LENGTH, Integer.toString(BlurConverter.DEFAULT_LENGTH))),
+                        Double.parseDouble(parameters.getOrDefault(PARAM_ANGLE, Double.toString(BlurConverter.DEFAULT_ANGLE))));
+            case BOX_BLUR:
+                return new BoxBlurConverter(radius != null ? Integer.parseInt(radius) : BoxBlurConverter.DEFAULT_RADIUS, border);
+            case GAUSSIAN_BLUR:
+                return radius != null ? new GaussianBlurConverter(Double.parseDouble(radius)) : new GaussianBlurConverter();
             case INVERT:
                 return new InvertConverter();
             case MIRROR:
                 return new MirrorConverter();
             case SHARPEN:
-                return new SharpenConverter();
+                return new SharpenConverter(border);
+            case EDGE_DETECT:
+                return new EdgeDetectConverter(border);
+            case EMBOSS:
+                return new EmbossConverter(border);
             case POSTERIZE:
-                return new PosterizeConverter();
+                return levels != null ? new PosterizeConverter(Integer.parseInt(levels)) : new PosterizeConverter();
             case OLD_PHOTO:
-                return new OldPhotoConverter();
+                return seed != null ? new OldPhotoConverter(Long.parseLong(seed)) : new OldPhotoConverter();
             default:
+                String[] recipe = RECIPES.get(type);
+                return recipe != null ? createPipeline(type, parameters, recipe) : null;
+        }
+    }
+
+    /**
+     * Creates a pipeline that applies several converters as one effect.
+     * @param name the name of the pipeline
+     * @param types the converter types to chain, in order
+     * @return the pipeline, or null if any type is not recognized
+     */
+    public static PipelineConverter createPipeline(String name, String... types) {
+        return createPipeline(name, Map.of(), types);
+    }
+
+    private static PipelineConverter createPipeline(String name, Map<String, String> parameters, String... types) {
+        List<ImageConverter> stages = new ArrayList<>();
+        for (int i = 0; i < types.length; i++) {
+            ImageConverter stage = createConverter(types[i], PipelineConverter.stageParameters(parameters, i));
+            if (stage == null) {
                 return null;
+            }
+            stages.add(stage);
         }
+        return new PipelineConverter(name, stages);
     }
-    
+
+    /**
+     * Gets the numeric settings of a converter type, so they can be offered as controls.
+     * @param type the converter type
+     * @return the settings in display order; empty for recipes and converters without settings
+     */
+    public static List<ParameterSpec> getParameterSpecs(String type) {
+        switch (type) {
+            case BLUR:
+                return List.of(
+                        new ParameterSpec(PARAM_LENGTH, "Length", 1, 200, BlurConverter.DEFAULT_LENGTH, true, true),
+                        new ParameterSpec(PARAM_ANGLE, "Angle", 0, 360, BlurConverter.DEFAULT_ANGLE, false, false));
+            case BOX_BLUR:
+                return List.of(new ParameterSpec(PARAM_RADIUS, "Radius", 1, 200, BoxBlurConverter.DEFAULT_RADIUS, true, true));
+            case GAUSSIAN_BLUR:
+                return List.of(new ParameterSpec(PARAM_RADIUS, "Radius", 0.5, 200, GaussianBlurConverter.DEFAULT_RADIUS, false, true));
+            case POSTERIZE:
+                return List.of(new ParameterSpec(PARAM_LEVELS, "Levels", 2, 16, PosterizeConverter.DEFAULT_LEVELS, true, false));
+            default:
+                return List.of();
+        }
+    }
+
+    /**
+     * Adapts settings to an image resized by the given factor, so that a converter applied
+     * to a downscaled copy looks like the full-size result shrunk to the same size.
+     * Distances in pixels are scaled, including the defaults of settings that are missing;
+     * recipe stages are scaled according to their own type.
+     * @param type the converter type, either a single effect or a recipe
+     * @param parameters the settings for the full-size image
+     * @param scale the size of the resized image relative to the full-size one
+     * @return the settings for the resized image
+     */
+    public static Map<String, String> scaleParameters(String type, Map<String, String> parameters, double scale) {
+        Map<String, String> scaled = new LinkedHashMap<>(parameters);
+        String[] recipe = RECIPES.get(type);
+        if (recipe == null) {
+            scaleInto(scaled, "", getParameterSpecs(type), parameters, scale);
+        } else {
+            for (int i = 0; i < recipe.length; i++) {
+                scaleInto(scaled, i + ".", getParameterSpecs(recipe[i]), parameters, scale);
+            }
+        }
+        return scaled;
+    }
+
+    private static void scaleInto(Map<String, String> scaled, String prefix, List<ParameterSpec> specs,
+                                  Map<String, String> parameters, double scale) {
+        for (ParameterSpec spec : specs) {
+            if (spec.spatial()) {
+                String value = parameters.get(prefix + spec.name());
+                double fullSize = value != null ? Double.parseDouble(value) : spec.defaultValue();
+                scaled.put(prefix + spec.name(), spec.format(spec.scale(fullSize, scale)));
+            }
+        }
+    }
+
     /**
      * Gets all available converter types.
-     * @return array of available converter names
+     * @return array of available converter names, single effects first and then recipes
      */
     public static String[] getAvailableConverters() {
-        return new String[]{
+        List<String> names = new ArrayList<>(List.of(
             GRAYSCALE,
             ROTATE_90,
             BLUR,
+            BOX_BLUR,
+            GAUSSIAN_BLUR,
             INVERT,
             MIRROR,
             SHARPEN,
+            EDGE_DETECT,
+            EMBOSS,
             POSTERIZE,
             OLD_PHOTO
-        };
+        ));
+        names.addAll(RECIPES.keySet());
+        return names.toArray(new String[0]);
     }
-} 
\ No newline at end of file
+}
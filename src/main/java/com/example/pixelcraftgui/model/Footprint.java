@@ -0,0 +1,73 @@
+package com.example.pixelcraftgui.model;
+
+/**
+ * Describes which input pixels a converter reads to produce one output pixel.
+ * The tile executor uses it to choose how to partition an image.
+ */
+public final class Footprint {
+
+    /**
+     * The kinds of access pattern a converter can have.
+     */
+    public enum Kind {
+        /** Output pixel (x, y) depends only on input pixel (x, y). */
+        POINT,
+        /** Output pixel (x, y) depends on input pixels within a fixed radius of (x, y). */
+        NEIGHBORHOOD,
+        /** Output pixels are remapped from arbitrary input positions (rotation, mirroring, ...). */
+        GEOMETRIC
+    }
+
+    private static final Footprint POINT = new Footprint(Kind.POINT, 0);
+    private static final Footprint GEOMETRIC = new Footprint(Kind.GEOMETRIC, 0);
+
+    private final Kind kind;
+    private final int radius;
+
+    private Footprint(Kind kind, int radius) {
+        this.kind = kind;
+        this.radius = radius;
+    }
+
+    /**
+     * @return the footprint of a converter that maps each pixel independently
+     */
+    public static Footprint point() {
+        return POINT;
+    }
+
+    /**
+     * @param radius the maximum distance, in rows or columns, between an output pixel and the input pixels it reads
+     * @return the footprint of a converter that reads a neighborhood around each pixel
+     */
+    public static Footprint neighborhood(int radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Radius must not be negative: " + radius);
+        }
+        return new Footprint(Kind.NEIGHBORHOOD, radius);
+    }
+
+    /**
+     * @return the footprint of a converter that remaps pixel positions
+     */
+    public static Footprint geometric() {
+        return GEOMETRIC;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the number of extra rows/columns around a tile that must be read to compute it.
+     * @return the halo radius, 0 for point-wise and geometric converters
+     */
+    public int getRadius() {
+        return radius;
+    }
+
+    @Override
+    public String toString() {
+        return kind == Kind.NEIGHBORHOOD ? kind + "(" + radius + ")" : kind.toString();
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.pixelcraftgui.model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+
+/**
+ * Moves pixels between rasters and JavaFX images with a single bulk
+ * getPixels/setPixels call per transfer.
+ * JavaFX images keep their pixels in a toolkit-owned buffer, so a copy is always needed,
+ * except for images over a {@link PixelBuffer}, whose pixels are premultiplied ARGB in a
+ * direct buffer shared with the caller.
+ */
+public final class FxRasterAdapter {
+
+    /** Pixels moved per call between a store and an image, keeping each buffer view well under 2 GB. */
+    private static final int STORE_BAND_PIXELS = 1 << 24;
+
+    private FxRasterAdapter() {
+    }
+
+    /**
+     * Reads the whole image into a raster.
+     * @param image the source image
+     * @return a compact raster holding a copy of the image pixels
+     */
+    public static ImageRaster fromImage(Image image) {
+        return fromImage(image, 0, (int) image.getHeight());
+    }
+
+    /**
+     * Reads a band of rows from the image into a raster.
+     * @param image the source image
+     * @param startRow the first row to read (inclusive)
+     * @param endRow the last row to read (exclusive)
+     * @return a compact raster of the image width holding the requested rows
+     */
+    public static ImageRaster fromImage(Image image, int startRow, int endRow) {
+        int width = (int) image.getWidth();
+        int rows = endRow - startRow;
+        ImageRaster raster = new ImageRaster(width, rows);
+        PixelReader reader = image.getPixelReader();
+        reader.getPixels(0, startRow, width, rows, PixelFormat.getIntArgbInstance(), raster.getPixels(), 0, width);
+        return raster;
+    }
+
+    /**
+     * Writes the raster into a new image.
+     * @param raster the pixels to write
+     * @return a new writable image holding the raster pixels
+     */
+    public static WritableImage toImage(ImageRaster raster) {
+        WritableImage image = new WritableImage(raster.getWidth(), raster.getHeight());
+        image.getPixelWriter().setPixels(0, 0, raster.getWidth(), raster.getHeight(), PixelFormat.getIntArgbInstance(),
+                raster.getPixels(), raster.getOffset(), raster.getStride());
+        return image;
+    }
+
+    /**
+     * Writes a store into a new image, reading the pixels straight from outside the heap.
+     * @param store the pixels to write
+     * @return a new writable image holding the store pixels
+     */
+    public static WritableImage toImage(RasterStore store) {
+        int width = store.getWidth();
+        WritableImage image = new WritableImage(width, store.getHeight());
+        int bandRows = Math.max(1, STORE_BAND_PIXELS / Math.max(1, width));
+        for (int startRow = 0; startRow < store.getHeight(); startRow += bandRows) {
+            int endRow = Math.min(store.getHeight(), startRow + bandRows);
+            image.getPixelWriter().setPixels(0, startRow, width, endRow - startRow, PixelFormat.getIntArgbInstance(),
+                    store.rows(startRow, endRow), width);
+        }
+        return image;
+    }
+
+    /**
+     * Copies an image into a store of the same size, writing the pixels straight outside the heap.
+     * @param image the source image
+     * @param store receives the image pixels
+     */
+    public static void copy(Image image, RasterStore store) {
+        int width = store.getWidth();
+        if (image.getWidth() != width || image.getHeight() != store.getHeight()) {
+            throw new IllegalArgumentException("Image is " + (int) image.getWidth() + "x" + (int) image.getHeight()
+                    + ", store is " + width + "x" + store.getHeight());
+        }
+        PixelReader reader = image.getPixelReader();
+        int bandRows = Math.max(1, STORE_BAND_PIXELS / Math.max(1, width));
+        for (int startRow = 0; startRow < store.getHeight(); startRow += bandRows) {
+            int endRow = Math.min(store.getHeight(), startRow + bandRows);
+            reader.getPixels(0, startRow, width, endRow - startRow, PixelFormat.getIntArgbInstance(),
+                    store.rows(startRow, endRow), width);
+        }
+    }
+
+    /**
+     * Creates a transparent buffer of premultiplied ARGB pixels outside the heap, for a
+     * {@link WritableImage} that shows changes to it without copying the whole image.
+     * @param width the buffer width in pixels
+     * @param height the buffer height in pixels
+     * @return the buffer
+     */
+    public static PixelBuffer<IntBuffer> createPixelBuffer(int width, int height) {
+        IntBuffer pixels = ByteBuffer.allocateDirect(Math.multiplyExact(4 * width, height))
+                .order(ByteOrder.nativeOrder())
+                .asIntBuffer();
+        return new PixelBuffer<>(width, height, pixels, PixelFormat.getIntArgbPreInstance());
+    }
+
+    /**
+     * Copies an image of the same size into a pixel buffer. Call it on the JavaFX
+     * Application Thread inside {@link PixelBuffer#updateBuffer} once the buffer is shown.
+     * @param image the source image
+     * @param target receives the image pixels
+     */
+    public static void copy(Image image, PixelBuffer<IntBuffer> target) {
+        target.getBuffer().clear();
+        image.getPixelReader().getPixels(0, 0, target.getWidth(), target.getHeight(),
+                PixelFormat.getIntArgbPreInstance(), target.getBuffer(), target.getWidth());
+    }
+
+    /**
+     * Copies rows of a raster into a pixel buffer of the same width, premultiplying them.
+     * Call it on the JavaFX Application Thread inside {@link PixelBuffer#updateBuffer} once
+     * the buffer is shown.
+     * @param raster the source pixels
+     * @param startRow the first row to copy (inclusive)
+     * @param endRow the last row to copy (exclusive)
+     * @param target receives the rows at the same position
+     */
+    public static void copyRows(ImageRaster raster, int startRow, int endRow, PixelBuffer<IntBuffer> target) {
+        IntBuffer buffer = target.getBuffer();
+        int width = raster.getWidth();
+        int[] pixels = raster.getPixels();
+        int[] row = new int[width];
+        for (int y = startRow; y < endRow; y++) {
+            int index = raster.index(0, y);
+            for (int x = 0; x < width; x++) {
+                row[x] = premultiply(pixels[index + x]);
+            }
+            buffer.put(y * width, row);
+        }
+    }
+
+    private static int premultiply(int argb) {
+        int alpha = argb >>> 24;
+        if (alpha == 0xff) {
+            return argb;
+        }
+        if (alpha == 0) {
+            return 0;
+        }
+        int red = ((argb >> 16 & 0xff) * alpha + 127) / 255;
+        int green = ((argb >> 8 & 0xff) * alpha + 127) / 255;
+        int blue = ((argb & 0xff) * alpha + 127) / 255;
+        return alpha << 24 | red << 16 | green << 8 | blue;
+    }
+}
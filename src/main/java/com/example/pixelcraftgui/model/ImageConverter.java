@@ -1,23 +1,85 @@
 package com.example.pixelcraftgui.model;
 
-import javafx.scene.image.Image;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for image converters.
  * Defines the contract that all image converters must implement.
+ * Converters produce their output one band of rows at a time, so the same code
+ * runs sequentially through {@link #convertRaster(ImageRaster)} or in parallel
+ * through the tile executor. They only see {@link ImageRaster}s and do not depend
+ * on any UI toolkit; see {@link FxRasterAdapter} and {@link AwtRasterAdapter}.
  */
 public interface ImageConverter {
-    
+
     /**
-     * Converts the input image according to the converter's algorithm.
-     * @param inputImage the image to convert
-     * @return the converted image
+     * Converts the whole input raster sequentially on the calling thread.
+     * @param input the raster to convert (not modified)
+     * @return a new raster holding the converted pixels
      */
-    Image convertImage(Image inputImage);
-    
+    default ImageRaster convertRaster(ImageRaster input) {
+        ImageRaster source = input.compact();
+        ImageRaster output = createOutput(source);
+        convertRows(source, output, 0, output.getHeight());
+        return output;
+    }
+
+    /**
+     * Creates an empty output raster for the given input.
+     * Converters that change the image dimensions must override this.
+     * The output must be compact.
+     * @param input the raster to convert
+     * @return a new raster of the output size
+     */
+    default ImageRaster createOutput(ImageRaster input) {
+        return new ImageRaster(input.getWidth(), input.getHeight());
+    }
+
+    /**
+     * Computes the output rows in {@code [startRow, endRow)}.
+     * Both rasters are compact, so pixel (x, y) is at index {@code y * width + x}.
+     * Implementations may read any input pixel allowed by their {@link #getFootprint() footprint}
+     * but must only write the requested output rows, so that disjoint bands can be
+     * computed concurrently and give the same result as a single sequential pass.
+     * @param input the raster to convert (not modified)
+     * @param output the raster created by {@link #createOutput(ImageRaster)}
+     * @param startRow the first output row to compute (inclusive)
+     * @param endRow the last output row to compute (exclusive)
+     */
+    void convertRows(ImageRaster input, ImageRaster output, int startRow, int endRow);
+
+    /**
+     * Gets the region of the input that one output pixel depends on.
+     * @return the converter footprint, geometric by default
+     */
+    default Footprint getFootprint() {
+        return Footprint.geometric();
+    }
+
+    /**
+     * Gets the passes the tile executor runs, in order, to apply this converter.
+     * Each pass sees the complete output of the previous one.
+     * @return the passes; a plain converter is its own single pass
+     */
+    default List<ImageConverter> getPasses() {
+        return List.of(this);
+    }
+
+    /**
+     * Gets the settings that, together with the name, recreate this converter
+     * through {@link ConverterFactory#createConverter(String, Map)}.
+     * Converters that produce the same output for the same name and parameters
+     * can be replayed from an operation log.
+     * @return the parameter values by name; empty for converters without settings
+     */
+    default Map<String, String> getParameters() {
+        return Map.of();
+    }
+
     /**
      * Gets the name of this converter.
      * @return the converter name
      */
     String getName();
-} 
\ No newline at end of file
+}
@@ -0,0 +1,126 @@
+package com.example.pixelcraftgui.model;
+
+/**
+ * In-memory ARGB raster used by the image converters.
+ * Pixels are stored row by row in an int array (one packed ARGB value per pixel)
+ * so converters can work on primitive arrays instead of per-pixel reader/writer calls.
+ *
+ * The raster does not depend on any UI toolkit; {@link FxRasterAdapter} and
+ * {@link AwtRasterAdapter} move pixels to and from JavaFX and AWT images.
+ * A raster may be a window into a larger array (an offset and a row stride), for example
+ * when it wraps part of an AWT image. Converters work on compact rasters, whose rows
+ * follow each other from index 0; see {@link #compact()}.
+ */
+public class ImageRaster {
+
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+    private final int offset;
+    private final int stride;
+
+    /**
+     * Creates an empty (transparent black) raster.
+     * @param width the raster width in pixels
+     * @param height the raster height in pixels
+     */
+    public ImageRaster(int width, int height) {
+        this(width, height, new int[Math.multiplyExact(width, height)]);
+    }
+
+    /**
+     * Wraps an existing pixel array without copying it.
+     * @param width the raster width in pixels
+     * @param height the raster height in pixels
+     * @param pixels the packed ARGB pixels, row by row
+     */
+    public ImageRaster(int width, int height, int[] pixels) {
+        this(width, height, pixels, 0, width);
+    }
+
+    /**
+     * Wraps part of an existing pixel array without copying it.
+     * @param width the raster width in pixels
+     * @param height the raster height in pixels
+     * @param pixels the packed ARGB pixels
+     * @param offset the array index of pixel (0, 0)
+     * @param stride the distance in the array between two vertically adjacent pixels
+     */
+    public ImageRaster(int width, int height, int[] pixels, int offset, int stride) {
+        if (width < 0 || height < 0 || offset < 0 || stride < width) {
+            throw new IllegalArgumentException("Invalid raster layout: " + width + "x" + height
+                    + ", offset " + offset + ", stride " + stride);
+        }
+        if (height > 0 && pixels.length < offset + (long) (height - 1) * stride + width) {
+            throw new IllegalArgumentException("Pixel array too small for " + width + "x" + height + " raster");
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+        this.offset = offset;
+        this.stride = stride;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the backing pixel array. Pixel (x, y) is at index {@link #index(int, int)},
+     * which is {@code y * width + x} for a compact raster.
+     * @return the packed ARGB pixels
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * @return the array index of pixel (0, 0)
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the distance in the array between two vertically adjacent pixels
+     */
+    public int getStride() {
+        return stride;
+    }
+
+    /**
+     * Gets the array index of a pixel.
+     * @param x the pixel column
+     * @param y the pixel row
+     * @return the index of the pixel in {@link #getPixels()}
+     */
+    public int index(int x, int y) {
+        return offset + y * stride + x;
+    }
+
+    /**
+     * @return true if the rows follow each other from index 0 without gaps
+     */
+    public boolean isCompact() {
+        return offset == 0 && stride == width;
+    }
+
+    /**
+     * Gets a compact raster with the same pixels.
+     * @return this raster if it is already compact, otherwise a compact copy
+     */
+    public ImageRaster compact() {
+        if (isCompact()) {
+            return this;
+        }
+        ImageRaster copy = new ImageRaster(width, height);
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(pixels, index(0, y), copy.pixels, y * width, width);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.pixelcraftgui.model;
+
+/**
+ * Describes one numeric setting of a converter, so the view can offer a control for it.
+ * @param name the parameter name, as used by {@link ConverterFactory#createConverter(String, java.util.Map)}
+ * @param label the text shown next to the control
+ * @param min the smallest allowed value
+ * @param max the largest allowed value
+ * @param defaultValue the value used when the setting is missing
+ * @param integer whether the value must be a whole number
+ * @param spatial whether the value is a distance in pixels, which scales with the image size
+ */
+public record ParameterSpec(String name, String label, double min, double max, double defaultValue,
+                            boolean integer, boolean spatial) {
+
+    /**
+     * Formats a value the way {@link ConverterFactory} parses it.
+     * @param value the value, rounded to a whole number for integer settings
+     * @return the parameter string
+     */
+    public String format(double value) {
+        return integer ? Long.toString(Math.round(value)) : Double.toString(value);
+    }
+
+    /**
+     * Scales a distance to an image resized by the given factor, keeping it valid.
+     * Settings that are not spatial are returned unchanged.
+     * @param value the value for the full-size image
+     * @param scale the size of the resized image relative to the full-size one
+     * @return the value for the resized image
+     */
+    public double scale(double value, double scale) {
+        if (!spatial) {
+            return value;
+        }
+        double scaled = value * scale;
+        return integer ? Math.max(min, Math.round(scaled)) : scaled;
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.pixelcraftgui.model;
+
+import com.example.pixelcraftgui.model.lut.ColorLut;
+import com.example.pixelcraftgui.model.lut.LutConverter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Applies a chain of converters as one effect.
+ * Consecutive point-wise stages are fused into a single pass that runs every stage
+ * on a short run of pixels before moving on, so the chain reads and writes the image
+ * once instead of once per stage. Consecutive stages that compile to lookup tables are
+ * further collapsed into a single table when at least one of them already runs on its
+ * table; otherwise their arithmetic loops, which the JIT vectorizes, are faster than a
+ * lookup. Neighborhood and geometric stages break the fusion and run as passes of their own.
+ */
+public class PipelineConverter implements ImageConverter {
+
+    private final String name;
+    private final List<ImageConverter> stages;
+    private final List<ImageConverter> passes;
+    // Results of the passes before the last, by the output raster they are converted into.
+    // Weak keys drop the result of a conversion that stops before its last row.
+    private final Map<ImageRaster, Intermediate> intermediates = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Creates a pipeline.
+     * @param name the name shown for the whole chain
+     * @param stages the converters to apply, in order
+     */
+    public PipelineConverter(String name, List<ImageConverter> stages) {
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("A pipeline needs at least one stage");
+        }
+        this.name = name;
+        this.stages = List.copyOf(stages);
+        this.passes = Collections.unmodifiableList(fuse(this.stages));
+    }
+
+    /**
+     * Groups consecutive point converters into fused passes.
+     */
+    private static List<ImageConverter> fuse(List<ImageConverter> stages) {
+        List<ImageConverter> passes = new ArrayList<>();
+        List<PointConverter> run = new ArrayList<>();
+        for (ImageConverter stage : stages) {
+            for (ImageConverter pass : stage.getPasses()) {
+                if (pass instanceof PointConverter point) {
+                    run.add(point);
+                } else {
+                    flush(run, passes);
+                    passes.add(pass);
+                }
+            }
+        }
+        flush(run, passes);
+        return passes;
+    }
+
+    private static void flush(List<PointConverter> run, List<ImageConverter> passes) {
+        List<PointConverter> merged = mergeLuts(run);
+        if (merged.size() == 1) {
+            passes.add(merged.get(0));
+        } else if (!merged.isEmpty()) {
+            passes.add(new FusedPointConverter(merged));
+        }
+        run.clear();
+    }
+
+    /**
+     * Composes consecutive table-based converters into one table where that saves work.
+     */
+    private static List<PointConverter> mergeLuts(List<PointConverter> run) {
+        List<PointConverter> merged = new ArrayList<>();
+        List<PointConverter> tableRun = new ArrayList<>();
+        for (PointConverter stage : run) {
+            if (stage.toLut() != null) {
+                tableRun.add(stage);
+            } else {
+                merged.addAll(composeLuts(tableRun));
+                merged.add(stage);
+            }
+        }
+        merged.addAll(composeLuts(tableRun));
+        return merged;
+    }
+
+    private static List<PointConverter> composeLuts(List<PointConverter> tableRun) {
+        List<PointConverter> result = new ArrayList<>();
+        boolean runsOnTable = tableRun.stream().anyMatch(stage -> stage instanceof LutConverter);
+        if (tableRun.size() == 1 || !runsOnTable) {
+            result.addAll(tableRun);
+        } else {
+            ColorLut lut = tableRun.get(0).toLut();
+            StringBuilder name = new StringBuilder(tableRun.get(0).getName());
+            for (int i = 1; i < tableRun.size(); i++) {
+                lut = lut.andThen(tableRun.get(i).toLut());
+                name.append(" + ").append(tableRun.get(i).getName());
+            }
+            result.add(new LutConverter(name.toString(), lut));
+        }
+        tableRun.clear();
+        return result;
+    }
+
+    /**
+     * Gets the converters this pipeline was built from.
+     * @return the stages, in order
+     */
+    public List<ImageConverter> getStages() {
+        return stages;
+    }
+
+    /**
+     * Gets the settings of every stage, each prefixed with the stage index
+     * (for example {@code "1.levels"}).
+     */
+    @Override
+    public Map<String, String> getParameters() {
+        Map<String, String> parameters = new HashMap<>();
+        for (int i = 0; i < stages.size(); i++) {
+            for (Map.Entry<String, String> parameter : stages.get(i).getParameters().entrySet()) {
+                parameters.put(i + "." + parameter.getKey(), parameter.getValue());
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Extracts the settings of one stage from pipeline settings.
+     * @param parameters the settings returned by {@link #getParameters()}
+     * @param stage the stage index
+     * @return the settings of that stage, without the index prefix
+     */
+    static Map<String, String> stageParameters(Map<String, String> parameters, int stage) {
+        String prefix = stage + ".";
+        Map<String, String> result = new HashMap<>();
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            if (parameter.getKey().startsWith(prefix)) {
+                result.put(parameter.getKey().substring(prefix.length()), parameter.getValue());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<ImageConverter> getPasses() {
+        return passes;
+    }
+
+    @Override
+    public ImageRaster convertRaster(ImageRaster input) {
+        ImageRaster raster = input;
+        for (ImageConverter pass : passes) {
+            raster = pass.convertRaster(raster);
+        }
+        return raster;
+    }
+
+    /**
+     * Creates the output of the last pass. A multi-pass pipeline needs the complete result
+     * of its earlier passes before the last one can start, so this runs them over the whole
+     * input, on the calling thread, and keeps their result for {@link #convertRows} until
+     * every row of the returned output has been computed.
+     */
+    @Override
+    public ImageRaster createOutput(ImageRaster input) {
+        if (passes.size() == 1) {
+            return passes.get(0).createOutput(input);
+        }
+        ImageRaster raster = input;
+        for (int i = 0; i < passes.size() - 1; i++) {
+            raster = passes.get(i).convertRaster(raster);
+        }
+        ImageRaster output = lastPass().createOutput(raster);
+        intermediates.put(output, new Intermediate(raster, new LongAdder()));
+        return output;
+    }
+
+    /**
+     * Computes output rows of the pipeline. For a multi-pass pipeline, the rows of the last
+     * pass are computed from the intermediate result that {@link #createOutput} kept for
+     * {@code output}, so conversions of different inputs can share the pipeline. The tile
+     * executor and the streaming processor avoid holding that result by running
+     * {@link #getPasses()} one after the other.
+     * @throws IllegalArgumentException if a multi-pass pipeline is given an output it did not
+     *         create, or one whose rows have all been computed already
+     */
+    @Override
+    public void convertRows(ImageRaster input, ImageRaster output, int startRow, int endRow) {
+        if (passes.size() == 1) {
+            passes.get(0).convertRows(input, output, startRow, endRow);
+            return;
+        }
+        Intermediate intermediate = intermediates.get(output);
+        if (intermediate == null) {
+            throw new IllegalArgumentException("Output was not created by this pipeline's createOutput");
+        }
+        lastPass().convertRows(intermediate.raster(), output, startRow, endRow);
+        intermediate.rowsDone().add(endRow - startRow);
+        if (intermediate.rowsDone().sum() >= output.getHeight()) {
+            intermediates.remove(output);
+        }
+    }
+
+    @Override
+    public Footprint getFootprint() {
+        return passes.size() == 1 ? passes.get(0).getFootprint() : Footprint.geometric();
+    }
+
+    private ImageConverter lastPass() {
+        return passes.get(passes.size() - 1);
+    }
+
+    /**
+     * The result of the passes before the last for one conversion, shared by its bands.
+     */
+    private record Intermediate(ImageRaster raster, LongAdder rowsDone) {
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Runs several point converters in one traversal of the image.
+     * Each row is processed in chunks small enough to stay in the L1 cache: the first stage
+     * writes the chunk to the output and the remaining stages convert it in place.
+     */
+    static class FusedPointConverter implements PointConverter {
+
+        /** Pixels per chunk; 4 KB of ints. */
+        private static final int CHUNK = 1024;
+
+        private final PointConverter[] stages;
+
+        FusedPointConverter(List<PointConverter> stages) {
+            this.stages = stages.toArray(new PointConverter[0]);
+        }
+
+        @Override
+        public int convertPixel(int pixel, int x, int y) {
+            for (PointConverter stage : stages) {
+                pixel = stage.convertPixel(pixel, x, y);
+            }
+            return pixel;
+        }
+
+        @Override
+        public void convertRun(int[] src, int[] dst, int offset, int length, int x, int y) {
+            for (int start = 0; start < length; start += CHUNK) {
+                int chunk = Math.min(CHUNK, length - start);
+                stages[0].convertRun(src, dst, offset + start, chunk, x + start, y);
+                for (int i = 1; i < stages.length; i++) {
+                    stages[i].convertRun(dst, dst, offset + start, chunk, x + start, y);
+                }
+            }
+        }
+
+        @Override
+        public String getName() {
+            StringBuilder name = new StringBuilder();
+            for (PointConverter stage : stages) {
+                if (!name.isEmpty()) {
+                    name.append(" + ");
+                }
+                name.append(stage.getName());
+            }
+            return name.toString();
+        }
+    }
+}
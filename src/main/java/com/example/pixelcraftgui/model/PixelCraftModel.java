@@ -1,16 +1,29 @@
 package com.example.pixelcraftgui.model;
 
+import com.example.pixelcraftgui.model.cache.ResultCache;
+import com.example.pixelcraftgui.model.engine.BandListener;
+import com.example.pixelcraftgui.model.engine.CancellationToken;
+import com.example.pixelcraftgui.model.engine.ConversionStats;
+import com.example.pixelcraftgui.model.engine.ProgressListener;
+import com.example.pixelcraftgui.model.engine.TileExecutor;
+import com.example.pixelcraftgui.model.engine.ViewportFocus;
+import com.example.pixelcraftgui.model.history.EditHistory;
+import com.example.pixelcraftgui.model.history.ImageHistory;
+import com.example.pixelcraftgui.model.io.PngOptions;
+import com.example.pixelcraftgui.model.io.PngWriter;
+import com.example.pixelcraftgui.model.io.RowSource;
+import com.example.pixelcraftgui.model.io.StreamingProcessor;
 import javafx.scene.image.Image;
-import javafx.scene.image.PixelReader;
-import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
-import java.io.File;
+import java.io.BufferedOutputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import javax.imageio.ImageIO;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
 /**
  * Model class for the PixelCraft GUI application.
@@ -18,16 +31,44 @@ import javax.imageio.ImageIO;
  */
 public class PixelCraftModel {
     
+    /**
+     * Images larger than this share of the maximum heap are not loaded for editing: the
+     * current image, its history neighbours, a result and the display copies each hold one.
+     */
+    private static final int LOADABLE_HEAP_SHARE = 8;
+    
     private Image currentImage;
     private Image originalImage;
-    private List<Image> imageHistory;
-    private int currentHistoryIndex;
+    private final EditHistory history;
     private String currentImagePath;
     private PropertyChangeSupport propertyChangeSupport;
+    private final TileExecutor tileExecutor;
+    private final ResultCache resultCache = new ResultCache();
+    private volatile PngOptions saveOptions = PngOptions.DEFAULT;
     
     public PixelCraftModel() {
-        this.imageHistory = new ArrayList<>();
-        this.currentHistoryIndex = -1;
+        this(new TileExecutor());
+    }
+    
+    /**
+     * Creates a model that runs converters on the given executor.
+     * @param tileExecutor the executor used to apply converters
+     */
+    public PixelCraftModel(TileExecutor tileExecutor) {
+        this(tileExecutor, new ImageHistory());
+    }
+    
+    /**
+     * Creates a model that runs converters on the given executor and records
+     * its undo/redo states in the given history.
+     * @param tileExecutor the executor used to apply converters
+     * @param history the undo/redo history, for example an
+     *                {@link com.example.pixelcraftgui.model.history.OperationHistory}
+     *                replaying on the same executor
+     */
+    public PixelCraftModel(TileExecutor tileExecutor, EditHistory history) {
+        this.tileExecutor = tileExecutor;
+        this.history = history;
         this.propertyChangeSupport = new PropertyChangeSupport(this);
     }
     
@@ -49,21 +90,56 @@ public class PixelCraftModel {
      * @throws IOException if the image cannot be loaded
      */
     public void loadImage(String filePath) throws IOException {
-        FileInputStream inputFile = new FileInputStream(filePath);
-        Image newImage = new Image(inputFile);
+        Image newImage;
+        try (FileInputStream inputFile = new FileInputStream(filePath)) {
+            newImage = new Image(inputFile);
+        }
         
         this.originalImage = newImage;
         this.currentImage = newImage;
         this.currentImagePath = filePath;
         
         // Clear history and add the new image
-        this.imageHistory.clear();
-        this.imageHistory.add(newImage);
-        this.currentHistoryIndex = 0;
+        this.history.reset(newImage);
         
         notifyImageChanged();
     }
     
+    /**
+     * Checks, from the file header alone, whether an image is too large to edit in memory.
+     * Such an image can still be converted straight to a file with {@link #applyToFile}.
+     * @param filePath the path to the image file
+     * @return true if the image should not be loaded with {@link #loadImage}
+     */
+    public boolean isTooLargeToLoad(String filePath) {
+        try (RowSource source = RowSource.open(Paths.get(filePath))) {
+            long bytes = 4L * source.getWidth() * source.getHeight();
+            return bytes > Runtime.getRuntime().maxMemory() / LOADABLE_HEAP_SHARE;
+        } catch (IOException e) {
+            // Formats only JavaFX can read are loaded as before, which reports any real error
+            return false;
+        }
+    }
+    
+    /**
+     * Applies a converter to an image file and saves the result as PNG without loading
+     * the image, a strip of rows at a time, with the save options of the model.
+     * Safe to call from a background thread; the model state does not change.
+     * @param converter the converter to apply; see {@link StreamingProcessor#canStream}
+     * @param sourcePath the image file to read
+     * @param targetPath the PNG file to write
+     * @param token checked before each strip
+     * @param listener notified with the number of rows written
+     * @throws IOException if the source cannot be read or the target written
+     * @throws IllegalArgumentException if the converter cannot be applied strip by strip
+     * @throws java.util.concurrent.CancellationException if the token was cancelled
+     */
+    public void applyToFile(ImageConverter converter, String sourcePath, String targetPath,
+                            CancellationToken token, ProgressListener listener) throws IOException {
+        new StreamingProcessor(tileExecutor).process(converter, Paths.get(sourcePath), Paths.get(targetPath),
+                saveOptions, token, listener);
+    }
+    
     /**
      * Applies a converter to the current image.
      * @param converter the converter to apply
@@ -73,16 +149,76 @@ public class PixelCraftModel {
             return;
         }
 
-        // Apply the converter to the current image
-        Image convertedImage = converter.convertImage(currentImage);
+        addConvertedImage(convertImage(currentImage, converter, new CancellationToken(), ProgressListener.NONE), converter);
+    }
+    
+    /**
+     * Runs a converter on an image without changing the model state.
+     * Safe to call from a background thread; pass the result to
+     * {@link #addConvertedImage(Image, ImageConverter)} once the job completes.
+     * @param source the image to convert
+     * @param converter the converter to apply
+     * @param token checked between tiles to stop the job early
+     * @param listener notified as tiles complete
+     * @return the converted image
+     * @throws java.util.concurrent.CancellationException if the token was cancelled
+     */
+    public Image convertImage(Image source, ImageConverter converter,
+                              CancellationToken token, ProgressListener listener) {
+        ImageRaster input = FxRasterAdapter.fromImage(source);
+        ResultCache.Key key = resultCache.keyFor(input, converter);
+        ImageRaster output = key != null ? resultCache.get(key, input) : null;
+        if (output == null) {
+            // Apply the converter to the image on all cores
+            output = tileExecutor.execute(converter, input, token, listener);
+            if (key != null) {
+                resultCache.put(key, input, output);
+            }
+        }
+        return FxRasterAdapter.toImage(output);
+    }
+    
+    /**
+     * Runs a converter on an image without changing the model state, computing the rows
+     * the user is looking at first and reporting each band as it completes.
+     * The result is only delivered through the bands, so that the listener can build the
+     * image it displays and use it as the result, instead of copying the pixels twice.
+     * Safe to call from a background thread.
+     * @param source the image to convert
+     * @param converter the converter to apply
+     * @param token checked between tiles to stop the job early
+     * @param listener notified as tiles complete
+     * @param focus the visible part of the result; may be moved while the job runs
+     * @param bands notified, on a worker thread, as the bands of the result complete;
+     *              every band has been reported when this method returns, and a cached result
+     *              is reported as a single band
+     * @throws java.util.concurrent.CancellationException if the token was cancelled
+     */
+    public void convertProgressively(Image source, ImageConverter converter, CancellationToken token,
+                                     ProgressListener listener, ViewportFocus focus, BandListener bands) {
+        ImageRaster input = FxRasterAdapter.fromImage(source);
+        ResultCache.Key key = resultCache.keyFor(input, converter);
+        ImageRaster cached = key != null ? resultCache.get(key, input) : null;
+        if (cached != null) {
+            bands.bandCompleted(cached, 0, cached.getHeight());
+            return;
+        }
+        ImageRaster output = tileExecutor.execute(converter, input, token, listener, focus, bands);
+        if (key != null) {
+            resultCache.put(key, input, output);
+        }
+    }
+    
+    /**
+     * Makes a converted image the current image and records it in the history.
+     * @param convertedImage the result of a completed conversion
+     * @param converter the converter that produced it from the current image
+     */
+    public void addConvertedImage(Image convertedImage, ImageConverter converter) {
         this.currentImage = convertedImage;
         
         // Add to history (remove any future history if we're not at the end)
-        while (currentHistoryIndex < imageHistory.size() - 1) {
-            imageHistory.remove(imageHistory.size() - 1);
-        }
-        imageHistory.add(convertedImage);
-        currentHistoryIndex++;
+        history.push(convertedImage, converter);
         
         notifyImageChanged();
     }
@@ -97,34 +233,55 @@ public class PixelCraftModel {
             return;
         }
 
-        // Get the width and height of the current image
-        int width = (int) currentImage.getWidth();
-        int height = (int) currentImage.getHeight();
-        
-        // Get the pixel reader from the original image
-        PixelReader pixelReader = currentImage.getPixelReader();
-        
-        // Create a BufferedImage
-        BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        saveImage(currentImage, filePath, new CancellationToken(), ProgressListener.NONE);
+    }
+    
+    /**
+     * Saves an image as PNG without changing the model state.
+     * Safe to call from a background thread. The file is written under a temporary name
+     * and moved into place once complete, so a cancelled or failed save leaves any
+     * existing file untouched.
+     * @param image the image to save
+     * @param filePath the path where to save the image
+     * @param token checked every few rows to stop the save early
+     * @param listener notified with the number of rows encoded
+     * @throws IOException if the image cannot be saved
+     * @throws java.util.concurrent.CancellationException if the token was cancelled
+     */
+    public void saveImage(Image image, String filePath, CancellationToken token,
+                          ProgressListener listener) throws IOException {
+        // Copy the pixels out in one bulk read, then encode straight from the array
+        ImageRaster raster = FxRasterAdapter.fromImage(image);
         
-        // Copy the pixels to the BufferedImage
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                bufferedImage.setRGB(x, y, pixelReader.getArgb(x, y));
-            }
+        Path target = Paths.get(filePath);
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial), 1 << 16)) {
+            PngWriter.write(raster, out, saveOptions, token, listener);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
         }
-        
-        // Save the BufferedImage as PNG
-        ImageIO.write(bufferedImage, "png", new File(filePath));
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    /**
+     * Sets the compression used when saving; see {@link PngOptions#DEFAULT}.
+     * @param saveOptions the compression level and row filter
+     */
+    public void setSaveOptions(PngOptions saveOptions) {
+        this.saveOptions = saveOptions;
+    }
+    
+    public PngOptions getSaveOptions() {
+        return saveOptions;
     }
     
     /**
      * Undoes the last applied converter.
      */
     public void undo() {
-        if (currentHistoryIndex > 0) {
-            currentHistoryIndex--;
-            currentImage = imageHistory.get(currentHistoryIndex);
+        if (history.canUndo()) {
+            currentImage = history.undo();
             notifyImageChanged();
         }
     }
@@ -133,13 +290,57 @@ public class PixelCraftModel {
      * Redoes the last undone converter.
      */
     public void redo() {
-        if (currentHistoryIndex < imageHistory.size() - 1) {
-            currentHistoryIndex++;
-            currentImage = imageHistory.get(currentHistoryIndex);
+        if (history.canRedo()) {
+            currentImage = history.redo();
+            notifyImageChanged();
+        }
+    }
+    
+    /**
+     * Restores the image of a history state without changing the model.
+     * Safe to call from a background thread; see {@link EditHistory#restore}.
+     * @param position the position of the state in the history
+     * @param token checked while the state is restored
+     * @param listener notified as the restoring progresses
+     * @return the restored state, to pass to {@link #moveTo}
+     */
+    public EditHistory.Restored restoreState(int position, CancellationToken token, ProgressListener listener) {
+        return history.restore(position, token, listener);
+    }
+    
+    /**
+     * Makes a restored history state the current image.
+     * @param restored the state returned by {@link #restoreState}
+     * @return false if the state was dropped from the history meanwhile, in which case
+     *         nothing changes
+     */
+    public boolean moveTo(EditHistory.Restored restored) {
+        if (!history.moveTo(restored)) {
+            return false;
+        }
+        currentImage = restored.image();
+        notifyImageChanged();
+        return true;
+    }
+    
+    /**
+     * Drops every history state but the current one, freeing the memory they hold;
+     * afterwards nothing can be undone or redone.
+     */
+    public void trimHistory() {
+        if (currentImage != null) {
+            history.reset(currentImage);
             notifyImageChanged();
         }
     }
     
+    /**
+     * Drops the cached conversion results.
+     */
+    public void clearCaches() {
+        resultCache.clear();
+    }
+    
     /**
      * Resets the image to its original state.
      */
@@ -162,12 +363,34 @@ public class PixelCraftModel {
         return currentImagePath;
     }
     
+    public EditHistory getHistory() {
+        return history;
+    }
+    
+    /**
+     * Gets the cache of recent conversion results, which {@link #convertImage} and
+     * {@link #convertProgressively} consult before running a converter.
+     * @return the result cache
+     */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+    
+    /**
+     * Gets the timings of the conversions run by the tile executor of the model.
+     * @return the conversion statistics
+     */
+    public ConversionStats getConversionStats() {
+        return tileExecutor.getStats();
+    }
+
+    
     public boolean canUndo() {
-        return currentHistoryIndex > 0;
+        return history.canUndo();
     }
     
     public boolean canRedo() {
-        return currentHistoryIndex < imageHistory.size() - 1;
+        return history.canRedo();
     }
     
     public boolean hasImage() {
@@ -0,0 +1,68 @@
+package com.example.pixelcraftgui.model;
+
+import com.example.pixelcraftgui.model.lut.ColorLut;
+
+/**
+ * A converter whose output pixel depends only on the input pixel at the same position.
+ * Point converters can be fused by {@link PipelineConverter} so that a chain of
+ * color effects traverses the image once.
+ */
+public interface PointConverter extends ImageConverter {
+
+    /**
+     * Converts a single pixel.
+     * @param pixel the packed ARGB input pixel
+     * @param x the pixel column
+     * @param y the pixel row
+     * @return the packed ARGB output pixel
+     */
+    int convertPixel(int pixel, int x, int y);
+
+    /**
+     * Converts a run of consecutive pixels from one row.
+     * {@code src} and {@code dst} may be the same array, in which case the run is converted in place.
+     * Implementations override this with the same loop so the {@link #convertPixel} call
+     * stays monomorphic and is inlined by the JIT.
+     * @param src the input pixels
+     * @param dst the output pixels
+     * @param offset the array index of the first pixel of the run, in both arrays
+     * @param length the number of pixels in the run
+     * @param x the column of the first pixel of the run
+     * @param y the row of the run
+     */
+    default void convertRun(int[] src, int[] dst, int offset, int length, int x, int y) {
+        for (int i = 0; i < length; i++) {
+            dst[offset + i] = convertPixel(src[offset + i], x + i, y);
+        }
+    }
+
+    /**
+     * Gets the lookup table equivalent to this converter, if it has one.
+     * Converters whose result depends only on the pixel color (not its position) should
+     * provide one, so pipelines can collapse chains of them into a single table.
+     * Having a table does not mean running on it: a converter whose own arithmetic loop
+     * vectorizes (through the vector API, or the JIT otherwise) keeps that loop, which beats
+     * a lookup, and its table only serves when a pipeline collapses it with effects that
+     * already run on tables.
+     * @return the equivalent table, or null if the converter cannot be expressed as one
+     */
+    default ColorLut toLut() {
+        return null;
+    }
+
+    @Override
+    default void convertRows(ImageRaster input, ImageRaster output, int startRow, int endRow) {
+        int width = input.getWidth();
+        int[] src = input.getPixels();
+        int[] dst = output.getPixels();
+
+        for (int y = startRow; y < endRow; y++) {
+            convertRun(src, dst, y * width, width, 0, y);
+        }
+    }
+
+    @Override
+    default Footprint getFootprint() {
+        return Footprint.point();
+    }
+}
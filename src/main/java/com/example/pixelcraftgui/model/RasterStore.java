@@ -0,0 +1,171 @@
+package com.example.pixelcraftgui.model;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Function;
+
+/**
+ * ARGB raster kept outside the Java heap, in a memory-mapped scratch file.
+ *
+ * Images held on the heap make every full garbage collection longer and compete with the
+ * images being edited for heap space. A store keeps its pixels in a {@link MemorySegment}
+ * instead: the pages belong to the operating system, which keeps them in memory while
+ * there is room and writes them back to the file when there is not.
+ *
+ * Pixels are laid out like a compact {@link ImageRaster} and are moved in bands of rows:
+ * into heap arrays for the converters, whose loops work on int arrays, and straight into
+ * JavaFX images through {@link FxRasterAdapter}. A store may be read by several threads
+ * at once; it must be closed, once no thread uses it any more, to unmap it and delete its file.
+ * Files of stores that are never closed are left to the owner of the scratch directory.
+ */
+public final class RasterStore implements AutoCloseable {
+
+    private final int width;
+    private final int height;
+    private final Arena arena;
+    private final MemorySegment pixels;
+    private final Path file;
+    private boolean closed;
+
+    private RasterStore(int width, int height, Arena arena, MemorySegment pixels, Path file) {
+        this.width = width;
+        this.height = height;
+        this.arena = arena;
+        this.pixels = pixels;
+        this.file = file;
+    }
+
+    /**
+     * Creates a transparent black store backed by a new file.
+     * @param width the raster width in pixels
+     * @param height the raster height in pixels
+     * @param directory the scratch directory the file is created in
+     * @return the store
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public static RasterStore map(int width, int height, Path directory) throws IOException {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("Invalid raster size: " + width + "x" + height);
+        }
+        Path file = Files.createTempFile(directory, "raster", ".argb");
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Mapping past the end grows the file; the new pages read as zeros
+            MemorySegment pixels = channel.map(FileChannel.MapMode.READ_WRITE, 0, 4L * width * height, arena);
+            return new RasterStore(width, height, arena, pixels, file);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the bytes of pixel data outside the heap
+     */
+    public long byteSize() {
+        return pixels.byteSize();
+    }
+
+    /**
+     * Copies rows into an array.
+     * @param startRow the first row to read (inclusive)
+     * @param endRow the last row to read (exclusive)
+     * @param destination receives the rows one after the other
+     * @param offset the array index of the first pixel
+     */
+    public void readRows(int startRow, int endRow, int[] destination, int offset) {
+        checkRows(startRow, endRow);
+        MemorySegment.copy(pixels, ValueLayout.JAVA_INT, 4L * startRow * width,
+                destination, offset, (endRow - startRow) * width);
+    }
+
+    /**
+     * Copies rows from an array.
+     * @param startRow the first row to write (inclusive)
+     * @param endRow the last row to write (exclusive)
+     * @param source the rows one after the other
+     * @param offset the array index of the first pixel
+     */
+    public void writeRows(int startRow, int endRow, int[] source, int offset) {
+        checkRows(startRow, endRow);
+        MemorySegment.copy(source, offset, pixels, ValueLayout.JAVA_INT, 4L * startRow * width,
+                (endRow - startRow) * width);
+    }
+
+    /**
+     * Reads a band of rows into a raster.
+     * @param startRow the first row to read (inclusive)
+     * @param endRow the last row to read (exclusive)
+     * @return a compact raster of the store width holding a copy of the rows
+     */
+    public ImageRaster readBand(int startRow, int endRow) {
+        ImageRaster band = new ImageRaster(width, endRow - startRow);
+        readRows(startRow, endRow, band.getPixels(), 0);
+        return band;
+    }
+
+    /**
+     * Gets a view of a band of rows, without copying, for APIs that take buffers.
+     * The view must not be used once the store is closed.
+     * @param startRow the first row (inclusive)
+     * @param endRow the last row (exclusive)
+     * @return a buffer over the band's pixels, row by row
+     */
+    public IntBuffer rows(int startRow, int endRow) {
+        checkRows(startRow, endRow);
+        return pixels.asSlice(4L * startRow * width, 4L * (endRow - startRow) * width)
+                .asByteBuffer()
+                .order(ByteOrder.nativeOrder())
+                .asIntBuffer();
+    }
+
+    /**
+     * Reads the store, keeping it open until the reader returns, for threads that do not
+     * control when it is closed: {@link #close()} waits for the reader to finish.
+     * @param reader reads the pixels
+     * @return the result of the reader, or null if the store is already closed
+     */
+    public synchronized <T> T readIfOpen(Function<RasterStore, T> reader) {
+        return closed ? null : reader.apply(this);
+    }
+
+    private void checkRows(int startRow, int endRow) {
+        if (startRow < 0 || endRow > height || startRow > endRow) {
+            throw new IndexOutOfBoundsException("Rows " + startRow + " to " + endRow + " outside 0 to " + height);
+        }
+    }
+
+    /**
+     * Unmaps the pixels and deletes the file. Does nothing if already closed.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        arena.close();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Removed with the scratch directory
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.pixelcraftgui.model.blur;
+
+/**
+ * Fixed-point division of channel sums by the number of pixels in a blur window.
+ * Sliding-window blurs divide four channel sums for every output pixel; multiplying by a
+ * precomputed reciprocal is several times cheaper than integer division.
+ */
+final class BoxAverage {
+
+    private static final int SHIFT = 24;
+    private static final long HALF = 1L << (SHIFT - 1);
+
+    private BoxAverage() {
+    }
+
+    /**
+     * @param count the number of pixels in the window
+     * @return the reciprocal of {@code count}, scaled by 2^24
+     */
+    static long reciprocal(int count) {
+        return ((1L << SHIFT) + count / 2) / count;
+    }
+
+    /**
+     * Builds the reciprocals of every window size from 0 to {@code maxCount}.
+     * @param maxCount the largest window
+     * @return the table; entry 0 is unused
+     */
+    static long[] reciprocals(int maxCount) {
+        long[] table = new long[maxCount + 1];
+        for (int count = 1; count <= maxCount; count++) {
+            table[count] = reciprocal(count);
+        }
+        return table;
+    }
+
+    /**
+     * Packs the rounded averages of four channel sums.
+     * @param a the alpha sum
+     * @param r the red sum
+     * @param g the green sum
+     * @param b the blue sum
+     * @param reciprocal the reciprocal of the window size, from {@link #reciprocal}
+     * @return the packed ARGB average
+     */
+    static int pack(int a, int r, int g, int b, long reciprocal) {
+        return (int) ((a * reciprocal + HALF) >>> SHIFT) << 24
+                | (int) ((r * reciprocal + HALF) >>> SHIFT) << 16
+                | (int) ((g * reciprocal + HALF) >>> SHIFT) << 8
+                | (int) ((b * reciprocal + HALF) >>> SHIFT);
+    }
+}
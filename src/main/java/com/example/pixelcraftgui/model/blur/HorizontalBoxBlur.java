@@ -0,0 +1,99 @@
+package com.example.pixelcraftgui.model.blur;
+
+import com.example.pixelcraftgui.model.Footprint;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.ImageRaster;
+
+/**
+ * Averages each pixel with its neighbors on the same row, one or more times.
+ *
+ * A running sum slides along the row: each step adds the pixel entering the window
+ * and subtracts the one leaving it, so the cost per pixel does not depend on the radius.
+ * Pixels beyond the image edge repeat the edge pixel. Several iterations (as used for
+ * Gaussian blur) run back to back on a row buffer, so the image is traversed once.
+ */
+public class HorizontalBoxBlur implements ImageConverter {
+
+    private final int[] radii;
+
+    /**
+     * @param radii the window radius of each iteration, in order; a window spans {@code 2 * radius + 1} pixels
+     */
+    public HorizontalBoxBlur(int... radii) {
+        if (radii.length == 0) {
+            throw new IllegalArgumentException("At least one radius is needed");
+        }
+        for (int radius : radii) {
+            if (radius < 0) {
+                throw new IllegalArgumentException("Radius must not be negative: " + radius);
+            }
+        }
+        this.radii = radii.clone();
+    }
+
+    @Override
+    public void convertRows(ImageRaster input, ImageRaster output, int startRow, int endRow) {
+        int width = input.getWidth();
+        int[] src = input.getPixels();
+        int[] dst = output.getPixels();
+        int[] current = new int[width];
+        int[] next = new int[width];
+
+        for (int y = startRow; y < endRow; y++) {
+            int row = y * width;
+            if (radii.length == 1) {
+                blurRow(src, row, dst, row, width, radii[0]);
+                continue;
+            }
+            // Iterate through the row buffers, writing the last iteration to the output
+            blurRow(src, row, current, 0, width, radii[0]);
+            for (int i = 1; i < radii.length - 1; i++) {
+                blurRow(current, 0, next, 0, width, radii[i]);
+                int[] swap = current;
+                current = next;
+                next = swap;
+            }
+            blurRow(current, 0, dst, row, width, radii[radii.length - 1]);
+        }
+    }
+
+    /**
+     * Box-blurs one row with a running sum.
+     */
+    static void blurRow(int[] src, int srcOffset, int[] dst, int dstOffset, int width, int radius) {
+        if (radius == 0) {
+            System.arraycopy(src, srcOffset, dst, dstOffset, width);
+            return;
+        }
+        long reciprocal = BoxAverage.reciprocal(2 * radius + 1);
+        int last = width - 1;
+        int a = 0, r = 0, g = 0, b = 0;
+        for (int i = -radius; i <= radius; i++) {
+            int pixel = src[srcOffset + Math.min(Math.max(i, 0), last)];
+            a += pixel >>> 24;
+            r += (pixel >> 16) & 0xff;
+            g += (pixel >> 8) & 0xff;
+            b += pixel & 0xff;
+        }
+        for (int x = 0; x < width; x++) {
+            dst[dstOffset + x] = BoxAverage.pack(a, r, g, b, reciprocal);
+            int leaving = src[srcOffset + Math.max(x - radius, 0)];
+            int entering = src[srcOffset + Math.min(x + radius + 1, last)];
+            a += (entering >>> 24) - (leaving >>> 24);
+            r += ((entering >> 16) & 0xff) - ((leaving >> 16) & 0xff);
+            g += ((entering >> 8) & 0xff) - ((leaving >> 8) & 0xff);
+            b += (entering & 0xff) - (leaving & 0xff);
+        }
+    }
+
+    @Override
+    public Footprint getFootprint() {
+        // Rows are independent of each other
+        return Footprint.neighborhood(0);
+    }
+
+    @Override
+    public String getName() {
+        return "Horizontal Box Blur";
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.pixelcraftgui.model.blur;
+
+import com.example.pixelcraftgui.model.Footprint;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.ImageRaster;
+
+/**
+ * Averages each pixel with the pixels that follow it along a straight line at a given angle.
+ *
+ * The image is cut into parallel digital lines that advance one pixel along the major axis
+ * (x for angles closer to horizontal, y otherwise) per step. Each line is blurred with a
+ * running sum, so the cost per pixel does not depend on the blur length. Lines are offset
+ * copies of the same step pattern, so they tile the image without gaps or overlaps.
+ * Near the edges the window simply holds fewer pixels. The pattern starts at the image
+ * edge the lines leave from; a strip of rows cut from a taller image is converted by
+ * {@link #inStrip}, which starts it at the same edge of the whole image.
+ */
+public class MotionBlur implements ImageConverter {
+
+    private final int length;
+    private final double angle;
+    private final boolean xMajor;
+    private final int direction;
+    private final double slope;
+    private final int taps;
+
+    /**
+     * @param length the number of pixels averaged along the line, at least 1
+     * @param angleDegrees the direction of the line, counterclockwise from the x axis in image coordinates
+     */
+    public MotionBlur(int length, double angleDegrees) {
+        if (length < 1) {
+            throw new IllegalArgumentException("Length must be at least 1: " + length);
+        }
+        this.length = length;
+        this.angle = angleDegrees;
+        double radians = Math.toRadians(angleDegrees);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+        this.xMajor = Math.abs(cos) >= Math.abs(sin);
+        double major = xMajor ? cos : sin;
+        double minor = xMajor ? sin : cos;
+        this.direction = major >= 0 ? 1 : -1;
+        this.slope = minor / Math.abs(major);
+        // The same reach along the major axis as the original tap-by-tap blur
+        this.taps = 1 + (int) ((length - 1) * Math.abs(major));
+    }
+
+    /**
+     * @return the number of pixels averaged along the line
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return the direction of the line in degrees
+     */
+    public double getAngle() {
+        return angle;
+    }
+
+    /**
+     * Gets this blur for a strip of rows cut from a taller image, such as the strips of a
+     * streamed conversion. Lines closer to vertical than horizontal advance along the rows,
+     * so the strip's lines follow the step pattern of the whole image rather than starting
+     * it over at the strip edge, and its rows come out the same as in a whole-image conversion.
+     * @param firstRow the row of the whole image the strip starts at
+     * @param imageHeight the height of the whole image
+     * @return a converter for the strip
+     */
+    public ImageConverter inStrip(int firstRow, int imageHeight) {
+        return new ImageConverter() {
+            @Override
+            public void convertRows(ImageRaster input, ImageRaster output, int startRow, int endRow) {
+                MotionBlur.this.convertRows(input, output, startRow, endRow, firstRow, imageHeight);
+            }
+
+            @Override
+            public Footprint getFootprint() {
+                return MotionBlur.this.getFootprint();
+            }
+
+            @Override
+            public String getName() {
+                return MotionBlur.this.getName();
+            }
+        };
+    }
+
+    @Override
+    public void convertRows(ImageRaster input, ImageRaster output, int startRow, int endRow) {
+        convertRows(input, output, startRow, endRow, 0, input.getHeight());
+    }
+
+    private void convertRows(ImageRaster input, ImageRaster output, int startRow, int endRow,
+                             int firstRow, int imageHeight) {
+        int width = input.getWidth();
+        int height = input.getHeight();
+        int[] src = input.getPixels();
+        int[] dst = output.getPixels();
+        int steps = xMajor ? width : height;
+        int across = xMajor ? height : width;
+        // Steps of the whole image before the first step of this raster
+        int skipped = xMajor ? 0 : (direction > 0 ? firstRow : imageHeight - firstRow - height);
+
+        // Minor-axis offset of each step of a line; monotonic, in the direction of `sign`
+        int[] offsets = new int[steps];
+        // Array index of each step, for a line with minor coordinate 0
+        int[] majorIndex = new int[steps];
+        for (int m = 0; m < steps; m++) {
+            offsets[m] = (int) Math.floor((skipped + m) * slope + 0.5);
+            int u = direction > 0 ? m : steps - 1 - m;
+            majorIndex[m] = xMajor ? u : u * width;
+        }
+        int sign = slope >= 0 ? 1 : -1;
+        int minOffset = Math.min(offsets[0], offsets[steps - 1]);
+        int maxOffset = Math.max(offsets[0], offsets[steps - 1]);
+        int minorStride = xMajor ? width : 1;
+        long[] reciprocals = BoxAverage.reciprocals(taps);
+
+        // Lines that can touch the band: for x-major lines the band bounds the minor
+        // coordinate, for y-major lines it bounds the steps
+        int firstLine = xMajor ? startRow - maxOffset : -maxOffset;
+        int lastLine = xMajor ? endRow - 1 - minOffset : across - 1 - minOffset;
+        int bandLo = 0, bandHi = steps;
+        if (!xMajor) {
+            bandLo = direction > 0 ? startRow : steps - endRow;
+            bandHi = direction > 0 ? endRow : steps - startRow;
+        }
+
+        for (int c = firstLine; c <= lastLine; c++) {
+            // Steps whose pixel lies inside the image
+            int tapLo = lowerBound(offsets, sign, c, 0, across);
+            int tapHi = upperBound(offsets, sign, c, 0, across);
+            // Steps whose pixel lies inside the band
+            int outLo, outHi;
+            if (xMajor) {
+                outLo = lowerBound(offsets, sign, c, startRow, endRow);
+                outHi = upperBound(offsets, sign, c, startRow, endRow);
+            } else {
+                outLo = Math.max(tapLo, bandLo);
+                outHi = Math.min(tapHi, bandHi);
+            }
+            if (outLo >= outHi) {
+                continue;
+            }
+
+            int minorBase = c * minorStride;
+            int a = 0, r = 0, g = 0, b = 0;
+            int windowEnd = Math.min(outLo + taps, tapHi);
+            for (int m = outLo; m < windowEnd; m++) {
+                int pixel = src[majorIndex[m] + (minorBase + offsets[m] * minorStride)];
+                a += pixel >>> 24;
+                r += (pixel >> 16) & 0xff;
+                g += (pixel >> 8) & 0xff;
+                b += pixel & 0xff;
+            }
+            for (int m = outLo; m < outHi; m++) {
+                int index = majorIndex[m] + (minorBase + offsets[m] * minorStride);
+                dst[index] = BoxAverage.pack(a, r, g, b, reciprocals[windowEnd - m]);
+                int leaving = src[index];
+                a -= leaving >>> 24;
+                r -= (leaving >> 16) & 0xff;
+                g -= (leaving >> 8) & 0xff;
+                b -= leaving & 0xff;
+                if (windowEnd < tapHi) {
+                    int entering = src[majorIndex[windowEnd] + (minorBase + offsets[windowEnd] * minorStride)];
+                    a += entering >>> 24;
+                    r += (entering >> 16) & 0xff;
+                    g += (entering >> 8) & 0xff;
+                    b += entering & 0xff;
+                    windowEnd++;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the first step whose minor coordinate {@code c + offsets[m]} lies in [lo, hi)
+     */
+    private static int lowerBound(int[] offsets, int sign, int c, int lo, int hi) {
+        return sign > 0 ? firstAtLeast(offsets, sign, lo - c) : firstAtLeast(offsets, sign, c - hi + 1);
+    }
+
+    /**
+     * @return one past the last step whose minor coordinate {@code c + offsets[m]} lies in [lo, hi)
+     */
+    private static int upperBound(int[] offsets, int sign, int c, int lo, int hi) {
+        return sign > 0 ? firstAtLeast(offsets, sign, hi - c) : firstAtLeast(offsets, sign, c - lo + 1);
+    }
+
+    /**
+     * Binary search over the nondecreasing sequence {@code sign * offsets[m]}.
+     * @return the first step whose value is at least {@code value}, or the number of steps
+     */
+    private static int firstAtLeast(int[] offsets, int sign, int value) {
+        int lo = 0, hi = offsets.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sign * offsets[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    @Override
+    public Footprint getFootprint() {
+        // A band reads the rows the lines pass through after leaving it
+        double rise = xMajor ? Math.abs(slope) * (taps - 1) : taps - 1;
+        return Footprint.neighborhood((int) Math.ceil(rise));
+    }
+
+    @Override
+    public String getName() {
+        return "Motion Blur";
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.pixelcraftgui.model.blur;
+
+import com.example.pixelcraftgui.model.Footprint;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.ImageRaster;
+
+/**
+ * Averages each pixel with its neighbors in the same column.
+ *
+ * The running sums of every column are kept in row-sized arrays and slid down one row
+ * at a time, so the image is still read row by row (cache friendly) and the cost per
+ * pixel does not depend on the radius. Pixels beyond the image edge repeat the edge pixel.
+ * Each band starts its sums from scratch, reading {@code radius} rows above and below it.
+ */
+public class VerticalBoxBlur implements ImageConverter {
+
+    private final int radius;
+
+    /**
+     * @param radius the window radius; a window spans {@code 2 * radius + 1} pixels
+     */
+    public VerticalBoxBlur(int radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Radius must not be negative: " + radius);
+        }
+        this.radius = radius;
+    }
+
+    @Override
+    public void convertRows(ImageRaster input, ImageRaster output, int startRow, int endRow) {
+        int width = input.getWidth();
+        int last = input.getHeight() - 1;
+        int[] src = input.getPixels();
+        int[] dst = output.getPixels();
+        if (radius == 0) {
+            System.arraycopy(src, startRow * width, dst, startRow * width, (endRow - startRow) * width);
+            return;
+        }
+
+        long reciprocal = BoxAverage.reciprocal(2 * radius + 1);
+        int[] a = new int[width];
+        int[] r = new int[width];
+        int[] g = new int[width];
+        int[] b = new int[width];
+        for (int i = startRow - radius; i <= startRow + radius; i++) {
+            int row = Math.min(Math.max(i, 0), last) * width;
+            for (int x = 0; x < width; x++) {
+                int pixel = src[row + x];
+                a[x] += pixel >>> 24;
+                r[x] += (pixel >> 16) & 0xff;
+                g[x] += (pixel >> 8) & 0xff;
+                b[x] += pixel & 0xff;
+            }
+        }
+
+        for (int y = startRow; y < endRow; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                dst[row + x] = BoxAverage.pack(a[x], r[x], g[x], b[x], reciprocal);
+            }
+            int leaving = Math.max(y - radius, 0) * width;
+            int entering = Math.min(y + radius + 1, last) * width;
+            for (int x = 0; x < width; x++) {
+                int out = src[leaving + x];
+                int in = src[entering + x];
+                a[x] += (in >>> 24) - (out >>> 24);
+                r[x] += ((in >> 16) & 0xff) - ((out >> 16) & 0xff);
+                g[x] += ((in >> 8) & 0xff) - ((out >> 8) & 0xff);
+                b[x] += (in & 0xff) - (out & 0xff);
+            }
+        }
+    }
+
+    @Override
+    public Footprint getFootprint() {
+        return Footprint.neighborhood(radius);
+    }
+
+    @Override
+    public String getName() {
+        return "Vertical Box Blur";
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.pixelcraftgui.model.cache;
+
+import com.example.pixelcraftgui.model.ConverterFactory;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import com.example.pixelcraftgui.model.history.Operation;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the results of recent conversions, so that applying an effect again to the
+ * same image, for example after undoing it to compare with another effect, is instant.
+ *
+ * A result is found by the content of the input (see {@link ContentHash}) and by the
+ * converter type and settings, so it is found again even when the input is a different
+ * image object with the same pixels, such as a state restored by undo. The input is kept
+ * with its result and compared pixel for pixel on a hit, so two images whose hashes
+ * collide never share a result. Only converters that the factory can recreate from their
+ * settings are cached, since their settings describe them fully; converters with a random
+ * seed, such as the grain of Old Photo, would never be looked up again and are not cached.
+ *
+ * Entries are held until their pixels, input and result, exceed the byte budget, and the
+ * least recently used ones are dropped first. Cached rasters are shared and must not be
+ * modified. All methods are thread-safe.
+ */
+public class ResultCache {
+
+    /**
+     * Identifies a conversion.
+     * @param width the input width
+     * @param height the input height
+     * @param contentHash the hash of the input pixels
+     * @param operation the converter type and settings
+     */
+    public record Key(int width, int height, long contentHash, Operation operation) {
+    }
+
+    /**
+     * A result and the input it was converted from.
+     */
+    private record Entry(ImageRaster input, ImageRaster result) {
+
+        long bytes() {
+            return bytesOf(input) + bytesOf(result);
+        }
+    }
+
+    private final long byteBudget;
+    private final LinkedHashMap<Key, Entry> results = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates a cache with a budget of an eighth of the maximum heap.
+     */
+    public ResultCache() {
+        this(Runtime.getRuntime().maxMemory() / 8);
+    }
+
+    /**
+     * @param byteBudget the bytes of result and input pixels the cache may hold; 0 disables it
+     */
+    public ResultCache(long byteBudget) {
+        if (byteBudget < 0) {
+            throw new IllegalArgumentException("Cache budget must not be negative: " + byteBudget);
+        }
+        this.byteBudget = byteBudget;
+    }
+
+    /**
+     * Gets the key of a conversion, hashing the input.
+     * @param input the pixels to convert
+     * @param converter the converter to apply
+     * @return the key, or null if the result of the converter is not cached
+     */
+    public Key keyFor(ImageRaster input, ImageConverter converter) {
+        if (byteBudget == 0) {
+            return null;
+        }
+        Operation operation = Operation.of(converter);
+        if (operation == null || hasSeed(operation)) {
+            return null;
+        }
+        return new Key(input.getWidth(), input.getHeight(), ContentHash.of(input), operation);
+    }
+
+    /**
+     * Looks up a result and counts the hit or miss. A result whose input has the same hash
+     * but different pixels is a miss.
+     * @param key the key of the conversion
+     * @param input the pixels to convert, the same the key was computed from
+     * @return the cached result, or null if there is none
+     */
+    public ImageRaster get(Key key, ImageRaster input) {
+        Entry entry;
+        synchronized (this) {
+            entry = results.get(key);
+        }
+        // Compared unlocked: cached rasters are never modified
+        boolean hit = entry != null && samePixels(entry.input(), input);
+        synchronized (this) {
+            if (hit) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        return hit ? entry.result() : null;
+    }
+
+    /**
+     * Adds a result, dropping the least recently used results until the cache fits its budget.
+     * A result that, with its input, is larger than the whole budget is not kept.
+     * @param key the key of the conversion
+     * @param input the pixels the result was converted from; must not be modified afterwards
+     * @param result the converted pixels; must not be modified afterwards
+     */
+    public synchronized void put(Key key, ImageRaster input, ImageRaster result) {
+        Entry entry = new Entry(input, result);
+        long size = entry.bytes();
+        if (size > byteBudget) {
+            return;
+        }
+        Entry previous = results.put(key, entry);
+        bytes += size - (previous != null ? previous.bytes() : 0);
+        Iterator<Entry> eldest = results.values().iterator();
+        while (bytes > byteBudget) {
+            bytes -= eldest.next().bytes();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Drops every result; the hit and miss counts are kept.
+     */
+    public synchronized void clear() {
+        results.clear();
+        bytes = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the fraction of lookups that found a result, or 0 before the first lookup
+     */
+    public synchronized double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return the number of results held
+     */
+    public synchronized int size() {
+        return results.size();
+    }
+
+    /**
+     * @return the bytes of the pixels of the results held and of their inputs
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getByteBudget() {
+        return byteBudget;
+    }
+
+    /**
+     * Checks for converter settings that hold a seed, which the factory draws at random
+     * for every new converter, also within recipes.
+     */
+    private static boolean hasSeed(Operation operation) {
+        for (String name : operation.parameters().keySet()) {
+            if (name.equals(ConverterFactory.PARAM_SEED) || name.endsWith("." + ConverterFactory.PARAM_SEED)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean samePixels(ImageRaster cached, ImageRaster input) {
+        if (cached.getWidth() != input.getWidth() || cached.getHeight() != input.getHeight()) {
+            return false;
+        }
+        int width = input.getWidth();
+        for (int y = 0; y < input.getHeight(); y++) {
+            if (!Arrays.equals(cached.getPixels(), cached.index(0, y), cached.index(0, y) + width,
+                    input.getPixels(), input.index(0, y), input.index(0, y) + width)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long bytesOf(ImageRaster raster) {
+        return 4L * raster.getPixels().length;
+    }
+}
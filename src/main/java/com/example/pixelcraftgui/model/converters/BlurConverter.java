@@ -1,64 +1,40 @@
 package com.example.pixelcraftgui.model.converters;
 
-import com.example.pixelcraftgui.helper.ARGB;
-import com.example.pixelcraftgui.model.ImageConverter;
-import javafx.scene.image.Image;
-import javafx.scene.image.PixelReader;
-import javafx.scene.image.PixelWriter;
-import javafx.scene.image.WritableImage;
+import com.example.pixelcraftgui.model.ConverterFactory;
+import com.example.pixelcraftgui.model.blur.MotionBlur;
+import java.util.Map;
 
 /**
  * Blur converter implementation using the original Blur logic.
- * Applies a blur to the image by sampling pixels in a 45-degree angle from each pixel and averaging the color values.
+ * Applies a motion blur by averaging each pixel with the pixels that follow it along a line,
+ * 15 pixels at 45 degrees by default. The line is walked with a running sum, so long blurs
+ * cost no more than short ones.
  */
-public class BlurConverter implements ImageConverter {
+public class BlurConverter extends MotionBlur {
 
-    @Override
-    public Image convertImage(Image inputImage) {
-        int width = (int) inputImage.getWidth();
-        int height = (int) inputImage.getHeight();
-        WritableImage blurredImage = new WritableImage(width, height);
-        PixelReader reader = inputImage.getPixelReader();
-        PixelWriter writer = blurredImage.getPixelWriter();
-
-        int blurLength = 15; // Adjust for the length of the blur
-        double angle = Math.PI / 4;  // 45 degrees (adjust as needed)
-
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int a = 0, r = 0, g = 0, b = 0, count = 0;
-
-                for (int i = 0; i < blurLength; i++) {
-                    int dx = (int) (i * Math.cos(angle));
-                    int dy = (int) (i * Math.sin(angle));
+    public static final int DEFAULT_LENGTH = 15;
+    public static final double DEFAULT_ANGLE = 45;
 
-                    int nx = x + dx;
-                    int ny = y + dy;
+    public BlurConverter() {
+        this(DEFAULT_LENGTH, DEFAULT_ANGLE);
+    }
 
-                    if (nx >= 0 && nx < width && ny >= 0 && ny < height) {
-                        ARGB argb = new ARGB(reader.getArgb(nx, ny));
-                        a += argb.alpha;
-                        r += argb.red;
-                        g += argb.green;
-                        b += argb.blue;
-                        count++;
-                    }
-                }
+    /**
+     * @param length the number of pixels averaged along the line, at least 1
+     * @param angleDegrees the direction of the blur in degrees
+     */
+    public BlurConverter(int length, double angleDegrees) {
+        super(length, angleDegrees);
+    }
 
-                if (count > 0) {  
-                    // Avoid division by zero if no valid pixels were sampled
-                    writer.setArgb(x, y, new ARGB(a / count, r / count, g / count, b / count).toInt());
-                } else {
-                    // Use the original pixel if no valid samples
-                    writer.setArgb(x, y, reader.getArgb(x, y)); 
-                }
-            }
-        }
-        return blurredImage;
+    @Override
+    public Map<String, String> getParameters() {
+        return Map.of(ConverterFactory.PARAM_LENGTH, Integer.toString(getLength()),
+                ConverterFactory.PARAM_ANGLE, Double.toString(getAngle()));
     }
 
     @Override
     public String getName() {
         return "Blur";
     }
-} 
\ No newline at end of file
+}
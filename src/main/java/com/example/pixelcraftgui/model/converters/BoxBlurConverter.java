@@ -0,0 +1,57 @@
+package com.example.pixelcraftgui.model.converters;
+
+import com.example.pixelcraftgui.model.ConverterFactory;
+import com.example.pixelcraftgui.model.convolution.BorderMode;
+import com.example.pixelcraftgui.model.convolution.ConvolutionConverter;
+import com.example.pixelcraftgui.model.convolution.Kernel;
+import java.util.Map;
+
+/**
+ * Box blur converter implementation.
+ * Replaces each pixel with the average of the square around it. The box kernel is
+ * separable with equal weights, so the convolution runs it as a horizontal and a
+ * vertical running sum and the cost per pixel is the same for any radius.
+ */
+public class BoxBlurConverter extends ConvolutionConverter {
+
+    public static final int DEFAULT_RADIUS = 5;
+
+    private final int radius;
+
+    public BoxBlurConverter() {
+        this(DEFAULT_RADIUS);
+    }
+
+    /**
+     * @param radius the distance from the center to the edge of the square, at least 1
+     */
+    public BoxBlurConverter(int radius) {
+        this(radius, BorderMode.CLAMP);
+    }
+
+    /**
+     * @param radius the distance from the center to the edge of the square, at least 1
+     * @param border how pixels outside the image are read
+     */
+    public BoxBlurConverter(int radius, BorderMode border) {
+        super("Box Blur", Kernel.box(checkRadius(radius)), border, true);
+        this.radius = radius;
+    }
+
+    private static int checkRadius(int radius) {
+        if (radius < 1) {
+            throw new IllegalArgumentException("Radius must be at least 1: " + radius);
+        }
+        return radius;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    @Override
+    public Map<String, String> getParameters() {
+        return Map.of(ConverterFactory.PARAM_RADIUS, Integer.toString(radius),
+                ConverterFactory.PARAM_BORDER, getBorderMode().name());
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.pixelcraftgui.model.converters;
+
+import com.example.pixelcraftgui.model.convolution.BorderMode;
+import com.example.pixelcraftgui.model.convolution.ConvolutionConverter;
+import com.example.pixelcraftgui.model.convolution.Kernel;
+
+/**
+ * Edge detection converter implementation.
+ * Convolves the image with a Laplacian kernel, which is zero on flat areas and bright
+ * where the color changes, leaving the outlines on a black background:
+ *
+ * -1 -1 -1
+ * -1  8 -1
+ * -1 -1 -1
+ */
+public class EdgeDetectConverter extends ConvolutionConverter {
+
+    private static final Kernel KERNEL = Kernel.of(
+            new double[]{-1, -1, -1},
+            new double[]{-1, 8, -1},
+            new double[]{-1, -1, -1});
+
+    public EdgeDetectConverter() {
+        this(BorderMode.CLAMP);
+    }
+
+    /**
+     * @param border how pixels outside the image are read
+     */
+    public EdgeDetectConverter(BorderMode border) {
+        super("Edge Detect", KERNEL, border, false);
+    }
+}
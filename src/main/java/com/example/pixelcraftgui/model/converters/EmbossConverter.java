@@ -0,0 +1,33 @@
+package com.example.pixelcraftgui.model.converters;
+
+import com.example.pixelcraftgui.model.convolution.BorderMode;
+import com.example.pixelcraftgui.model.convolution.ConvolutionConverter;
+import com.example.pixelcraftgui.model.convolution.Kernel;
+
+/**
+ * Emboss converter implementation.
+ * Convolves the image with a directional difference kernel and adds a mid-gray bias,
+ * so flat areas turn gray and edges look raised, lit from the top left:
+ *
+ * -1 -1  0
+ * -1  0  1
+ *  0  1  1
+ */
+public class EmbossConverter extends ConvolutionConverter {
+
+    private static final Kernel KERNEL = Kernel.of(
+            new double[]{-1, -1, 0},
+            new double[]{-1, 0, 1},
+            new double[]{0, 1, 1}).withBias(128);
+
+    public EmbossConverter() {
+        this(BorderMode.CLAMP);
+    }
+
+    /**
+     * @param border how pixels outside the image are read
+     */
+    public EmbossConverter(BorderMode border) {
+        super("Emboss", KERNEL, border, false);
+    }
+}
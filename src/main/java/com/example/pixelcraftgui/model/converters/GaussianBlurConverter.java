@@ -0,0 +1,81 @@
+package com.example.pixelcraftgui.model.converters;
+
+import com.example.pixelcraftgui.model.ConverterFactory;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.PipelineConverter;
+import com.example.pixelcraftgui.model.blur.HorizontalBoxBlur;
+import com.example.pixelcraftgui.model.blur.VerticalBoxBlur;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gaussian blur converter implementation.
+ * Approximates a Gaussian blur with three successive box blurs whose sizes are chosen so
+ * the combined variance matches the requested one. Each box blur runs with a running sum,
+ * so the cost per pixel is the same for any radius; the three horizontal blurs share one
+ * pass over the image, followed by the three vertical ones.
+ */
+public class GaussianBlurConverter extends PipelineConverter {
+
+    public static final double DEFAULT_RADIUS = 3;
+
+    private static final int BOXES = 3;
+
+    private final double radius;
+
+    public GaussianBlurConverter() {
+        this(DEFAULT_RADIUS);
+    }
+
+    /**
+     * @param radius the standard deviation of the Gaussian, in pixels; must be positive
+     */
+    public GaussianBlurConverter(double radius) {
+        super("Gaussian Blur", createPasses(boxRadii(radius)));
+        this.radius = radius;
+    }
+
+    private static List<ImageConverter> createPasses(int[] radii) {
+        List<ImageConverter> passes = new ArrayList<>();
+        passes.add(new HorizontalBoxBlur(radii));
+        for (int radius : radii) {
+            passes.add(new VerticalBoxBlur(radius));
+        }
+        return passes;
+    }
+
+    /**
+     * Picks box sizes whose successive application has a variance of {@code sigma}^2:
+     * the boxes are the odd widths just below and above the ideal width, with as many
+     * of the smaller ones as needed to match the variance.
+     */
+    static int[] boxRadii(double sigma) {
+        if (!(sigma > 0)) {
+            throw new IllegalArgumentException("Radius must be positive: " + sigma);
+        }
+        double variance = 12 * sigma * sigma;
+        int lower = (int) Math.floor(Math.sqrt(variance / BOXES + 1));
+        if (lower % 2 == 0) {
+            lower--;
+        }
+        int upper = lower + 2;
+        long smaller = Math.round((variance - BOXES * lower * lower - 4 * BOXES * lower - 3 * BOXES)
+                / (-4.0 * lower - 4));
+        int[] radii = new int[BOXES];
+        for (int i = 0; i < BOXES; i++) {
+            int size = i < smaller ? lower : upper;
+            radii[i] = Math.max(0, (size - 1) / 2);
+        }
+        return radii;
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+
+    @Override
+    public Map<String, String> getParameters() {
+        return Map.of(ConverterFactory.PARAM_RADIUS, Double.toString(radius));
+    }
+}
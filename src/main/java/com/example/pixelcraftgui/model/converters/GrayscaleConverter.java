@@ -1,43 +1,55 @@
 package com.example.pixelcraftgui.model.converters;
 
 import com.example.pixelcraftgui.helper.ARGB;
-import com.example.pixelcraftgui.model.ImageConverter;
-import javafx.scene.image.Image;
-import javafx.scene.image.PixelReader;
-import javafx.scene.image.PixelWriter;
-import javafx.scene.image.WritableImage;
+import com.example.pixelcraftgui.model.PointConverter;
+import com.example.pixelcraftgui.model.lut.ChannelLut;
+import com.example.pixelcraftgui.model.lut.ColorLut;
+import com.example.pixelcraftgui.model.lut.MatrixLut;
+import com.example.pixelcraftgui.model.simd.Simd;
+import com.example.pixelcraftgui.model.simd.VectorKernels;
 
 /**
  * Grayscale converter implementation using the original GrayScale.java logic.
  * Converts the specified image to grayscale by averaging the RGB values of each pixel
  * and using that average as the new RGB values for the corresponding pixel in the output image.
  */
-public class GrayscaleConverter implements ImageConverter {
+public class GrayscaleConverter implements PointConverter {
+
+    /*
+     * ceil(2^16 / 3): (AVERAGE * (r + g + b)) >> 16 equals (r + g + b) / 3 exactly
+     * for every sum up to 3 * 255, so the matrix reproduces the integer average.
+     */
+    private static final int AVERAGE = 21846;
+
+    private static final MatrixLut LUT = MatrixLut.ofFixed(new int[]{
+            AVERAGE, AVERAGE, AVERAGE,
+            AVERAGE, AVERAGE, AVERAGE,
+            AVERAGE, AVERAGE, AVERAGE
+    }, ChannelLut.identity());
+
+    @Override
+    public int convertPixel(int pixel, int x, int y) {
+        // Convert to grayscale by averaging RGB values
+        int avg = (ARGB.red(pixel) + ARGB.green(pixel) + ARGB.blue(pixel)) / 3;
+        return ARGB.pack(ARGB.alpha(pixel), avg, avg, avg);
+    }
 
     @Override
-    public Image convertImage(Image inputImage) {
-        int width = (int) inputImage.getWidth();
-        int height = (int) inputImage.getHeight();
-        WritableImage outputImage = new WritableImage(width, height);
-        PixelReader reader = inputImage.getPixelReader();
-        PixelWriter writer = outputImage.getPixelWriter();
-
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb = reader.getArgb(x, y);
-                ARGB argb = new ARGB(rgb);
-                
-                // Convert to grayscale by averaging RGB values
-                int avg = (argb.red + argb.green + argb.blue) / 3;
-                ARGB gray = new ARGB(avg, avg, avg, avg);
-                writer.setArgb(x, y, gray.toInt());
-            }
+    public void convertRun(int[] src, int[] dst, int offset, int length, int x, int y) {
+        int done = Simd.isEnabled() ? VectorKernels.grayscale(src, dst, offset, length, AVERAGE) : 0;
+        for (int i = done; i < length; i++) {
+            dst[offset + i] = convertPixel(src[offset + i], x + i, y);
         }
-        return outputImage;
+    }
+
+    // Only used when a pipeline collapses this with table-based effects
+    @Override
+    public ColorLut toLut() {
+        return LUT;
     }
 
     @Override
     public String getName() {
         return "Grayscale";
     }
-} 
\ No newline at end of file
+}
@@ -1,49 +1,50 @@
 package com.example.pixelcraftgui.model.converters;
 
 import com.example.pixelcraftgui.helper.ARGB;
-import com.example.pixelcraftgui.model.ImageConverter;
-import javafx.scene.image.Image;
-import javafx.scene.image.PixelReader;
-import javafx.scene.image.PixelWriter;
-import javafx.scene.image.WritableImage;
+import com.example.pixelcraftgui.model.PointConverter;
+import com.example.pixelcraftgui.model.lut.ChannelLut;
+import com.example.pixelcraftgui.model.lut.ColorLut;
+import com.example.pixelcraftgui.model.simd.Simd;
+import com.example.pixelcraftgui.model.simd.VectorKernels;
 
 /**
  * Invert converter implementation using the original Invert.java logic.
  * Inverts the color of the specified image by subtracting each of the RGB values
  * from 255 and writing the result to the corresponding pixel in the output image.
  */
-public class InvertConverter implements ImageConverter {
+public class InvertConverter implements PointConverter {
+
+    private static final ChannelLut LUT = ChannelLut.of(_ -> 255, value -> 255 - value);
 
     @Override
-    public Image convertImage(Image inputImage) {
-        int width = (int) inputImage.getWidth();
-        int height = (int) inputImage.getHeight();
-        WritableImage outputImage = new WritableImage(width, height);
-        PixelReader reader = inputImage.getPixelReader();
-        PixelWriter writer = outputImage.getPixelWriter();
+    public int convertPixel(int pixel, int x, int y) {
+        /*
+         * Invert each color component by subtracting from 255 (max 8-bit value)
+         * - 255 is maximum value for RGB color channels
+         * - Subtraction inverts the color (255 - current value)
+         */
+        int newR = 255 - ARGB.red(pixel);
+        int newG = 255 - ARGB.green(pixel);
+        int newB = 255 - ARGB.blue(pixel);
+        return ARGB.pack(255, newR, newG, newB);
+    }
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb = reader.getArgb(x, y);
-                ARGB argb = new ARGB(rgb);
-                
-                /*
-                 * Invert each color component by subtracting from 255 (max 8-bit value)
-                 * - 255 is maximum value for RGB color channels
-                 * - Subtraction inverts the color (255 - current value)
-                 */
-                int newR = 255 - argb.red;
-                int newG = 255 - argb.green;
-                int newB = 255 - argb.blue;
-                ARGB inverted = new ARGB(newR, newG, newB, 255);
-                writer.setArgb(x, y, inverted.toInt());
-            }
+    @Override
+    public void convertRun(int[] src, int[] dst, int offset, int length, int x, int y) {
+        int done = Simd.isEnabled() ? VectorKernels.invert(src, dst, offset, length) : 0;
+        for (int i = done; i < length; i++) {
+            dst[offset + i] = convertPixel(src[offset + i], x + i, y);
         }
-        return outputImage;
+    }
+
+    // Only used when a pipeline collapses this with table-based effects
+    @Override
+    public ColorLut toLut() {
+        return LUT;
     }
 
     @Override
     public String getName() {
         return "Invert";
     }
-} 
\ No newline at end of file
+}
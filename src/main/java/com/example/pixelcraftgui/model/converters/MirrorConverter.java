@@ -1,10 +1,8 @@
 package com.example.pixelcraftgui.model.converters;
 
+import com.example.pixelcraftgui.model.Footprint;
 import com.example.pixelcraftgui.model.ImageConverter;
-import javafx.scene.image.Image;
-import javafx.scene.image.PixelReader;
-import javafx.scene.image.PixelWriter;
-import javafx.scene.image.WritableImage;
+import com.example.pixelcraftgui.model.ImageRaster;
 
 /**
  * Mirror converter implementation using the original Mirror.java logic.
@@ -13,14 +11,13 @@ import javafx.scene.image.WritableImage;
 public class MirrorConverter implements ImageConverter {
 
     @Override
-    public Image convertImage(Image inputImage) {
-        int width = (int) inputImage.getWidth();
-        int height = (int) inputImage.getHeight();
-        WritableImage outputImage = new WritableImage(width, height);
-        PixelReader reader = inputImage.getPixelReader();
-        PixelWriter writer = outputImage.getPixelWriter();
+    public void convertRows(ImageRaster input, ImageRaster output, int startRow, int endRow) {
+        int width = input.getWidth();
+        int[] src = input.getPixels();
+        int[] dst = output.getPixels();
 
-        for (int y = 0; y < height; y++) {
+        for (int y = startRow; y < endRow; y++) {
+            int row = y * width;
             for (int x = 0; x < width; x++) {
                 /*
                  * Mirror pixel horizontally by calculating: (width - 1 - x)
@@ -28,15 +25,18 @@ public class MirrorConverter implements ImageConverter {
                  * - Subtract 1 to convert to 0-based index
                  * - Subtract x to mirror position
                  */
-                int pixel = reader.getArgb(x, y);
-                writer.setArgb(width - x - 1, y, pixel);  // Set mirrored position
+                dst[row + width - x - 1] = src[row + x];  // Set mirrored position
             }
         }
-        return outputImage;
+    }
+
+    @Override
+    public Footprint getFootprint() {
+        return Footprint.geometric();
     }
 
     @Override
     public String getName() {
         return "Mirror";
     }
-} 
\ No newline at end of file
+}
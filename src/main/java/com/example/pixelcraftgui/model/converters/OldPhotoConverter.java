@@ -1,70 +1,133 @@
 package com.example.pixelcraftgui.model.converters;
 
 import com.example.pixelcraftgui.helper.ARGB;
-import com.example.pixelcraftgui.model.ImageConverter;
-import javafx.scene.image.Image;
-import javafx.scene.image.PixelReader;
-import javafx.scene.image.PixelWriter;
-import javafx.scene.image.WritableImage;
-import java.util.Random;
+import com.example.pixelcraftgui.model.ConverterFactory;
+import com.example.pixelcraftgui.model.PointConverter;
+import com.example.pixelcraftgui.model.lut.ChannelLut;
+import com.example.pixelcraftgui.model.lut.MatrixLut;
+import com.example.pixelcraftgui.model.simd.Simd;
+import com.example.pixelcraftgui.model.simd.VectorKernels;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Old Photo converter implementation using the original OldPhoto.java logic.
  * Converts the specified image to an "old photo" style by applying a sepia tone and adding a small amount of random noise.
  * The noise is intended to simulate the grain of old film. The resulting image is written to the specified output file.
  */
-public class OldPhotoConverter implements ImageConverter {
+public class OldPhotoConverter implements PointConverter {
+
+    // Sepia Tone, compiled once into a fixed-point color matrix (alpha becomes opaque)
+    private static final MatrixLut SEPIA = MatrixLut.of(new double[][]{
+            {0.393, 0.769, 0.189},
+            {0.349, 0.686, 0.168},
+            {0.272, 0.534, 0.131}
+    }, ChannelLut.of(_ -> 255, value -> value));
+    private static final int[] SEPIA_WEIGHTS = SEPIA.getWeights();
+
+    /** 0.9 in 16.16 fixed point, rounded up so {@code (v * DARKEN) >>> 16 == (int) (v * 0.9)} for 0-255. */
+    private static final int DARKEN = 58983;
+
+    /** Pixels whose grain is computed ahead of each SIMD call. */
+    private static final int CHUNK = 256;
+
+    /**
+     * Grain of the current chunk. Runs are converted from pool threads, by bands, pipelines
+     * and streamed strips alike, so each thread reuses its own buffer rather than allocating
+     * one per run.
+     */
+    private static final ThreadLocal<int[]> GRAIN = ThreadLocal.withInitial(() -> new int[CHUNK]);
+
+    /*
+     * The noise is derived from the pixel position and a per-converter seed rather than
+     * drawn from a sequential Random, so every pixel gets the same noise no matter
+     * which band or thread computes it. The same seed always gives the same grain.
+     */
+    private final long seed;
+
+    /**
+     * Creates a converter with a random grain.
+     */
+    public OldPhotoConverter() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Creates a converter whose grain is fully determined by the seed.
+     * @param seed the noise seed
+     */
+    public OldPhotoConverter(long seed) {
+        this.seed = seed;
+    }
 
     @Override
-    public Image convertImage(Image inputImage) {
-        int width = (int) inputImage.getWidth();
-        int height = (int) inputImage.getHeight();
-        WritableImage outputImage = new WritableImage(width, height);
-        PixelReader reader = inputImage.getPixelReader();
-        PixelWriter writer = outputImage.getPixelWriter();
-
-        Random random = new Random();
-
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb = reader.getArgb(x, y);
-                ARGB argb = new ARGB(rgb);
-
-                // Sepia Tone
-                int sepiaR = (int)(0.393 * argb.red + 0.769 * argb.green + 0.189 * argb.blue);
-                int sepiaG = (int)(0.349 * argb.red + 0.686 * argb.green + 0.168 * argb.blue);
-                int sepiaB = (int)(0.272 * argb.red + 0.534 * argb.green + 0.131 * argb.blue);
-
-                sepiaR = clamp(sepiaR);
-                sepiaG = clamp(sepiaG);
-                sepiaB = clamp(sepiaB);
-
-                // Noise
-                int noise = (random.nextInt(32) - 16); // +/- 16
-                sepiaR = clamp(sepiaR + noise);
-                sepiaG = clamp(sepiaG + noise);
-                sepiaB = clamp(sepiaB + noise);
-
-                // Slight Darkening (Optional)
-                sepiaR = (int)(sepiaR * 0.9);
-                sepiaG = (int)(sepiaG * 0.9);
-                sepiaB = (int)(sepiaB * 0.9);
-                sepiaR = clamp(sepiaR);
-                sepiaG = clamp(sepiaG);
-                sepiaB = clamp(sepiaB);
-
-                writer.setArgb(x, y, new ARGB(sepiaR, sepiaG, sepiaB, 255).toInt());
+    public int convertPixel(int pixel, int x, int y) {
+        // Sepia Tone
+        int sepia = SEPIA.apply(pixel);
+        int sepiaR = ARGB.red(sepia);
+        int sepiaG = ARGB.green(sepia);
+        int sepiaB = ARGB.blue(sepia);
+
+        // Noise
+        int noise = noise(x, y); // +/- 16
+        sepiaR = ARGB.clamp(sepiaR + noise);
+        sepiaG = ARGB.clamp(sepiaG + noise);
+        sepiaB = ARGB.clamp(sepiaB + noise);
+
+        // Slight Darkening (Optional)
+        sepiaR = (int)(sepiaR * 0.9);
+        sepiaG = (int)(sepiaG * 0.9);
+        sepiaB = (int)(sepiaB * 0.9);
+
+        return ARGB.packClamped(255, sepiaR, sepiaG, sepiaB);
+    }
+
+    @Override
+    public void convertRun(int[] src, int[] dst, int offset, int length, int x, int y) {
+        int done = 0;
+        if (Simd.isEnabled()) {
+            // The grain hash stays scalar; the color math runs on whole vectors
+            int[] grain = GRAIN.get();
+            while (done < length) {
+                int chunk = Math.min(length - done, CHUNK);
+                for (int i = 0; i < chunk; i++) {
+                    grain[i] = noise(x + done + i, y);
+                }
+                int converted = VectorKernels.matrixWithGrain(src, dst, offset + done, chunk, SEPIA_WEIGHTS, grain, DARKEN);
+                done += converted;
+                if (converted < chunk) {
+                    break;
+                }
             }
         }
-        return outputImage;
+        for (int i = done; i < length; i++) {
+            dst[offset + i] = convertPixel(src[offset + i], x + i, y);
+        }
     }
 
-    private int clamp(int value) {
-        return Math.max(0, Math.min(255, value));
+    /**
+     * Gets the film grain for a pixel, uniformly distributed in [-16, 16).
+     */
+    private int noise(int x, int y) {
+        // SplitMix64 finalizer over the seeded pixel position
+        long z = seed + (((long) y << 32) | (x & 0xffffffffL)) * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        z = z ^ (z >>> 31);
+        return (int) (z >>> 59) - 16;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public Map<String, String> getParameters() {
+        return Map.of(ConverterFactory.PARAM_SEED, Long.toString(seed));
     }
 
     @Override
     public String getName() {
         return "Old Photo";
     }
-} 
\ No newline at end of file
+}
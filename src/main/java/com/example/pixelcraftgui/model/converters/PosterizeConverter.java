@@ -1,52 +1,80 @@
 package com.example.pixelcraftgui.model.converters;
 
-import com.example.pixelcraftgui.helper.ARGB;
-import com.example.pixelcraftgui.model.ImageConverter;
-import javafx.scene.image.Image;
-import javafx.scene.image.PixelReader;
-import javafx.scene.image.PixelWriter;
-import javafx.scene.image.WritableImage;
+import com.example.pixelcraftgui.model.ConverterFactory;
+import com.example.pixelcraftgui.model.lut.ChannelLut;
+import com.example.pixelcraftgui.model.lut.LutConverter;
+import com.example.pixelcraftgui.model.simd.Simd;
+import com.example.pixelcraftgui.model.simd.VectorKernels;
+import java.util.Map;
 
 /**
  * Posterize converter implementation using the original Posterize.java logic.
  * Converts the specified image to a posterized image with the specified number of color levels.
  * The posterization is done by dividing the color range into the specified number of levels and
  * rounding each color value to the closest level.
+ * The level of every channel value is computed once into a lookup table, so converting
+ * a pixel costs four table loads instead of three integer divisions. With SIMD enabled
+ * the divisions are instead done as fixed-point multiplications on whole vectors of pixels.
  */
-public class PosterizeConverter implements ImageConverter {
+public class PosterizeConverter extends LutConverter {
 
-    @Override
-    public Image convertImage(Image inputImage) {
-        int width = (int) inputImage.getWidth();
-        int height = (int) inputImage.getHeight();
-        WritableImage outputImage = new WritableImage(width, height);
-        PixelReader reader = inputImage.getPixelReader();
-        PixelWriter writer = outputImage.getPixelWriter();
+    public static final int DEFAULT_LEVELS = 4;
 
-        int numLevels = 4; // Number of color levels (adjust as needed)
+    private final int numLevels;
+    private final int interval;
+    // (v * multiplier) >>> 16 == v / interval for every channel value, or 0 if no such multiplier exists
+    private final int multiplier;
 
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb = reader.getArgb(x, y);
-                ARGB argb = new ARGB(rgb);
+    public PosterizeConverter() {
+        this(DEFAULT_LEVELS);
+    }
 
-                int posterizedRed = posterizeColor(argb.red, numLevels);
-                int posterizedGreen = posterizeColor(argb.green, numLevels);
-                int posterizedBlue = posterizeColor(argb.blue, numLevels);
+    /**
+     * @param numLevels the number of color levels per channel (2-256)
+     */
+    public PosterizeConverter(int numLevels) {
+        super("Posterize", ChannelLut.of(_ -> 255, value -> posterizeColor(value, checkLevels(numLevels))));
+        this.numLevels = numLevels;
+        this.interval = 256 / numLevels;
+        this.multiplier = divisionMultiplier(interval);
+    }
 
-                writer.setArgb(x, y, new ARGB(posterizedRed, posterizedGreen, posterizedBlue, 255).toInt());
+    private static int divisionMultiplier(int divisor) {
+        int multiplier = (1 << 16) / divisor + 1;
+        for (int v = 0; v < 256; v++) {
+            if ((v * multiplier) >>> 16 != v / divisor) {
+                return 0;
             }
         }
-        return outputImage;
+        return multiplier;
+    }
+
+    @Override
+    public void convertRun(int[] src, int[] dst, int offset, int length, int x, int y) {
+        int done = Simd.isEnabled() && multiplier != 0
+                ? VectorKernels.posterize(src, dst, offset, length, multiplier, interval)
+                : 0;
+        super.convertRun(src, dst, offset + done, length - done, x + done, y);
     }
 
-    private int posterizeColor(int colorValue, int numLevels) {
+    private static int checkLevels(int numLevels) {
+        if (numLevels < 2 || numLevels > 256) {
+            throw new IllegalArgumentException("Number of levels must be between 2 and 256: " + numLevels);
+        }
+        return numLevels;
+    }
+
+    private static int posterizeColor(int colorValue, int numLevels) {
         int interval = 256 / numLevels;
         return (colorValue / interval) * interval;
     }
 
+    public int getNumLevels() {
+        return numLevels;
+    }
+
     @Override
-    public String getName() {
-        return "Posterize";
+    public Map<String, String> getParameters() {
+        return Map.of(ConverterFactory.PARAM_LEVELS, Integer.toString(numLevels));
     }
-} 
\ No newline at end of file
+}
@@ -1,10 +1,8 @@
 package com.example.pixelcraftgui.model.converters;
 
+import com.example.pixelcraftgui.model.Footprint;
 import com.example.pixelcraftgui.model.ImageConverter;
-import javafx.scene.image.Image;
-import javafx.scene.image.PixelReader;
-import javafx.scene.image.PixelWriter;
-import javafx.scene.image.WritableImage;
+import com.example.pixelcraftgui.model.ImageRaster;
 
 /**
  * Rotate converter implementation using the original Rotate logic.
@@ -13,29 +11,38 @@ import javafx.scene.image.WritableImage;
 public class RotateConverter implements ImageConverter {
 
     @Override
-    public Image convertImage(Image inputImage) {
-        int originalWidth = (int) inputImage.getWidth();
-        int originalHeight = (int) inputImage.getHeight();
-        
+    public ImageRaster createOutput(ImageRaster input) {
         // For 90-degree rotation, swap width and height
-        int newWidth = originalHeight;
-        int newHeight = originalWidth;
-        
-        WritableImage rotatedImage = new WritableImage(newWidth, newHeight);
-        PixelReader reader = inputImage.getPixelReader();
-        PixelWriter writer = rotatedImage.getPixelWriter();
+        return new ImageRaster(input.getHeight(), input.getWidth());
+    }
+
+    @Override
+    public void convertRows(ImageRaster input, ImageRaster output, int startRow, int endRow) {
+        int originalWidth = input.getWidth();
+        int newWidth = output.getWidth();
+        int[] src = input.getPixels();
+        int[] dst = output.getPixels();
 
-        for (int y = 0; y < originalHeight; y++) {
-            for (int x = 0; x < originalWidth; x++) {
-                int pixel = reader.getArgb(x, y);
-                writer.setArgb(y, originalWidth - 1 - x, pixel);
+        /*
+         * Input pixel (x, y) lands on output pixel (y, originalWidth - 1 - x),
+         * so output row r is read from input column originalWidth - 1 - r.
+         */
+        for (int r = startRow; r < endRow; r++) {
+            int x = originalWidth - 1 - r;
+            int row = r * newWidth;
+            for (int y = 0; y < newWidth; y++) {
+                dst[row + y] = src[y * originalWidth + x];
             }
         }
-        return rotatedImage;
+    }
+
+    @Override
+    public Footprint getFootprint() {
+        return Footprint.geometric();
     }
 
     @Override
     public String getName() {
         return "Rotate 90°";
     }
-} 
\ No newline at end of file
+}
@@ -1,11 +1,8 @@
 package com.example.pixelcraftgui.model.converters;
 
-import com.example.pixelcraftgui.helper.ARGB;
-import com.example.pixelcraftgui.model.ImageConverter;
-import javafx.scene.image.Image;
-import javafx.scene.image.PixelReader;
-import javafx.scene.image.PixelWriter;
-import javafx.scene.image.WritableImage;
+import com.example.pixelcraftgui.model.convolution.BorderMode;
+import com.example.pixelcraftgui.model.convolution.ConvolutionConverter;
+import com.example.pixelcraftgui.model.convolution.Kernel;
 
 /**
  * Sharpen converter implementation using the original Sharpen.java logic.
@@ -15,49 +12,25 @@ import javafx.scene.image.WritableImage;
  * 0 -1  0
  * -1  5 -1
  *  0 -1  0
+ *
+ * Pixels outside the image are read according to the border mode, so the edge pixels
+ * are sharpened like the rest. The alpha channel is kept.
  */
-public class SharpenConverter implements ImageConverter {
-    
-    private static final int[][] kernel = {
-            {0, -1, 0},
-            {-1, 5,-1},
-            {0, -1, 0}
-    };
-
-    @Override
-    public Image convertImage(Image inputImage) {
-        int width = (int) inputImage.getWidth();
-        int height = (int) inputImage.getHeight();
-        WritableImage outputImage = new WritableImage(width, height);
-        PixelReader reader = inputImage.getPixelReader();
-        PixelWriter writer = outputImage.getPixelWriter();
-
-        for (int y = 1; y < height - 1; y++) {
-            for (int x = 1; x < width - 1; x++) {
-                int sumR = 0, sumG = 0, sumB = 0;
-
-                for (int ky = -1; ky <= 1; ky++) {
-                    for (int kx = -1; kx <= 1; kx++) {
-                        int pixel = reader.getArgb(x + kx, y + ky);
-                        ARGB argb = new ARGB(pixel);
-                        sumR += argb.red * kernel[ky + 1][kx + 1];
-                        sumG += argb.green * kernel[ky + 1][kx + 1];
-                        sumB += argb.blue * kernel[ky + 1][kx + 1];
-                    }
-                }
+public class SharpenConverter extends ConvolutionConverter {
 
-                sumR = Math.min(255, Math.max(0, sumR));
-                sumG = Math.min(255, Math.max(0, sumG));
-                sumB = Math.min(255, Math.max(0, sumB));
+    private static final Kernel KERNEL = Kernel.of(
+            new double[]{0, -1, 0},
+            new double[]{-1, 5, -1},
+            new double[]{0, -1, 0});
 
-                writer.setArgb(x, y, new ARGB(sumR, sumG, sumB, 255).toInt());
-            }
-        }
-        return outputImage;
+    public SharpenConverter() {
+        this(BorderMode.CLAMP);
     }
 
-    @Override
-    public String getName() {
-        return "Sharpen";
+    /**
+     * @param border how pixels outside the image are read
+     */
+    public SharpenConverter(BorderMode border) {
+        super("Sharpen", KERNEL, border, false);
     }
-} 
\ No newline at end of file
+}
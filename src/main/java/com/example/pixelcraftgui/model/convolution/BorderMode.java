@@ -0,0 +1,41 @@
+package com.example.pixelcraftgui.model.convolution;
+
+/**
+ * How a convolution reads pixels that fall outside the image.
+ */
+public enum BorderMode {
+    /** Repeats the edge pixel: {@code aaa|abcd|ddd}. */
+    CLAMP {
+        @Override
+        public int resolve(int index, int length) {
+            return index < 0 ? 0 : (index >= length ? length - 1 : index);
+        }
+    },
+    /** Reflects the image about its edge pixel, without repeating it: {@code dcb|abcd|cba}. */
+    MIRROR {
+        @Override
+        public int resolve(int index, int length) {
+            if (length == 1) {
+                return 0;
+            }
+            int period = 2 * length - 2;
+            int i = Math.floorMod(index, period);
+            return i < length ? i : period - i;
+        }
+    },
+    /** Continues from the opposite edge, as if the image were tiled: {@code bcd|abcd|abc}. */
+    WRAP {
+        @Override
+        public int resolve(int index, int length) {
+            return Math.floorMod(index, length);
+        }
+    };
+
+    /**
+     * Maps a row or column index to one inside the image.
+     * @param index the index, possibly outside [0, length)
+     * @param length the number of rows or columns of the image
+     * @return the index of the pixel to read
+     */
+    public abstract int resolve(int index, int length);
+}
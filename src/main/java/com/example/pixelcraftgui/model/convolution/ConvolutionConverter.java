@@ -0,0 +1,452 @@
+package com.example.pixelcraftgui.model.convolution;
+
+import com.example.pixelcraftgui.model.ConverterFactory;
+import com.example.pixelcraftgui.model.Footprint;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import com.example.pixelcraftgui.model.simd.Simd;
+import com.example.pixelcraftgui.model.simd.VectorKernels;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Convolves an image with a kernel of any size.
+ *
+ * Rows are unpacked once into one int array per channel, padded on both sides according
+ * to the border mode, and weights are converted to fixed point, so the inner loops are
+ * multiply-adds over primitive arrays that the JIT vectorizes. Each weight is applied to
+ * a whole row at a time, and zero weights are skipped.
+ *
+ * Kernels that are the product of a column and a row vector (box, Gaussian, Sobel, ...)
+ * are applied as a horizontal pass whose results are kept in a ring of rows, followed by
+ * a vertical pass, which costs {@code width + height} instead of {@code width * height}
+ * multiply-adds per pixel. When the row vector has equal weights the horizontal pass uses
+ * a running sum, whose cost does not depend on the kernel size at all. When the column
+ * vector has equal weights, no ring is kept: like {@link
+ * com.example.pixelcraftgui.model.blur.VerticalBoxBlur}, the column sums of the source rows
+ * are slid down one row at a time and the horizontal pass runs on the sums, so a band needs
+ * a few rows of memory whatever the kernel height. Both passes run within the same band,
+ * so intermediate values keep their full precision and sign.
+ *
+ * With SIMD enabled (see {@link Simd}) the channel split, the int multiply-adds and the
+ * final packing run on whole vectors.
+ */
+public class ConvolutionConverter implements ImageConverter {
+
+    /** Fraction bits of single-pass weights and horizontal results. */
+    private static final int SHIFT = 12;
+    /** Fraction bits of vertical weights; vertical sums have SHIFT + WIDE_SHIFT fraction bits. */
+    private static final int WIDE_SHIFT = 24;
+
+    private final String name;
+    private final Kernel kernel;
+    private final BorderMode border;
+    private final int channels;
+
+    // Single-pass kernels
+    private final int[] weights;
+    private final int bias;
+
+    // Separable kernels
+    private final boolean separable;
+    private final int[] rowWeights;
+    private final long uniformRowWeight;
+    private final long[] columnWeights;
+    private final long uniformColumnWeight;
+    private final boolean slidingColumns;
+    private final long wideBias;
+
+    /**
+     * @param name the name of the effect
+     * @param kernel the weights
+     * @param border how pixels outside the image are read
+     * @param filterAlpha true to convolve the alpha channel too, false to keep the alpha of each source pixel
+     */
+    public ConvolutionConverter(String name, Kernel kernel, BorderMode border, boolean filterAlpha) {
+        this.name = name;
+        this.kernel = kernel;
+        this.border = border;
+        this.channels = filterAlpha ? 4 : 3;
+
+        double[][] vectors = kernel.separate();
+        this.separable = vectors != null;
+        if (separable) {
+            double[] column = vectors[0];
+            double[] row = vectors[1];
+            this.rowWeights = toInts(quantize(row, SHIFT));
+            this.uniformRowWeight = isUniform(row) ? Math.round(row[0] * (1L << WIDE_SHIFT)) : 0;
+            this.columnWeights = quantize(column, WIDE_SHIFT);
+            this.uniformColumnWeight = isUniform(column) ? Math.round(column[0] * (1L << WIDE_SHIFT)) : 0;
+            this.slidingColumns = uniformColumnWeight != 0 && fitsColumnSums(rowWeights, column.length);
+            this.wideBias = Math.round(kernel.getBias() * (1L << (SHIFT + WIDE_SHIFT))) + (1L << (SHIFT + WIDE_SHIFT - 1));
+            this.weights = null;
+            this.bias = 0;
+        } else {
+            this.weights = toInts(quantize(kernel.getWeights(), SHIFT));
+            this.bias = (int) Math.round(kernel.getBias() * (1 << SHIFT)) + (1 << (SHIFT - 1));
+            this.rowWeights = null;
+            this.uniformRowWeight = 0;
+            this.columnWeights = null;
+            this.uniformColumnWeight = 0;
+            this.slidingColumns = false;
+            this.wideBias = 0;
+        }
+    }
+
+    /**
+     * Converts weights to fixed point. If the weights sum to a whole number (1 for blurs,
+     * 0 for edge detection), the rounding error is folded into the largest weight so the
+     * fixed-point weights sum to exactly the same value and flat areas are preserved.
+     */
+    private static long[] quantize(double[] weights, int shift) {
+        long[] fixed = new long[weights.length];
+        long fixedSum = 0;
+        double sum = 0;
+        int largest = 0;
+        for (int i = 0; i < weights.length; i++) {
+            fixed[i] = Math.round(weights[i] * (1L << shift));
+            fixedSum += fixed[i];
+            sum += weights[i];
+            if (Math.abs(weights[i]) > Math.abs(weights[largest])) {
+                largest = i;
+            }
+        }
+        if (Math.abs(sum - Math.rint(sum)) < 1e-9) {
+            fixed[largest] += Math.round(Math.rint(sum) * (1L << shift)) - fixedSum;
+        }
+        return fixed;
+    }
+
+    /**
+     * Narrows weights that are accumulated in int, checking that no sum can overflow.
+     */
+    private static int[] toInts(long[] fixed) {
+        long total = 0;
+        int[] result = new int[fixed.length];
+        for (int i = 0; i < fixed.length; i++) {
+            total += Math.abs(fixed[i]);
+            result[i] = (int) fixed[i];
+        }
+        if (total * 255 > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Kernel weights are too large");
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the horizontal pass over column sums of {@code kernelHeight} rows cannot
+     * overflow int, either in its running sum or in its multiply-adds.
+     */
+    private static boolean fitsColumnSums(int[] rowWeights, int kernelHeight) {
+        long gain = 0;
+        for (int weight : rowWeights) {
+            gain += Math.abs(weight);
+        }
+        long columnSum = 255L * kernelHeight;
+        return columnSum * rowWeights.length <= Integer.MAX_VALUE / 2 && columnSum * gain <= Integer.MAX_VALUE / 2;
+    }
+
+    private static boolean isUniform(double[] vector) {
+        if (vector.length < 2) {
+            return false;
+        }
+        for (double weight : vector) {
+            if (weight != vector[0]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Kernel getKernel() {
+        return kernel;
+    }
+
+    public BorderMode getBorderMode() {
+        return border;
+    }
+
+    /**
+     * @return true if the kernel runs as a horizontal and a vertical pass
+     */
+    public boolean isSeparable() {
+        return separable;
+    }
+
+    @Override
+    public void convertRows(ImageRaster input, ImageRaster output, int startRow, int endRow) {
+        int width = input.getWidth();
+        int kernelWidth = kernel.getWidth();
+        // Source column of each padded position
+        int[] columns = new int[width + kernelWidth - 1];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = border.resolve(i - kernelWidth / 2, width);
+        }
+        if (separable) {
+            convertSeparable(input, output, startRow, endRow, columns);
+        } else {
+            convertDense(input, output, startRow, endRow, columns);
+        }
+    }
+
+    private void convertDense(ImageRaster input, ImageRaster output, int startRow, int endRow, int[] columns) {
+        int width = input.getWidth();
+        int height = input.getHeight();
+        int kernelWidth = kernel.getWidth();
+        int kernelHeight = kernel.getHeight();
+        int[] src = input.getPixels();
+
+        // The unpacked source rows under the kernel, keyed by row index modulo the kernel height
+        int[][][] rows = new int[kernelHeight][channels][columns.length];
+        int[] loaded = new int[kernelHeight];
+        Arrays.fill(loaded, Integer.MIN_VALUE);
+        int[][] sums = new int[channels][width];
+
+        for (int y = startRow; y < endRow; y++) {
+            for (int[] sum : sums) {
+                Arrays.fill(sum, bias);
+            }
+            for (int ky = 0; ky < kernelHeight; ky++) {
+                int v = y + ky - kernelHeight / 2;
+                int slot = Math.floorMod(v, kernelHeight);
+                if (loaded[slot] != v) {
+                    unpack(src, border.resolve(v, height) * width, columns, rows[slot]);
+                    loaded[slot] = v;
+                }
+                for (int kx = 0; kx < kernelWidth; kx++) {
+                    int weight = weights[ky * kernelWidth + kx];
+                    if (weight != 0) {
+                        for (int c = 0; c < channels; c++) {
+                            multiplyAdd(sums[c], rows[slot][c], kx, weight, width);
+                        }
+                    }
+                }
+            }
+            int row = y * width;
+            int[] dst = output.getPixels();
+            int done = Simd.isEnabled()
+                    ? VectorKernels.pack(sums[0], sums[1], sums[2], channels == 4 ? sums[3] : null, SHIFT, src, dst, row, width)
+                    : 0;
+            for (int x = done; x < width; x++) {
+                int alpha = channels == 4 ? clamp(sums[3][x] >> SHIFT) : src[row + x] >>> 24;
+                dst[row + x] = alpha << 24
+                        | clamp(sums[0][x] >> SHIFT) << 16
+                        | clamp(sums[1][x] >> SHIFT) << 8
+                        | clamp(sums[2][x] >> SHIFT);
+            }
+        }
+    }
+
+    private static void multiplyAdd(int[] sum, int[] values, int offset, int weight, int width) {
+        int done = Simd.isEnabled() ? VectorKernels.multiplyAdd(sum, values, offset, weight, width) : 0;
+        for (int x = done; x < width; x++) {
+            sum[x] += weight * values[x + offset];
+        }
+    }
+
+    private void convertSeparable(ImageRaster input, ImageRaster output, int startRow, int endRow, int[] columns) {
+        if (slidingColumns) {
+            convertSlidingColumns(input, output, startRow, endRow, columns);
+            return;
+        }
+        int width = input.getWidth();
+        int kernelHeight = kernel.getHeight();
+        int[] src = input.getPixels();
+        int[] dst = output.getPixels();
+
+        // Horizontal results of the rows under the kernel, keyed by row index modulo the kernel height
+        int[][][] ring = new int[kernelHeight][channels][width];
+        int[] loaded = new int[kernelHeight];
+        Arrays.fill(loaded, Integer.MIN_VALUE);
+        int[][] line = new int[channels][columns.length];
+        long[][] sums = new long[channels][width];
+
+        for (int y = startRow; y < endRow; y++) {
+            int top = y - kernelHeight / 2;
+            for (long[] sum : sums) {
+                Arrays.fill(sum, wideBias);
+            }
+            for (int ky = 0; ky < kernelHeight; ky++) {
+                int v = top + ky;
+                int slot = Math.floorMod(v, kernelHeight);
+                if (loaded[slot] != v) {
+                    unpack(src, border.resolve(v, input.getHeight()) * width, columns, line);
+                    for (int c = 0; c < channels; c++) {
+                        convolveRow(line[c], ring[slot][c], width);
+                    }
+                    loaded[slot] = v;
+                }
+                long weight = columnWeights[ky];
+                if (weight != 0) {
+                    for (int c = 0; c < channels; c++) {
+                        multiplyAdd(sums[c], ring[slot][c], weight, width);
+                    }
+                }
+            }
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                int alpha = channels == 4 ? wideClamp(sums[3][x]) : src[row + x] >>> 24;
+                dst[row + x] = alpha << 24
+                        | wideClamp(sums[0][x]) << 16
+                        | wideClamp(sums[1][x]) << 8
+                        | wideClamp(sums[2][x]);
+            }
+        }
+    }
+
+    /**
+     * Applies a kernel whose column vector has equal weights. The padded channel rows under
+     * the kernel are summed per column, the sums slid down by adding the row entering the
+     * kernel and subtracting the one leaving it, and the row vector applied to the sums.
+     */
+    private void convertSlidingColumns(ImageRaster input, ImageRaster output, int startRow, int endRow, int[] columns) {
+        int width = input.getWidth();
+        int height = input.getHeight();
+        int kernelHeight = kernel.getHeight();
+        int[] src = input.getPixels();
+        int[] dst = output.getPixels();
+
+        int[][] line = new int[channels][columns.length];
+        int[][] columnSums = new int[channels][columns.length];
+        int[][] h = new int[channels][width];
+
+        int top = startRow - kernelHeight / 2;
+        for (int ky = 0; ky < kernelHeight; ky++) {
+            unpack(src, border.resolve(top + ky, height) * width, columns, line);
+            for (int c = 0; c < channels; c++) {
+                addRow(columnSums[c], line[c]);
+            }
+        }
+        long weight = uniformColumnWeight;
+        for (int y = startRow; y < endRow; y++) {
+            if (y > startRow) {
+                top = y - kernelHeight / 2;
+                unpack(src, border.resolve(top - 1, height) * width, columns, line);
+                for (int c = 0; c < channels; c++) {
+                    subtractRow(columnSums[c], line[c]);
+                }
+                unpack(src, border.resolve(top + kernelHeight - 1, height) * width, columns, line);
+                for (int c = 0; c < channels; c++) {
+                    addRow(columnSums[c], line[c]);
+                }
+            }
+            for (int c = 0; c < channels; c++) {
+                convolveRow(columnSums[c], h[c], width);
+            }
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                int alpha = channels == 4 ? wideClamp(h[3][x] * weight + wideBias) : src[row + x] >>> 24;
+                dst[row + x] = alpha << 24
+                        | wideClamp(h[0][x] * weight + wideBias) << 16
+                        | wideClamp(h[1][x] * weight + wideBias) << 8
+                        | wideClamp(h[2][x] * weight + wideBias);
+            }
+        }
+    }
+
+    /**
+     * Applies the row vector to one padded channel row, producing values with SHIFT fraction bits.
+     */
+    private void convolveRow(int[] values, int[] result, int width) {
+        int kernelWidth = rowWeights.length;
+        if (uniformRowWeight != 0) {
+            long half = 1L << (WIDE_SHIFT - SHIFT - 1);
+            int sum = 0;
+            for (int kx = 0; kx < kernelWidth; kx++) {
+                sum += values[kx];
+            }
+            for (int x = 0; x < width; x++) {
+                result[x] = (int) ((sum * uniformRowWeight + half) >> (WIDE_SHIFT - SHIFT));
+                if (x + kernelWidth < values.length) {
+                    sum += values[x + kernelWidth] - values[x];
+                }
+            }
+            return;
+        }
+        Arrays.fill(result, 0);
+        for (int kx = 0; kx < kernelWidth; kx++) {
+            int weight = rowWeights[kx];
+            if (weight != 0) {
+                multiplyAdd(result, values, kx, weight, width);
+            }
+        }
+    }
+
+    private static void multiplyAdd(long[] sum, int[] values, long weight, int width) {
+        for (int x = 0; x < width; x++) {
+            sum[x] += weight * values[x];
+        }
+    }
+
+    private static void addRow(int[] sum, int[] values) {
+        for (int x = 0; x < sum.length; x++) {
+            sum[x] += values[x];
+        }
+    }
+
+    private static void subtractRow(int[] sum, int[] values) {
+        for (int x = 0; x < sum.length; x++) {
+            sum[x] -= values[x];
+        }
+    }
+
+    /**
+     * Splits one source row into channel rows, padded with pixels chosen by the border mode.
+     */
+    private void unpack(int[] src, int rowOffset, int[] columns, int[][] planes) {
+        if (!Simd.isEnabled()) {
+            unpack(src, rowOffset, columns, planes, 0, columns.length);
+            return;
+        }
+        // Between the paddings the row is read in order, so it can be split a vector at a time
+        int left = kernel.getWidth() / 2;
+        int width = columns.length - kernel.getWidth() + 1;
+        int done = VectorKernels.unpack(src, rowOffset, planes[0], planes[1], planes[2],
+                channels == 4 ? planes[3] : null, left, width);
+        unpack(src, rowOffset, columns, planes, 0, left);
+        unpack(src, rowOffset, columns, planes, left + done, columns.length);
+    }
+
+    private void unpack(int[] src, int rowOffset, int[] columns, int[][] planes, int from, int to) {
+        int[] red = planes[0];
+        int[] green = planes[1];
+        int[] blue = planes[2];
+        for (int i = from; i < to; i++) {
+            int pixel = src[rowOffset + columns[i]];
+            red[i] = (pixel >> 16) & 0xff;
+            green[i] = (pixel >> 8) & 0xff;
+            blue[i] = pixel & 0xff;
+        }
+        if (channels == 4) {
+            int[] alpha = planes[3];
+            for (int i = from; i < to; i++) {
+                alpha[i] = src[rowOffset + columns[i]] >>> 24;
+            }
+        }
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : (value > 255 ? 255 : value);
+    }
+
+    private static int wideClamp(long value) {
+        long channel = value >> (SHIFT + WIDE_SHIFT);
+        return channel < 0 ? 0 : (channel > 255 ? 255 : (int) channel);
+    }
+
+    @Override
+    public Footprint getFootprint() {
+        int above = kernel.getHeight() / 2;
+        return Footprint.neighborhood(Math.max(above, kernel.getHeight() - 1 - above));
+    }
+
+    @Override
+    public Map<String, String> getParameters() {
+        return Map.of(ConverterFactory.PARAM_BORDER, border.name());
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
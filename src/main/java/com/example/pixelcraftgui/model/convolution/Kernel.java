@@ -0,0 +1,173 @@
+package com.example.pixelcraftgui.model.convolution;
+
+import java.util.Arrays;
+
+/**
+ * An immutable convolution kernel: a grid of weights centered on the output pixel,
+ * plus a bias added to every channel after weighting.
+ *
+ * The center of a kernel is at column {@code width / 2} and row {@code height / 2}.
+ */
+public final class Kernel {
+
+    /** Relative tolerance when checking that a kernel is the product of two vectors. */
+    private static final double SEPARABLE_TOLERANCE = 1e-9;
+
+    private final int width;
+    private final int height;
+    private final double[] weights;
+    private final double bias;
+
+    /**
+     * @param width the number of columns
+     * @param height the number of rows
+     * @param weights the weights, row by row
+     */
+    public Kernel(int width, int height, double... weights) {
+        this(width, height, weights, 0);
+    }
+
+    private Kernel(int width, int height, double[] weights, double bias) {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("Kernel must be at least 1x1, got " + width + "x" + height);
+        }
+        if (weights.length != width * height) {
+            throw new IllegalArgumentException("Expected " + width * height + " weights, got " + weights.length);
+        }
+        this.width = width;
+        this.height = height;
+        this.weights = weights.clone();
+        this.bias = bias;
+    }
+
+    /**
+     * @param rows the weights, one array per row; all rows must have the same length
+     * @return the kernel
+     */
+    public static Kernel of(double[]... rows) {
+        int width = rows[0].length;
+        double[] weights = new double[width * rows.length];
+        for (int y = 0; y < rows.length; y++) {
+            if (rows[y].length != width) {
+                throw new IllegalArgumentException("Row " + y + " has " + rows[y].length + " weights, expected " + width);
+            }
+            System.arraycopy(rows[y], 0, weights, y * width, width);
+        }
+        return new Kernel(width, rows.length, weights);
+    }
+
+    /**
+     * @param radius the distance from the center to the edge of the square
+     * @return a kernel that averages the square around each pixel
+     */
+    public static Kernel box(int radius) {
+        int size = 2 * radius + 1;
+        double[] weights = new double[size * size];
+        Arrays.fill(weights, 1.0 / (size * size));
+        return new Kernel(size, size, weights);
+    }
+
+    /**
+     * @param sigma the standard deviation, in pixels
+     * @return a normalized Gaussian kernel reaching three standard deviations from the center
+     */
+    public static Kernel gaussian(double sigma) {
+        int radius = (int) Math.ceil(3 * sigma);
+        int size = 2 * radius + 1;
+        double[] line = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            line[i] = Math.exp(-(i - radius) * (i - radius) / (2 * sigma * sigma));
+            sum += line[i];
+        }
+        double[] weights = new double[size * size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                weights[y * size + x] = line[y] * line[x] / (sum * sum);
+            }
+        }
+        return new Kernel(size, size, weights);
+    }
+
+    /**
+     * @param bias the value added to every channel after weighting, such as 128 for emboss
+     * @return a kernel with the same weights and the given bias
+     */
+    public Kernel withBias(double bias) {
+        return new Kernel(width, height, weights, bias);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @param x the column
+     * @param y the row
+     * @return the weight at that position
+     */
+    public double getWeight(int x, int y) {
+        return weights[y * width + x];
+    }
+
+    public double getBias() {
+        return bias;
+    }
+
+    /**
+     * @return the weights, row by row
+     */
+    double[] getWeights() {
+        return weights.clone();
+    }
+
+    /**
+     * Decomposes the kernel into a column vector and a row vector whose product it is,
+     * so it can be applied as a horizontal pass followed by a vertical pass.
+     * The row vector is scaled so its absolute values sum to 1.
+     * @return {column, row}, or null if the kernel is not separable
+     */
+    double[][] separate() {
+        int pivot = 0;
+        double max = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (Math.abs(weights[i]) > max) {
+                max = Math.abs(weights[i]);
+                pivot = i;
+            }
+        }
+        if (max == 0) {
+            return null;
+        }
+        int pivotX = pivot % width;
+        int pivotY = pivot / width;
+        double[] row = new double[width];
+        double[] column = new double[height];
+        double rowScale = 0;
+        for (int x = 0; x < width; x++) {
+            row[x] = weights[pivotY * width + x] / weights[pivot];
+            rowScale += Math.abs(row[x]);
+        }
+        for (int y = 0; y < height; y++) {
+            column[y] = weights[y * width + pivotX];
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (Math.abs(weights[y * width + x] - column[y] * row[x]) > SEPARABLE_TOLERANCE * max) {
+                    return null;
+                }
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            row[x] /= rowScale;
+        }
+        for (int y = 0; y < height; y++) {
+            column[y] *= rowScale;
+        }
+        return new double[][]{column, row};
+    }
+}
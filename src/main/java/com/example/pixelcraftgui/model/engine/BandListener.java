@@ -0,0 +1,19 @@
+package com.example.pixelcraftgui.model.engine;
+
+import com.example.pixelcraftgui.model.ImageRaster;
+
+/**
+ * Receives the bands of a conversion as they complete, so that partial results can be shown.
+ * Calls may arrive concurrently from several worker threads, in any order.
+ */
+@FunctionalInterface
+public interface BandListener {
+
+    /**
+     * Reports a completed band of the final pass.
+     * @param output the output raster; only the rows of completed bands hold final pixels
+     * @param startRow the first row of the band (inclusive)
+     * @param endRow the last row of the band (exclusive)
+     */
+    void bandCompleted(ImageRaster output, int startRow, int endRow);
+}
@@ -0,0 +1,60 @@
+package com.example.pixelcraftgui.model.engine;
+
+import java.util.BitSet;
+
+/**
+ * Hands out the bands of one pass, nearest to the viewport focus first.
+ * Bands that intersect the visible rows are taken top to bottom; after them, the
+ * pending band closest to the visible rows, above or below. The focus is read on
+ * every call, so moving it reorders the bands that have not started yet.
+ */
+final class BandQueue {
+
+    private final int height;
+    private final int bandHeight;
+    private final ViewportFocus focus;
+    private final BitSet pending;
+
+    BandQueue(int height, int bandHeight, ViewportFocus focus) {
+        this.height = height;
+        this.bandHeight = bandHeight;
+        this.focus = focus;
+        int bands = (height + bandHeight - 1) / bandHeight;
+        this.pending = new BitSet(bands);
+        pending.set(0, bands);
+    }
+
+    /**
+     * Takes the next band to compute.
+     * @return the band index, or -1 when all bands have been handed out
+     */
+    synchronized int next() {
+        if (pending.isEmpty()) {
+            return -1;
+        }
+        int[] rows = focus.rows(height);
+        int first = rows[0] / bandHeight;
+        int last = (Math.min(rows[1], height) - 1) / bandHeight;
+
+        int band = pending.nextSetBit(first);
+        if (band < 0 || band > last) {
+            int below = pending.nextSetBit(last + 1);
+            int above = first > 0 ? pending.previousSetBit(first - 1) : -1;
+            if (below < 0 || (above >= 0 && first - above <= below - last)) {
+                band = above;
+            } else {
+                band = below;
+            }
+        }
+        pending.clear(band);
+        return band;
+    }
+
+    int startRow(int band) {
+        return band * bandHeight;
+    }
+
+    int endRow(int band) {
+        return Math.min(height, (band + 1) * bandHeight);
+    }
+}
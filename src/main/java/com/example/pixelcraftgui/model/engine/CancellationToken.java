@@ -0,0 +1,34 @@
+package com.example.pixelcraftgui.model.engine;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Cooperative cancellation flag shared between the caller and a running conversion.
+ * The tile executor checks it before starting each band, so a cancelled job stops
+ * after the bands already in flight finish.
+ */
+public class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    /**
+     * Requests cancellation. Safe to call from any thread, more than once.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Throws if cancellation has been requested.
+     * @throws CancellationException if {@link #cancel()} has been called
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Conversion cancelled");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.pixelcraftgui.model.engine;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event for one converter run by a {@link TileExecutor}. Its duration
+ * is the wall time of the conversion; the event costs nothing unless a recording enables it,
+ * for example with {@code -XX:StartFlightRecording} or {@code jcmd <pid> JFR.start}.
+ */
+@Name("com.example.pixelcraftgui.Conversion")
+@Label("Image Conversion")
+@Category("PixelCraft")
+@Description("A converter applied to a raster by the tile executor")
+@StackTrace(false)
+class ConversionEvent extends Event {
+
+    @Label("Converter")
+    String converter;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Threads")
+    int threads;
+
+    @Label("Bands")
+    @Description("Bands of rows computed, over all passes")
+    int bands;
+
+    @Label("CPU Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long cpuTime;
+
+    @Label("Allocated")
+    @DataAmount(DataAmount.BYTES)
+    long allocated;
+
+    @Label("Megapixels per Second")
+    double megapixelsPerSecond;
+
+    @Label("Completed")
+    @Description("False if the conversion was cancelled or failed")
+    boolean completed;
+}
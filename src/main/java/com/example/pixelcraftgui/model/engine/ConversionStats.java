@@ -0,0 +1,191 @@
+package com.example.pixelcraftgui.model.engine;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Timings of the conversions run by a {@link TileExecutor}, per converter name.
+ *
+ * Each converter keeps its last {@link #WINDOW} completed conversions, from which
+ * {@link #summary} gives the median, 95th percentile and maximum wall time, so the
+ * figures follow the current image size and machine load rather than the whole session.
+ * All methods are thread-safe.
+ */
+public class ConversionStats {
+
+    /** Conversions per converter that the summaries are computed from. */
+    public static final int WINDOW = 128;
+
+    /**
+     * One completed conversion.
+     * @param converter the converter name
+     * @param width the input width
+     * @param height the input height
+     * @param threads the worker threads available to the conversion
+     * @param bands the bands of rows computed, over all passes
+     * @param wallNanos the elapsed time
+     * @param cpuNanos the CPU time of the threads that computed the bands, or 0 if not measured
+     * @param allocatedBytes the bytes allocated for the output and by the bands, or 0 if not measured
+     */
+    public record Measurement(String converter, int width, int height, int threads, int bands,
+                              long wallNanos, long cpuNanos, long allocatedBytes) {
+
+        /**
+         * @return the input megapixels converted per second of wall time
+         */
+        public double megapixelsPerSecond() {
+            return wallNanos == 0 ? 0 : (double) width * height * 1e3 / wallNanos;
+        }
+
+        /**
+         * @return a one-line description, such as "812 ms, 59.1 MP/s, CPU 3.10 s, 192 MB allocated, 4 threads"
+         */
+        public String describe() {
+            StringBuilder text = new StringBuilder(String.format("%.0f ms, %.1f MP/s", wallNanos / 1e6, megapixelsPerSecond()));
+            if (cpuNanos > 0) {
+                text.append(String.format(", CPU %.2f s", cpuNanos / 1e9));
+            }
+            if (allocatedBytes > 0) {
+                text.append(String.format(", %.0f MB allocated", allocatedBytes / 1e6));
+            }
+            return text.append(", ").append(threads).append(threads == 1 ? " thread" : " threads").toString();
+        }
+    }
+
+    /**
+     * Wall times of the recent conversions of one converter.
+     * @param converter the converter name
+     * @param count the conversions recorded since the start, including those outside the window
+     * @param p50Nanos the median wall time in the window
+     * @param p95Nanos the 95th percentile wall time in the window
+     * @param maxNanos the longest wall time in the window
+     * @param megapixelsPerSecond the median throughput in the window
+     */
+    public record Summary(String converter, long count, long p50Nanos, long p95Nanos, long maxNanos,
+                          double megapixelsPerSecond) {
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d runs, p50 %.0f ms, p95 %.0f ms, max %.0f ms, %.1f MP/s", converter, count,
+                    p50Nanos / 1e6, p95Nanos / 1e6, maxNanos / 1e6, megapixelsPerSecond);
+        }
+    }
+
+    /**
+     * The recent wall times and throughputs of a converter, in a ring buffer.
+     */
+    private static final class Window {
+        final long[] wallNanos = new long[WINDOW];
+        final double[] megapixelsPerSecond = new double[WINDOW];
+        long count;
+
+        void add(Measurement measurement) {
+            int slot = (int) (count++ % WINDOW);
+            wallNanos[slot] = measurement.wallNanos();
+            megapixelsPerSecond[slot] = measurement.megapixelsPerSecond();
+        }
+
+        Summary summarize(String converter) {
+            int size = (int) Math.min(count, WINDOW);
+            long[] times = Arrays.copyOf(wallNanos, size);
+            double[] rates = Arrays.copyOf(megapixelsPerSecond, size);
+            Arrays.sort(times);
+            Arrays.sort(rates);
+            return new Summary(converter, count, percentile(times, 50), percentile(times, 95), times[size - 1],
+                    rates[(size - 1) / 2]);
+        }
+
+        /**
+         * The nearest-rank percentile of sorted values.
+         */
+        private static long percentile(long[] sorted, int percent) {
+            int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+    }
+
+    private final Map<String, Window> windows = new LinkedHashMap<>();
+    private Measurement latest;
+    private long pixels;
+    private long wallNanos;
+
+    /**
+     * Adds a completed conversion.
+     * @param measurement the conversion
+     */
+    public synchronized void record(Measurement measurement) {
+        windows.computeIfAbsent(measurement.converter(), _ -> new Window()).add(measurement);
+        latest = measurement;
+        pixels += (long) measurement.width() * measurement.height();
+        wallNanos += measurement.wallNanos();
+    }
+
+    /**
+     * @return the last conversion recorded, or null if there was none
+     */
+    public synchronized Measurement getLatest() {
+        return latest;
+    }
+
+    /**
+     * Summarizes the recent conversions of a converter.
+     * @param converter the converter name
+     * @return the summary, or null if the converter was never run
+     */
+    public synchronized Summary summary(String converter) {
+        Window window = windows.get(converter);
+        return window != null ? window.summarize(converter) : null;
+    }
+
+    /**
+     * @return the summaries of every converter run so far, by converter name
+     */
+    public synchronized Map<String, Summary> summaries() {
+        Map<String, Summary> summaries = new TreeMap<>();
+        windows.forEach((converter, window) -> summaries.put(converter, window.summarize(converter)));
+        return summaries;
+    }
+
+    /**
+     * @return the conversions recorded since the start, over all converters
+     */
+    public synchronized long getCount() {
+        long count = 0;
+        for (Window window : windows.values()) {
+            count += window.count;
+        }
+        return count;
+    }
+
+    /**
+     * @return the conversions recorded since the start, by converter name
+     */
+    public synchronized Map<String, Long> getCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        windows.forEach((converter, window) -> counts.put(converter, window.count));
+        return counts;
+    }
+
+    /**
+     * @return the input pixels of the conversions recorded since the start
+     */
+    public synchronized long getPixels() {
+        return pixels;
+    }
+
+    /**
+     * @return the wall time of the conversions recorded since the start, in nanoseconds
+     */
+    public synchronized long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * @return the megapixels converted per second of conversion since the start, or 0 before the first
+     */
+    public synchronized double getMegapixelsPerSecond() {
+        return wallNanos == 0 ? 0 : pixels * 1e3 / wallNanos;
+    }
+}
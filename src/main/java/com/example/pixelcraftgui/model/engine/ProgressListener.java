@@ -0,0 +1,19 @@
+package com.example.pixelcraftgui.model.engine;
+
+/**
+ * Receives progress updates from the tile executor as bands complete.
+ * Updates may arrive concurrently from several worker threads.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /** A listener that ignores all updates. */
+    ProgressListener NONE = (_, _) -> { };
+
+    /**
+     * Reports progress.
+     * @param completed the amount of work completed so far (output rows, for a single pass)
+     * @param total the total amount of work
+     */
+    void progress(long completed, long total);
+}
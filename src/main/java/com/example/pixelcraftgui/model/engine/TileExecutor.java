@@ -0,0 +1,331 @@
+package com.example.pixelcraftgui.model.engine;
+
+import com.example.pixelcraftgui.model.Footprint;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs image converters on all cores by splitting the output raster into bands of rows.
+ * Each band is computed by {@link ImageConverter#convertRows} on a ForkJoin worker.
+ *
+ * The input raster is shared read-only by every band, so a neighborhood converter
+ * reads its halo (the rows within its radius above and below the band) straight from
+ * the original pixels, and geometric converters can read any input position.
+ * Every output pixel is therefore computed exactly as in the sequential path.
+ *
+ * Cancellation is checked before each band starts and progress is reported after
+ * each band completes, so both have band granularity. Converters made of several
+ * passes (see {@link ImageConverter#getPasses()}) run one pass after the other.
+ *
+ * For progressive display, the bands of the final pass can instead be computed nearest
+ * to a {@link ViewportFocus} first and reported one by one to a {@link BandListener}.
+ *
+ * Every conversion is measured: its wall time, the CPU time and allocations of the bands
+ * (summed over the threads that ran them) and the number of bands are emitted as a
+ * {@link ConversionEvent} for Java Flight Recorder and, once completed, added to the
+ * executor's {@link ConversionStats}.
+ */
+public class TileExecutor {
+
+    /** Minimum output pixels per band; smaller bands cost more to schedule than to compute. */
+    private static final int MIN_BAND_PIXELS = 1 << 15;
+
+    /** Bands of neighborhood converters are at least this many times their radius tall. */
+    private static final int HALO_RATIO = 4;
+
+    private final ForkJoinPool pool;
+    private final ConversionStats stats = new ConversionStats();
+    private final AtomicInteger activeConversions = new AtomicInteger();
+
+    /**
+     * Creates an executor backed by the common ForkJoin pool.
+     */
+    public TileExecutor() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an executor with its own pool of the given size.
+     * @param parallelism the number of worker threads
+     */
+    public TileExecutor(int parallelism) {
+        this(new ForkJoinPool(parallelism));
+    }
+
+    /**
+     * Creates an executor backed by the given pool.
+     * @param pool the pool that runs the bands
+     */
+    public TileExecutor(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Converts the input raster in parallel.
+     * @param converter the converter to run
+     * @param input the raster to convert (not modified)
+     * @return a new raster holding the converted pixels, identical to {@code converter.convertRaster(input)}
+     */
+    public ImageRaster execute(ImageConverter converter, ImageRaster input) {
+        return execute(converter, input, new CancellationToken(), ProgressListener.NONE);
+    }
+
+    /**
+     * Converts the input raster in parallel, with progress reporting and cancellation.
+     * @param converter the converter to run
+     * @param input the raster to convert (not modified)
+     * @param token checked before each band; once cancelled no new band is started
+     * @param listener notified after each band completes
+     * @return a new raster holding the converted pixels, identical to {@code converter.convertRaster(input)}
+     * @throws java.util.concurrent.CancellationException if the token was cancelled before all bands completed
+     */
+    public ImageRaster execute(ImageConverter converter, ImageRaster input,
+                               CancellationToken token, ProgressListener listener) {
+        Usage usage = new Usage();
+        ConversionEvent event = new ConversionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean completed = false;
+        activeConversions.incrementAndGet();
+        try {
+            List<ImageConverter> passes = converter.getPasses();
+            ImageRaster raster = input.compact();
+            for (int i = 0; i < passes.size(); i++) {
+                raster = executePass(passes.get(i), raster, token, scaled(listener, i, passes.size()), usage);
+            }
+            completed = true;
+            return raster;
+        } finally {
+            report(converter, input, usage, start, event, completed);
+        }
+    }
+
+    private ImageRaster executePass(ImageConverter pass, ImageRaster input,
+                                    CancellationToken token, ProgressListener listener, Usage usage) {
+        ImageRaster output = createOutput(pass, input, usage);
+        int bandHeight = bandHeight(pass.getFootprint(), output);
+        Job job = new Job(pass, input, output, bandHeight, token, listener, usage);
+        pool.invoke(new BandTask(job, 0, output.getHeight()));
+        token.throwIfCancelled();
+        return output;
+    }
+
+    private static ImageRaster createOutput(ImageConverter pass, ImageRaster input, Usage usage) {
+        long allocated = ThreadCosts.allocatedBytes();
+        ImageRaster output = pass.createOutput(input);
+        usage.allocatedBytes.add(ThreadCosts.allocatedBytes() - allocated);
+        return output;
+    }
+
+    /**
+     * Converts the input raster in parallel, computing the bands of the final pass that the
+     * user is looking at first and reporting each one as it completes.
+     * Earlier passes, which the final one may read anywhere, run in full beforehand.
+     * @param converter the converter to run
+     * @param input the raster to convert (not modified)
+     * @param token checked before each band; once cancelled no new band is started
+     * @param listener notified after each band completes
+     * @param focus the visible part of the output; may be moved while the conversion runs
+     * @param bands notified after each band of the final pass completes
+     * @return a new raster holding the converted pixels, identical to {@code converter.convertRaster(input)}
+     * @throws java.util.concurrent.CancellationException if the token was cancelled before all bands completed
+     */
+    public ImageRaster execute(ImageConverter converter, ImageRaster input, CancellationToken token,
+                               ProgressListener listener, ViewportFocus focus, BandListener bands) {
+        Usage usage = new Usage();
+        ConversionEvent event = new ConversionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean completed = false;
+        activeConversions.incrementAndGet();
+        try {
+            List<ImageConverter> passes = converter.getPasses();
+            ImageRaster raster = input.compact();
+            int last = passes.size() - 1;
+            for (int i = 0; i < last; i++) {
+                raster = executePass(passes.get(i), raster, token, scaled(listener, i, passes.size()), usage);
+            }
+            raster = executeFocusedPass(passes.get(last), raster, token, scaled(listener, last, passes.size()),
+                    focus, bands, usage);
+            completed = true;
+            return raster;
+        } finally {
+            report(converter, input, usage, start, event, completed);
+        }
+    }
+
+    private ImageRaster executeFocusedPass(ImageConverter pass, ImageRaster input, CancellationToken token,
+                                           ProgressListener listener, ViewportFocus focus, BandListener bands,
+                                           Usage usage) {
+        ImageRaster output = createOutput(pass, input, usage);
+        int bandHeight = bandHeight(pass.getFootprint(), output);
+        Job job = new Job(pass, input, output, bandHeight, token, listener, usage);
+        BandQueue queue = new BandQueue(output.getHeight(), bandHeight, focus);
+
+        // One worker per thread, each taking the most urgent band left until none remain
+        ForkJoinTask<?>[] workers = new ForkJoinTask<?>[pool.getParallelism()];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = pool.submit(() -> {
+                for (int band = queue.next(); band >= 0 && !token.isCancelled(); band = queue.next()) {
+                    int startRow = queue.startRow(band);
+                    int endRow = queue.endRow(band);
+                    job.runBand(startRow, endRow);
+                    // A band skipped because of cancellation must not be shown
+                    if (!token.isCancelled()) {
+                        bands.bandCompleted(output, startRow, endRow);
+                    }
+                }
+            });
+        }
+        for (ForkJoinTask<?> worker : workers) {
+            worker.join();
+        }
+        token.throwIfCancelled();
+        return output;
+    }
+
+    /**
+     * Maps the progress of one pass onto the overall progress of all passes.
+     */
+    private static ProgressListener scaled(ProgressListener listener, int pass, int passCount) {
+        if (passCount == 1) {
+            return listener;
+        }
+        return (completed, total) -> listener.progress(pass * total + completed, passCount * total);
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Gets the timings of the conversions this executor completed.
+     * @return the statistics, updated as conversions complete
+     */
+    public ConversionStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return the conversions running on this executor
+     */
+    public int getActiveConversions() {
+        return activeConversions.get();
+    }
+
+    /**
+     * Gets the pool that runs the bands, which executors created without one share with
+     * each other and with parallel streams.
+     * @return the pool
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Emits the flight recorder event of a conversion and records it if it completed.
+     */
+    private void report(ImageConverter converter, ImageRaster input, Usage usage, long start,
+                        ConversionEvent event, boolean completed) {
+        long wallNanos = System.nanoTime() - start;
+        activeConversions.decrementAndGet();
+        event.end();
+        ConversionStats.Measurement measurement = new ConversionStats.Measurement(converter.getName(),
+                input.getWidth(), input.getHeight(), getParallelism(), usage.bands.intValue(), wallNanos,
+                usage.cpuNanos.sum(), usage.allocatedBytes.sum());
+        if (event.shouldCommit()) {
+            event.converter = measurement.converter();
+            event.width = measurement.width();
+            event.height = measurement.height();
+            event.threads = measurement.threads();
+            event.bands = measurement.bands();
+            event.cpuTime = measurement.cpuNanos();
+            event.allocated = measurement.allocatedBytes();
+            event.megapixelsPerSecond = measurement.megapixelsPerSecond();
+            event.completed = completed;
+            event.commit();
+        }
+        if (completed) {
+            stats.record(measurement);
+        }
+    }
+
+    /**
+     * Chooses the smallest band height worth scheduling for a converter footprint.
+     */
+    static int bandHeight(Footprint footprint, ImageRaster output) {
+        int rows = Math.max(1, MIN_BAND_PIXELS / Math.max(1, output.getWidth()));
+        if (footprint.getKind() == Footprint.Kind.NEIGHBORHOOD) {
+            // Keep the halo small relative to the rows a band actually produces
+            rows = Math.max(rows, HALO_RATIO * footprint.getRadius());
+        }
+        return rows;
+    }
+
+    /**
+     * The CPU time, allocations and bands of one conversion, over all its passes and threads.
+     */
+    private static final class Usage {
+        final LongAdder cpuNanos = new LongAdder();
+        final LongAdder allocatedBytes = new LongAdder();
+        final LongAdder bands = new LongAdder();
+    }
+
+    /**
+     * State shared by all bands of one pass.
+     */
+    private record Job(ImageConverter converter, ImageRaster input, ImageRaster output, int bandHeight,
+                       CancellationToken token, ProgressListener listener, Usage usage, AtomicLong completedRows) {
+
+        Job(ImageConverter converter, ImageRaster input, ImageRaster output, int bandHeight,
+            CancellationToken token, ProgressListener listener, Usage usage) {
+            this(converter, input, output, bandHeight, token, listener, usage, new AtomicLong());
+        }
+
+        void runBand(int startRow, int endRow) {
+            if (token.isCancelled()) {
+                return;
+            }
+            long cpu = ThreadCosts.cpuNanos();
+            long allocated = ThreadCosts.allocatedBytes();
+            converter.convertRows(input, output, startRow, endRow);
+            usage.cpuNanos.add(ThreadCosts.cpuNanos() - cpu);
+            usage.allocatedBytes.add(ThreadCosts.allocatedBytes() - allocated);
+            usage.bands.increment();
+            listener.progress(completedRows.addAndGet(endRow - startRow), output.getHeight());
+        }
+    }
+
+    /**
+     * Splits a range of output rows in half until it is no taller than one band.
+     */
+    private static class BandTask extends RecursiveAction {
+
+        private final Job job;
+        private final int startRow;
+        private final int endRow;
+
+        BandTask(Job job, int startRow, int endRow) {
+            this.job = job;
+            this.startRow = startRow;
+            this.endRow = endRow;
+        }
+
+        @Override
+        protected void compute() {
+            if (endRow - startRow <= job.bandHeight()) {
+                job.runBand(startRow, endRow);
+                return;
+            }
+            int middle = (startRow + endRow) >>> 1;
+            invokeAll(new BandTask(job, startRow, middle), new BandTask(job, middle, endRow));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.pixelcraftgui.model.engine;
+
+/**
+ * The part of an image the user is looking at, shared between the view and a running
+ * conversion so that the tile executor can compute the visible bands first.
+ * The region is kept as fractions of the image height, so it stays meaningful while the
+ * output size is not yet known. It may be moved at any time, from any thread; the
+ * executor reads it again each time it picks the next band.
+ */
+public class ViewportFocus {
+
+    private double top;
+    private double bottom = 1;
+
+    /**
+     * Moves the focus.
+     * @param top the top of the visible region, as a fraction of the image height
+     * @param bottom the bottom of the visible region, as a fraction of the image height
+     */
+    public synchronized void set(double top, double bottom) {
+        this.top = Math.clamp(Math.min(top, bottom), 0, 1);
+        this.bottom = Math.clamp(Math.max(top, bottom), 0, 1);
+    }
+
+    /**
+     * Gets the visible rows of an image of the given height.
+     * @param height the image height
+     * @return the first visible row (inclusive) and the last visible row (exclusive), never empty
+     */
+    synchronized int[] rows(int height) {
+        int first = Math.min((int) Math.floor(top * height), height - 1);
+        int last = Math.max((int) Math.ceil(bottom * height), first + 1);
+        return new int[]{first, last};
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.pixelcraftgui.model.history;
+
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.engine.CancellationToken;
+import com.example.pixelcraftgui.model.engine.ProgressListener;
+import javafx.scene.image.Image;
+
+/**
+ * Undo/redo history of the edited image.
+ * Implementations trade memory for the time it takes to go back to a state:
+ * {@link ImageHistory} keeps every state as an image, an off-heap copy or a compressed snapshot,
+ * {@link OperationHistory} keeps the effects applied and replays them,
+ * {@link TiledHistory} keeps tiles shared between states and assembles them.
+ */
+public interface EditHistory {
+
+    /**
+     * Clears the history and makes the image its first state.
+     * @param image the loaded image
+     */
+    void reset(Image image);
+
+    /**
+     * Adds a state after the current one, dropping any states that could be redone.
+     * @param image the new current image
+     * @param converter the converter that produced it from the current state,
+     *                  or null if the state cannot be reproduced by a converter
+     */
+    void push(Image image, ImageConverter converter);
+
+    /**
+     * Steps back one state, restoring it on the calling thread.
+     * @return the previous image, or null if there is nothing to undo
+     */
+    default Image undo() {
+        return canUndo() ? step(getIndex() - 1) : null;
+    }
+
+    /**
+     * Steps forward one state, restoring it on the calling thread.
+     * @return the next image, or null if there is nothing to redo
+     */
+    default Image redo() {
+        return canRedo() ? step(getIndex() + 1) : null;
+    }
+
+    private Image step(int position) {
+        Restored restored = restore(position, new CancellationToken(), ProgressListener.NONE);
+        moveTo(restored);
+        return restored.image();
+    }
+
+    /**
+     * A state whose image was restored by {@link #restore}, ready to be moved to.
+     * @param state identifies the state within its history
+     * @param image the image of the state
+     */
+    record Restored(Object state, Image image) {
+    }
+
+    /**
+     * Gets the image of a state without moving to it. Restoring can take as long as an
+     * effect, so the application calls this on a background thread and only moves to the
+     * state, with {@link #moveTo}, once it succeeded; the history may be read meanwhile.
+     * @param position the position of the state
+     * @param token checked while restoring, for histories that restore in steps
+     * @param listener notified as the restoring progresses
+     * @return the restored state
+     * @throws java.util.concurrent.CancellationException if the token was cancelled
+     * @throws java.io.UncheckedIOException if the state cannot be read back
+     */
+    Restored restore(int position, CancellationToken token, ProgressListener listener);
+
+    /**
+     * Makes a restored state the current one. This does no more than swap references
+     * and schedule background work, so it can run on the JavaFX Application Thread.
+     * @param restored the state returned by {@link #restore}
+     * @return false if the state was dropped from the history since it was restored
+     */
+    boolean moveTo(Restored restored);
+
+    boolean canUndo();
+
+    boolean canRedo();
+
+    /**
+     * @return the number of states, including the loaded image
+     */
+    int size();
+
+    /**
+     * @return the position of the current state
+     */
+    int getIndex();
+
+    /**
+     * @return the heap bytes held by the history
+     */
+    long getHeapBytes();
+
+    /**
+     * @return the bytes held by the history outside the heap, such as memory-mapped states
+     */
+    default long getOffHeapBytes() {
+        return 0;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.pixelcraftgui.model.history;
+
+import com.example.pixelcraftgui.model.RasterStore;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javafx.scene.image.Image;
+
+/**
+ * One state in the history. A state is held as a live image, an uncompressed copy outside
+ * the heap, a compressed snapshot in memory or spilled to disk, or several of these at once.
+ * Fields are guarded by the owning {@link ImageHistory}.
+ */
+final class HistoryEntry {
+
+    final int width;
+    final int height;
+    Image image;
+    RasterStore store;
+    byte[] compressed;
+    Path file;
+    long fileBytes;
+    boolean compressing;
+
+    HistoryEntry(Image image) {
+        this.width = (int) image.getWidth();
+        this.height = (int) image.getHeight();
+        this.image = image;
+    }
+
+    /**
+     * @return the heap bytes held by the live image and the in-memory snapshot
+     */
+    long heapBytes() {
+        long bytes = image != null ? 4L * width * height : 0;
+        return bytes + (compressed != null ? compressed.length : 0);
+    }
+
+    /**
+     * @return the bytes of the uncompressed copy outside the heap
+     */
+    long offHeapBytes() {
+        return store != null ? store.byteSize() : 0;
+    }
+
+    /**
+     * @return true if the image can be dropped because a snapshot can restore it
+     */
+    boolean hasSnapshot() {
+        return compressed != null || file != null;
+    }
+
+    /**
+     * Opens the snapshot. Must be called with the history locked; the returned stream
+     * can be read after the lock is released.
+     * @return a stream of the compressed pixels
+     * @throws IOException if the spilled file cannot be opened
+     */
+    InputStream openSnapshot() throws IOException {
+        if (compressed != null) {
+            return new ByteArrayInputStream(compressed);
+        }
+        return new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+    }
+
+    /**
+     * Deletes the spilled file, if any.
+     */
+    void discard() {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // The scratch directory is removed at exit
+            }
+            file = null;
+        }
+    }
+}
@@ -0,0 +1,543 @@
+package com.example.pixelcraftgui.model.history;
+
+import com.example.pixelcraftgui.model.FxRasterAdapter;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.RasterStore;
+import com.example.pixelcraftgui.model.engine.CancellationToken;
+import com.example.pixelcraftgui.model.engine.ProgressListener;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import javafx.scene.image.Image;
+
+/**
+ * Undo/redo history that holds its states within a memory budget.
+ *
+ * States within {@code hotStates} steps of the current one are kept uncompressed, so the
+ * most recent undos and redos are instant. The first state (the loaded image), the current
+ * state and the states one step either side of it are live images, so a single undo or redo
+ * only swaps the displayed image. With {@code offHeap}, the other hot states are copied on a
+ * background thread into memory-mapped {@link RasterStore}s in a scratch directory and their
+ * images released, so the heap holds the same four images however many states are hot, and
+ * going further back is a bulk copy rather than a decompression. After each step the new
+ * neighbours are copied back into images in the background. If a store cannot be created,
+ * hot states stay live images.
+ *
+ * Older states are compressed on a background thread (see {@link SnapshotCodec}) and
+ * their images and stores released. When the snapshots still exceed the byte budget,
+ * the ones furthest from the current state are spilled to the scratch directory, and
+ * states are only evicted if spilling fails.
+ *
+ * A state that is not a live image is copied or decoded by {@link #restore} on the calling
+ * thread without holding the history lock; its neighbours are then prepared in the
+ * background so the following steps are instant again.
+ */
+public class ImageHistory implements EditHistory {
+
+    /** Default number of states on each side of the current one kept as live images. */
+    public static final int DEFAULT_HOT_STATES = 2;
+
+    private final long byteBudget;
+    private final int hotStates;
+    private final List<HistoryEntry> entries = new ArrayList<>();
+    private int index = -1;
+    private volatile boolean offHeap;
+    private Path spillDirectory;
+
+    // Compresses, spills and prefetches states in the background, one at a time
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pixelcraft-history");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates a history with a budget of a quarter of the maximum heap that keeps its hot
+     * states outside the heap.
+     */
+    public ImageHistory() {
+        this(Runtime.getRuntime().maxMemory() / 4, DEFAULT_HOT_STATES, true);
+    }
+
+    /**
+     * Creates a history that keeps its hot states outside the heap.
+     * @param byteBudget the heap bytes the history may hold before spilling to disk
+     * @param hotStates the number of states on each side of the current one kept uncompressed
+     */
+    public ImageHistory(long byteBudget, int hotStates) {
+        this(byteBudget, hotStates, true);
+    }
+
+    /**
+     * Creates a history.
+     * @param byteBudget the heap bytes the history may hold before spilling to disk
+     * @param hotStates the number of states on each side of the current one kept uncompressed
+     * @param offHeap true to keep hot states other than the current one in memory-mapped
+     *                stores, false to keep them as live images
+     */
+    public ImageHistory(long byteBudget, int hotStates, boolean offHeap) {
+        if (byteBudget < 0 || hotStates < 0) {
+            throw new IllegalArgumentException("History budget and hot states must not be negative");
+        }
+        this.byteBudget = byteBudget;
+        this.hotStates = hotStates;
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * Creates a history that spills to the given directory instead of a temporary one.
+     * @param scratchDirectory receives spilled snapshots and stores; not removed at exit
+     */
+    ImageHistory(long byteBudget, int hotStates, boolean offHeap, Path scratchDirectory) {
+        this(byteBudget, hotStates, offHeap);
+        this.spillDirectory = scratchDirectory;
+    }
+
+    @Override
+    public synchronized void reset(Image image) {
+        for (HistoryEntry entry : entries) {
+            discard(entry);
+        }
+        entries.clear();
+        entries.add(new HistoryEntry(image));
+        index = 0;
+    }
+
+    @Override
+    public synchronized void push(Image image, ImageConverter converter) {
+        while (entries.size() > index + 1) {
+            discard(entries.remove(entries.size() - 1));
+        }
+        entries.add(new HistoryEntry(image));
+        index++;
+        rebalance();
+    }
+
+    /**
+     * Looks the state up with the history locked, then copies it from its store or decodes
+     * its snapshot unlocked, so the JavaFX thread can still query the history meanwhile.
+     */
+    @Override
+    public Restored restore(int position, CancellationToken token, ProgressListener listener) {
+        while (true) {
+            HistoryEntry entry;
+            RasterStore store;
+            InputStream in = null;
+            synchronized (this) {
+                entry = entries.get(position);
+                if (entry.image != null) {
+                    return new Restored(entry, entry.image);
+                }
+                store = entry.store;
+                if (store == null) {
+                    try {
+                        in = entry.openSnapshot();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Cannot restore history state " + position, e);
+                    }
+                }
+            }
+            if (store != null) {
+                Image image = store.readIfOpen(FxRasterAdapter::toImage);
+                if (image != null) {
+                    return new Restored(entry, image);
+                }
+                // Released meanwhile, which only happens once the state has a snapshot
+                continue;
+            }
+            try (InputStream snapshot = in) {
+                return new Restored(entry, FxRasterAdapter.toImage(SnapshotCodec.decode(snapshot, entry.width, entry.height)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot restore history state " + position, e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized boolean moveTo(Restored restored) {
+        HistoryEntry entry = (HistoryEntry) restored.state();
+        int position = entries.indexOf(entry);
+        if (position < 0) {
+            return false;
+        }
+        if (entry.image == null) {
+            entry.image = restored.image();
+        }
+        index = position;
+        rebalance();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean canUndo() {
+        return index > 0;
+    }
+
+    @Override
+    public synchronized boolean canRedo() {
+        return index < entries.size() - 1;
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized int getIndex() {
+        return index;
+    }
+
+    /**
+     * Counts the live images and the in-memory snapshots.
+     */
+    @Override
+    public synchronized long getHeapBytes() {
+        long bytes = 0;
+        for (HistoryEntry entry : entries) {
+            bytes += entry.heapBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the bytes of hot states held in memory-mapped stores
+     */
+    @Override
+    public synchronized long getOffHeapBytes() {
+        long bytes = 0;
+        for (HistoryEntry entry : entries) {
+            bytes += entry.offHeapBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the bytes of snapshots spilled to disk
+     */
+    public synchronized long getSpilledBytes() {
+        long bytes = 0;
+        for (HistoryEntry entry : entries) {
+            bytes += entry.file != null ? entry.fileBytes : 0;
+        }
+        return bytes;
+    }
+
+    public long getByteBudget() {
+        return byteBudget;
+    }
+
+    private boolean isHot(int position) {
+        return position == 0 || Math.abs(position - index) <= hotStates;
+    }
+
+    /**
+     * @return true for the states kept as live images: the loaded image, the current state
+     *         and the states one step either side of it
+     */
+    private boolean isLive(int position) {
+        return position == 0 || Math.abs(position - index) <= 1;
+    }
+
+    /**
+     * Releases the images and stores of states that left the hot window, compressing them
+     * first if needed, moves the other hot states outside the heap, and prefetches hot
+     * states that are held only as snapshots and live states that are held only in stores.
+     */
+    private void rebalance() {
+        for (int i = 0; i < entries.size(); i++) {
+            HistoryEntry entry = entries.get(i);
+            if (isHot(i)) {
+                if (entry.image == null && (entry.store == null || isLive(i)) && !entry.compressing) {
+                    worker.execute(() -> prefetch(entry));
+                } else if (offHeap && entry.image != null && !isLive(i)) {
+                    if (entry.store != null) {
+                        entry.image = null;
+                    } else {
+                        worker.execute(() -> offload(entry));
+                    }
+                }
+            } else if (entry.image != null || entry.store != null) {
+                if (entry.hasSnapshot()) {
+                    entry.image = null;
+                    releaseStore(entry);
+                } else if (!entry.compressing) {
+                    entry.compressing = true;
+                    Image image = entry.image;
+                    RasterStore store = entry.store;
+                    worker.execute(() -> compress(entry, image, store));
+                }
+            }
+        }
+        worker.execute(this::enforceBudget);
+    }
+
+    /**
+     * Compresses a state from its image, or from its store when it has no image.
+     * Stores are only closed on the worker, so the store stays open while this runs.
+     */
+    private void compress(HistoryEntry entry, Image image, RasterStore store) {
+        byte[] compressed = image != null ? SnapshotCodec.encode(image) : SnapshotCodec.encode(store);
+        synchronized (this) {
+            entry.compressing = false;
+            int position = entries.indexOf(entry);
+            if (position < 0) {
+                return;
+            }
+            entry.compressed = compressed;
+            if (!isHot(position)) {
+                entry.image = null;
+                releaseStore(entry);
+            }
+        }
+        enforceBudget();
+    }
+
+    /**
+     * Copies the image of a hot state into a store and releases the image.
+     */
+    private void offload(HistoryEntry entry) {
+        Image image;
+        synchronized (this) {
+            int position = entries.indexOf(entry);
+            if (position < 0 || isLive(position) || !isHot(position) || entry.image == null || entry.store != null) {
+                return;
+            }
+            image = entry.image;
+        }
+        RasterStore store = createStore(entry.width, entry.height);
+        if (store == null) {
+            return;
+        }
+        FxRasterAdapter.copy(image, store);
+        synchronized (this) {
+            int position = entries.indexOf(entry);
+            if (position < 0 || entry.store != null) {
+                store.close();
+                return;
+            }
+            entry.store = store;
+            if (!isLive(position)) {
+                entry.image = null;
+            }
+        }
+    }
+
+    /**
+     * Copies a live state held only in a store back into an image, or decodes a hot state
+     * held only as a snapshot, into a store unless it is live.
+     */
+    private void prefetch(HistoryEntry entry) {
+        InputStream in;
+        RasterStore source;
+        boolean live;
+        synchronized (this) {
+            int position = entries.indexOf(entry);
+            if (position < 0 || !isHot(position) || entry.image != null) {
+                return;
+            }
+            live = isLive(position);
+            source = entry.store;
+            if (source != null && !live) {
+                return;
+            }
+            try {
+                in = source == null ? entry.openSnapshot() : null;
+            } catch (IOException e) {
+                // Left to restore, which reports the failure if the state is visited
+                return;
+            }
+        }
+        if (source != null) {
+            // Stores are only closed on the worker, so this one stays open while it is copied
+            Image image = FxRasterAdapter.toImage(source);
+            synchronized (this) {
+                int position = entries.indexOf(entry);
+                if (position >= 0 && isLive(position) && entry.image == null) {
+                    entry.image = image;
+                }
+            }
+            return;
+        }
+        RasterStore store = offHeap && !live ? createStore(entry.width, entry.height) : null;
+        try (in) {
+            Image image = null;
+            if (store != null) {
+                SnapshotCodec.decode(in, store);
+            } else {
+                image = FxRasterAdapter.toImage(SnapshotCodec.decode(in, entry.width, entry.height));
+            }
+            synchronized (this) {
+                if (entry.image == null && entry.store == null && entries.contains(entry)) {
+                    entry.image = image;
+                    entry.store = store;
+                    store = null;
+                }
+            }
+        } catch (IOException e) {
+            // As above
+        } finally {
+            if (store != null) {
+                store.close();
+            }
+        }
+    }
+
+    /**
+     * Creates a store in the scratch directory. Called on the worker.
+     * @return the store, or null if it cannot be created, in which case hot states are
+     *         kept as live images from then on
+     */
+    private RasterStore createStore(int width, int height) {
+        try {
+            return RasterStore.map(width, height, scratchDirectory());
+        } catch (IOException e) {
+            offHeap = false;
+            return null;
+        }
+    }
+
+    /**
+     * Detaches the store of a state and closes it on the worker, after any task already
+     * queued that may still be reading it.
+     */
+    private void releaseStore(HistoryEntry entry) {
+        RasterStore store = entry.store;
+        if (store != null) {
+            entry.store = null;
+            worker.execute(store::close);
+        }
+    }
+
+    private void discard(HistoryEntry entry) {
+        entry.discard();
+        releaseStore(entry);
+    }
+
+    /**
+     * Spills in-memory snapshots to disk, furthest from the current state first,
+     * until the history fits its budget.
+     */
+    private void enforceBudget() {
+        while (true) {
+            HistoryEntry victim;
+            byte[] compressed;
+            synchronized (this) {
+                if (getHeapBytes() <= byteBudget) {
+                    return;
+                }
+                victim = furthestSnapshot();
+                if (victim == null) {
+                    // Only live images are left, and the hot ones must stay live
+                    return;
+                }
+                compressed = victim.compressed;
+            }
+            Path file;
+            try {
+                file = spill(compressed);
+            } catch (IOException e) {
+                synchronized (this) {
+                    evict(victim);
+                }
+                continue;
+            }
+            synchronized (this) {
+                if (entries.contains(victim) && victim.compressed == compressed) {
+                    victim.file = file;
+                    victim.fileBytes = compressed.length;
+                    victim.compressed = null;
+                } else {
+                    deleteQuietly(file);
+                }
+            }
+        }
+    }
+
+    private HistoryEntry furthestSnapshot() {
+        HistoryEntry furthest = null;
+        int furthestDistance = -1;
+        for (int i = 0; i < entries.size(); i++) {
+            HistoryEntry entry = entries.get(i);
+            int distance = Math.abs(i - index);
+            if (entry.compressed != null && entry.image == null && distance > furthestDistance) {
+                furthest = entry;
+                furthestDistance = distance;
+            }
+        }
+        return furthest;
+    }
+
+    /**
+     * Gets the directory for spilled snapshots and stores, creating it on first use.
+     * Files are deleted as their states are discarded; whatever is left, and the directory
+     * itself, is removed when the JVM exits. Called on the worker.
+     */
+    private Path scratchDirectory() throws IOException {
+        if (spillDirectory == null) {
+            Path directory = Files.createTempDirectory("pixelcraft-history");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteDirectory(directory), "pixelcraft-history-cleanup"));
+            spillDirectory = directory;
+        }
+        return spillDirectory;
+    }
+
+    private Path spill(byte[] compressed) throws IOException {
+        Path file = Files.createTempFile(scratchDirectory(), "state", ".bin");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            out.write(compressed);
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * Drops a state that could not be spilled. States before the current one are
+     * removed from the undo side, states after it truncate the redo side.
+     */
+    private void evict(HistoryEntry victim) {
+        int position = entries.indexOf(victim);
+        if (position < 0) {
+            return;
+        }
+        if (position < index) {
+            // Drop the oldest undo steps up to and including the victim, keeping the loaded image
+            for (int i = position; i >= 1; i--) {
+                discard(entries.remove(i));
+                index--;
+            }
+        } else {
+            while (entries.size() > position) {
+                discard(entries.remove(entries.size() - 1));
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Removed with the scratch directory at exit
+        }
+    }
+
+    private static void deleteDirectory(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(ImageHistory::deleteQuietly);
+        } catch (IOException e) {
+            // Left to the system's cleanup of temporary files
+        }
+        deleteQuietly(directory);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.pixelcraftgui.model.history;
+
+import com.example.pixelcraftgui.model.ConverterFactory;
+import com.example.pixelcraftgui.model.ImageConverter;
+import java.util.Map;
+
+/**
+ * A recorded effect: the converter type and the settings that recreate it
+ * through {@link ConverterFactory#createConverter(String, Map)}.
+ * @param type the converter type
+ * @param parameters the converter settings by name
+ */
+public record Operation(String type, Map<String, String> parameters) {
+
+    public Operation {
+        parameters = Map.copyOf(parameters);
+    }
+
+    /**
+     * Records a converter if the factory can recreate it.
+     * @param converter the converter to record, may be null
+     * @return the operation, or null if the converter is null or was not created by the factory
+     */
+    public static Operation of(ImageConverter converter) {
+        if (converter == null) {
+            return null;
+        }
+        Operation operation = new Operation(converter.getName(), converter.getParameters());
+        ImageConverter recreated = ConverterFactory.createConverter(operation.type, operation.parameters);
+        // A custom converter that happens to share a factory name would replay as the wrong effect
+        return recreated != null && recreated.getClass() == converter.getClass() ? operation : null;
+    }
+
+    /**
+     * Recreates the recorded converter.
+     * @return a converter that produces the same output as the recorded one
+     */
+    public ImageConverter createConverter() {
+        return ConverterFactory.createConverter(type, parameters);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.pixelcraftgui.model.history;
+
+import com.example.pixelcraftgui.model.FxRasterAdapter;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import com.example.pixelcraftgui.model.engine.CancellationToken;
+import com.example.pixelcraftgui.model.engine.ProgressListener;
+import com.example.pixelcraftgui.model.engine.TileExecutor;
+import java.util.ArrayList;
+import java.util.List;
+import javafx.scene.image.Image;
+
+/**
+ * Undo/redo history that records the effects applied instead of the images they produced.
+ *
+ * Each step stores the converter type and settings (an {@link Operation}). A keyframe image
+ * is kept for the loaded image and every {@code keyframeInterval} steps after it, and for
+ * any step whose converter cannot be recreated by the factory. Going to a state replays
+ * the operations from the nearest keyframe before it, or from the current state when
+ * redoing, so memory grows by one full image per {@code keyframeInterval} steps instead
+ * of one per step, at the cost of up to {@code keyframeInterval - 1} effects per undo.
+ * The replay runs in {@link #restore}, which the application calls off the JavaFX
+ * Application Thread.
+ */
+public class OperationHistory implements EditHistory {
+
+    /** Default number of steps between keyframes. */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 8;
+
+    private final TileExecutor tileExecutor;
+    private final int keyframeInterval;
+    private final List<Step> steps = new ArrayList<>();
+    private int index = -1;
+    private Image current;
+
+    /**
+     * @param operation the effect that produced this state from the previous one, null for keyframes
+     * @param keyframe the image of this state, or null if it is rebuilt by replaying
+     */
+    private record Step(Operation operation, Image keyframe) {
+    }
+
+    /**
+     * Creates a history that replays on the given executor with the default keyframe interval.
+     * @param tileExecutor runs the replayed effects
+     */
+    public OperationHistory(TileExecutor tileExecutor) {
+        this(tileExecutor, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Creates a history.
+     * @param tileExecutor runs the replayed effects
+     * @param keyframeInterval the number of steps between keyframes
+     */
+    public OperationHistory(TileExecutor tileExecutor, int keyframeInterval) {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("Keyframe interval must be at least 1: " + keyframeInterval);
+        }
+        this.tileExecutor = tileExecutor;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    @Override
+    public synchronized void reset(Image image) {
+        steps.clear();
+        steps.add(new Step(null, image));
+        index = 0;
+        current = image;
+    }
+
+    @Override
+    public synchronized void push(Image image, ImageConverter converter) {
+        while (steps.size() > index + 1) {
+            steps.remove(steps.size() - 1);
+        }
+        Operation operation = Operation.of(converter);
+        boolean keyframe = operation == null || index + 1 - lastKeyframe(index) >= keyframeInterval;
+        steps.add(keyframe ? new Step(null, image) : new Step(operation, null));
+        index++;
+        current = image;
+    }
+
+    /**
+     * Replays the operations from the nearest keyframe before the state, or from the
+     * current state when it is closer, checking the token between and within effects.
+     */
+    @Override
+    public Restored restore(int position, CancellationToken token, ProgressListener listener) {
+        Step target;
+        Image image;
+        List<Operation> operations = new ArrayList<>();
+        synchronized (this) {
+            target = steps.get(position);
+            int start = lastKeyframe(position);
+            image = steps.get(start).keyframe();
+            if (index > start && index <= position) {
+                // Redoing: the current state is closer than the keyframe
+                start = index;
+                image = current;
+            }
+            for (int i = start + 1; i <= position; i++) {
+                operations.add(steps.get(i).operation());
+            }
+        }
+        if (!operations.isEmpty()) {
+            ImageRaster raster = FxRasterAdapter.fromImage(image);
+            for (int i = 0; i < operations.size(); i++) {
+                long step = i;
+                long count = operations.size();
+                raster = tileExecutor.execute(operations.get(i).createConverter(), raster, token,
+                        (completed, total) -> listener.progress(step * total + completed, count * total));
+            }
+            image = FxRasterAdapter.toImage(raster);
+        }
+        return new Restored(target, image);
+    }
+
+    @Override
+    public synchronized boolean moveTo(Restored restored) {
+        // Steps are records, so they are found by identity rather than by equality
+        for (int i = 0; i < steps.size(); i++) {
+            if (steps.get(i) == restored.state()) {
+                index = i;
+                current = restored.image();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int lastKeyframe(int position) {
+        while (steps.get(position).keyframe() == null) {
+            position--;
+        }
+        return position;
+    }
+
+    @Override
+    public synchronized boolean canUndo() {
+        return index > 0;
+    }
+
+    @Override
+    public synchronized boolean canRedo() {
+        return index < steps.size() - 1;
+    }
+
+    @Override
+    public synchronized int size() {
+        return steps.size();
+    }
+
+    @Override
+    public synchronized int getIndex() {
+        return index;
+    }
+
+    /**
+     * Counts the keyframes and the current image.
+     */
+    @Override
+    public synchronized long getHeapBytes() {
+        long bytes = 0;
+        boolean currentIsKeyframe = false;
+        for (Step step : steps) {
+            if (step.keyframe() != null) {
+                bytes += imageBytes(step.keyframe());
+                currentIsKeyframe |= step.keyframe() == current;
+            }
+        }
+        return current != null && !currentIsKeyframe ? bytes + imageBytes(current) : bytes;
+    }
+
+    private static long imageBytes(Image image) {
+        return 4L * (long) image.getWidth() * (long) image.getHeight();
+    }
+
+    /**
+     * Gets the recorded operations, for inspection or export.
+     * @return the operation of each step, null for keyframes
+     */
+    public synchronized List<Operation> getOperations() {
+        List<Operation> operations = new ArrayList<>();
+        for (Step step : steps) {
+            operations.add(step.operation());
+        }
+        return operations;
+    }
+}
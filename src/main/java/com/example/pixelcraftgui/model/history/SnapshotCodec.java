@@ -0,0 +1,158 @@
+package com.example.pixelcraftgui.model.history;
+
+import com.example.pixelcraftgui.model.FxRasterAdapter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import com.example.pixelcraftgui.model.RasterStore;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import javafx.scene.image.Image;
+
+/**
+ * Compresses image snapshots for the history.
+ *
+ * Each pixel is stored as the XOR of itself and its left neighbor before deflating.
+ * In smooth regions neighboring pixels share their high bits, so the XOR is mostly
+ * zero bytes and deflates far better than the raw pixels.
+ */
+final class SnapshotCodec {
+
+    /** Pixels read from the image per bulk getPixels call while encoding, and restored per strip while decoding. */
+    private static final int STRIP_PIXELS = 1 << 16;
+
+    private SnapshotCodec() {
+    }
+
+    /**
+     * Compresses an image.
+     * @param image the image to compress
+     * @return the compressed pixels
+     */
+    static byte[] encode(Image image) {
+        return encode((int) image.getWidth(), (int) image.getHeight(),
+                (startRow, endRow) -> FxRasterAdapter.fromImage(image, startRow, endRow).getPixels());
+    }
+
+    /**
+     * Compresses the pixels of a store.
+     * @param store the pixels to compress
+     * @return the compressed pixels
+     */
+    static byte[] encode(RasterStore store) {
+        return encode(store.getWidth(), store.getHeight(),
+                (startRow, endRow) -> store.readBand(startRow, endRow).getPixels());
+    }
+
+    /**
+     * Reads a band of rows of the image being compressed.
+     */
+    private interface BandReader {
+        int[] read(int startRow, int endRow);
+    }
+
+    private static byte[] encode(int width, int height, BandReader reader) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            encode(width, height, reader, bytes);
+        } catch (IOException e) {
+            // A byte array stream does not throw
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void encode(int width, int height, BandReader reader, OutputStream out) throws IOException {
+        int stripRows = Math.max(1, STRIP_PIXELS / Math.max(1, width));
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            DeflaterOutputStream deflated = new DeflaterOutputStream(out, deflater, 1 << 16);
+            byte[] buffer = new byte[width * 4];
+            for (int startRow = 0; startRow < height; startRow += stripRows) {
+                int endRow = Math.min(height, startRow + stripRows);
+                int[] pixels = reader.read(startRow, endRow);
+                for (int row = 0; row < endRow - startRow; row++) {
+                    int left = 0;
+                    for (int x = 0, i = row * width; x < width; x++, i++) {
+                        int delta = pixels[i] ^ left;
+                        left = pixels[i];
+                        buffer[x * 4] = (byte) (delta >>> 24);
+                        buffer[x * 4 + 1] = (byte) (delta >>> 16);
+                        buffer[x * 4 + 2] = (byte) (delta >>> 8);
+                        buffer[x * 4 + 3] = (byte) delta;
+                    }
+                    deflated.write(buffer);
+                }
+            }
+            deflated.finish();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Restores an image compressed by {@link #encode}.
+     * @param in the compressed pixels; not closed
+     * @param width the image width
+     * @param height the image height
+     * @return the restored pixels
+     * @throws IOException if the stream cannot be read or is truncated
+     */
+    static ImageRaster decode(InputStream in, int width, int height) throws IOException {
+        ImageRaster raster = new ImageRaster(width, height);
+        decode(in, width, height, (startRow, endRow, pixels) ->
+                System.arraycopy(pixels, 0, raster.getPixels(), startRow * width, (endRow - startRow) * width));
+        return raster;
+    }
+
+    /**
+     * Restores an image compressed by {@link #encode} into a store, a strip at a time.
+     * @param in the compressed pixels; not closed
+     * @param store receives the restored pixels; must have the size of the compressed image
+     * @throws IOException if the stream cannot be read or is truncated
+     */
+    static void decode(InputStream in, RasterStore store) throws IOException {
+        decode(in, store.getWidth(), store.getHeight(),
+                (startRow, endRow, pixels) -> store.writeRows(startRow, endRow, pixels, 0));
+    }
+
+    /**
+     * Receives a strip of restored rows.
+     */
+    private interface StripWriter {
+        void write(int startRow, int endRow, int[] pixels);
+    }
+
+    private static void decode(InputStream in, int width, int height, StripWriter writer) throws IOException {
+        int stripRows = Math.max(1, STRIP_PIXELS / Math.max(1, width));
+        int[] pixels = new int[Math.min(height, stripRows) * width];
+        Inflater inflater = new Inflater();
+        try {
+            InflaterInputStream inflated = new InflaterInputStream(in, inflater, 1 << 16);
+            byte[] buffer = new byte[width * 4];
+            for (int startRow = 0; startRow < height; startRow += stripRows) {
+                int endRow = Math.min(height, startRow + stripRows);
+                for (int y = startRow; y < endRow; y++) {
+                    if (inflated.readNBytes(buffer, 0, buffer.length) != buffer.length) {
+                        throw new IOException("History snapshot is truncated at row " + y);
+                    }
+                    int left = 0;
+                    for (int x = 0, i = (y - startRow) * width; x < width; x++, i++) {
+                        int delta = (buffer[x * 4] & 0xff) << 24 | (buffer[x * 4 + 1] & 0xff) << 16
+                                | (buffer[x * 4 + 2] & 0xff) << 8 | (buffer[x * 4 + 3] & 0xff);
+                        left ^= delta;
+                        pixels[i] = left;
+                    }
+                }
+                writer.write(startRow, endRow, pixels);
+            }
+        } finally {
+            inflater.end();
+        }
+    }
+}
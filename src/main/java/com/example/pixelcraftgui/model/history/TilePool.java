@@ -0,0 +1,117 @@
+package com.example.pixelcraftgui.model.history;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns immutable image tiles by content, so that equal tiles are stored once however
+ * many states, or places within a state, use them.
+ *
+ * Tiles are found by a 64-bit hash of their pixels and confirmed by comparing the pixels.
+ * Each tile counts the places that use it and is dropped from the pool when the last
+ * of them releases it. All methods are thread-safe.
+ */
+final class TilePool {
+
+    /**
+     * An immutable block of ARGB pixels, row by row.
+     */
+    static final class Tile {
+
+        final int width;
+        final int height;
+        final int[] pixels;
+        private final long hash;
+        private int references;
+
+        private Tile(int width, int height, int[] pixels, long hash) {
+            this.width = width;
+            this.height = height;
+            this.pixels = pixels;
+            this.hash = hash;
+        }
+
+        private boolean matches(int width, int height, int[] pixels) {
+            return this.width == width && this.height == height && Arrays.equals(this.pixels, pixels);
+        }
+    }
+
+    private final Map<Long, List<Tile>> tiles = new HashMap<>();
+    private long bytes;
+    private long lookups;
+    private long shared;
+
+    /**
+     * Gets the tile with the given pixels, adding it if the pool has no equal tile, and
+     * counts one more use of it.
+     * @param width the tile width
+     * @param height the tile height
+     * @param pixels the tile pixels, row by row; kept by the pool if the tile is new, so
+     *               they must not be changed afterwards
+     * @return the pooled tile
+     */
+    synchronized Tile intern(int width, int height, int[] pixels) {
+        long hash = hash(width, height, pixels);
+        List<Tile> candidates = tiles.computeIfAbsent(hash, _ -> new ArrayList<>(1));
+        lookups++;
+        for (Tile tile : candidates) {
+            if (tile.matches(width, height, pixels)) {
+                tile.references++;
+                shared++;
+                return tile;
+            }
+        }
+        Tile tile = new Tile(width, height, pixels, hash);
+        tile.references = 1;
+        candidates.add(tile);
+        bytes += 4L * pixels.length;
+        return tile;
+    }
+
+    /**
+     * Counts one use less of a tile, dropping it from the pool after its last use.
+     * @param tile a tile returned by {@link #intern}
+     */
+    synchronized void release(Tile tile) {
+        if (--tile.references > 0) {
+            return;
+        }
+        List<Tile> candidates = tiles.get(tile.hash);
+        candidates.remove(tile);
+        if (candidates.isEmpty()) {
+            tiles.remove(tile.hash);
+        }
+        bytes -= 4L * tile.pixels.length;
+    }
+
+    /**
+     * @return the bytes of the pixels of the distinct tiles in the pool
+     */
+    synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the fraction of interned tiles that were already in the pool
+     */
+    synchronized double getSharedRatio() {
+        return lookups == 0 ? 0 : (double) shared / lookups;
+    }
+
+    /**
+     * FNV-1a over the pixel values. Collisions only cost a comparison, since matches are
+     * confirmed pixel by pixel.
+     */
+    private static long hash(int width, int height, int[] pixels) {
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ width) * 0x100000001b3L;
+        hash = (hash ^ height) * 0x100000001b3L;
+        for (int pixel : pixels) {
+            hash = (hash ^ pixel) * 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.pixelcraftgui.model.history;
+
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.engine.CancellationToken;
+import com.example.pixelcraftgui.model.engine.ProgressListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javafx.scene.image.Image;
+
+/**
+ * Undo/redo history that stores each state as a grid of tiles shared between states.
+ *
+ * Every state is split into tiles of {@code tileSize} pixels square, interned by content
+ * in a {@link TilePool}: a tile equal to one held by any state, or elsewhere in the same
+ * state, is not stored again. Memory therefore grows with the area that actually changed
+ * rather than with the image size times the history depth. It also returns to a shared
+ * layout when an edit is undone by another one, such as Mirror applied twice or Rotate
+ * applied four times, and flat areas like backgrounds and borders are stored once.
+ *
+ * New states are tiled on a background thread. The current state is also kept as a live
+ * image, which the model displays anyway; going to another state assembles its tiles
+ * into a new image in {@link #restore}, off the JavaFX thread and outside the history
+ * lock. When the distinct tiles exceed the byte budget, the oldest undo steps are
+ * dropped, then the furthest redo steps; the loaded image is always kept.
+ */
+public class TiledHistory implements EditHistory {
+
+    /** Default width and height of the tiles, in pixels. */
+    public static final int DEFAULT_TILE_SIZE = 256;
+
+    private final long byteBudget;
+    private final int tileSize;
+    private final TilePool pool = new TilePool();
+    private final List<State> states = new ArrayList<>();
+    private int index = -1;
+
+    /**
+     * One state: its tiles once they are built, and its image while it is current or
+     * still being tiled. Fields are guarded by the history.
+     */
+    private static final class State {
+        Image image;
+        TiledImage tiles;
+
+        State(Image image) {
+            this.image = image;
+        }
+    }
+
+    // Tiles new states in the background, one at a time
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pixelcraft-history");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Creates a history with a budget of a quarter of the maximum heap and the default tile size.
+     */
+    public TiledHistory() {
+        this(Runtime.getRuntime().maxMemory() / 4, DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * Creates a history.
+     * @param byteBudget the bytes the distinct tiles may hold before states are dropped
+     * @param tileSize the width and height of the tiles, in pixels
+     */
+    public TiledHistory(long byteBudget, int tileSize) {
+        if (byteBudget < 0 || tileSize < 1) {
+            throw new IllegalArgumentException("History budget must not be negative and tiles must not be empty");
+        }
+        this.byteBudget = byteBudget;
+        this.tileSize = tileSize;
+    }
+
+    @Override
+    public synchronized void reset(Image image) {
+        for (State state : states) {
+            release(state);
+        }
+        states.clear();
+        add(image);
+        index = 0;
+    }
+
+    @Override
+    public synchronized void push(Image image, ImageConverter converter) {
+        while (states.size() > index + 1) {
+            release(states.remove(states.size() - 1));
+        }
+        leave(states.get(index));
+        add(image);
+        index++;
+    }
+
+    private void add(Image image) {
+        State state = new State(image);
+        states.add(state);
+        worker.execute(() -> tile(state, image));
+    }
+
+    /**
+     * Looks the state up with the history locked and assembles its tiles unlocked, so the
+     * JavaFX thread can still query the history meanwhile. Tiles are immutable, so they stay
+     * readable even if the state is dropped while they are assembled.
+     */
+    @Override
+    public Restored restore(int position, CancellationToken token, ProgressListener listener) {
+        State state;
+        TiledImage tiles;
+        synchronized (this) {
+            state = states.get(position);
+            if (state.image != null) {
+                return new Restored(state, state.image);
+            }
+            tiles = state.tiles;
+        }
+        return new Restored(state, tiles.toImage());
+    }
+
+    @Override
+    public synchronized boolean moveTo(Restored restored) {
+        State state = (State) restored.state();
+        int position = states.indexOf(state);
+        if (position < 0) {
+            return false;
+        }
+        leave(states.get(index));
+        if (state.image == null) {
+            state.image = restored.image();
+        }
+        index = position;
+        return true;
+    }
+
+    @Override
+    public synchronized boolean canUndo() {
+        return index > 0;
+    }
+
+    @Override
+    public synchronized boolean canRedo() {
+        return index < states.size() - 1;
+    }
+
+    @Override
+    public synchronized int size() {
+        return states.size();
+    }
+
+    @Override
+    public synchronized int getIndex() {
+        return index;
+    }
+
+    /**
+     * Counts the distinct tiles and the live images.
+     */
+    @Override
+    public synchronized long getHeapBytes() {
+        long bytes = pool.getBytes();
+        for (State state : states) {
+            if (state.image != null) {
+                bytes += 4L * (long) state.image.getWidth() * (long) state.image.getHeight();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the bytes of the distinct tiles, shared or not
+     */
+    public long getTileBytes() {
+        return pool.getBytes();
+    }
+
+    /**
+     * @return the fraction of the tiles of all states tiled so far that were already held
+     */
+    public double getSharedRatio() {
+        return pool.getSharedRatio();
+    }
+
+    public long getByteBudget() {
+        return byteBudget;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    private void tile(State state, Image image) {
+        TiledImage tiles = TiledImage.of(image, tileSize, pool);
+        synchronized (this) {
+            int position = states.indexOf(state);
+            if (position < 0) {
+                tiles.release(pool);
+                return;
+            }
+            state.tiles = tiles;
+            if (position != index) {
+                state.image = null;
+            }
+            enforceBudget();
+        }
+    }
+
+    /**
+     * Drops the states furthest in the past, then in the future, until the distinct tiles
+     * fit the budget. States still being tiled are not counted yet and are not dropped.
+     */
+    private void enforceBudget() {
+        while (pool.getBytes() > byteBudget) {
+            if (index > 1 && states.get(1).tiles != null) {
+                release(states.remove(1));
+                index--;
+            } else if (states.size() > index + 1 && states.get(states.size() - 1).tiles != null) {
+                release(states.remove(states.size() - 1));
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Releases the image of a state that stops being current, unless it is still being tiled.
+     */
+    private static void leave(State state) {
+        if (state.tiles != null) {
+            state.image = null;
+        }
+    }
+
+    private void release(State state) {
+        if (state.tiles != null) {
+            state.tiles.release(pool);
+            state.tiles = null;
+        }
+        state.image = null;
+    }
+}
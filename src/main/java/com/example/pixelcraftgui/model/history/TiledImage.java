@@ -0,0 +1,79 @@
+package com.example.pixelcraftgui.model.history;
+
+import com.example.pixelcraftgui.model.FxRasterAdapter;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * An image held as a grid of pooled tiles (see {@link TilePool}). Tiles are immutable
+ * and shared with every other tiled image that has the same pixels in a tile, so two
+ * states that differ in a few tiles only hold those tiles twice. The tiles on the right
+ * and bottom edges are smaller when the image size is not a multiple of the tile size.
+ */
+final class TiledImage {
+
+    final int width;
+    final int height;
+    private final int tileSize;
+    private final int columns;
+    private final TilePool.Tile[] tiles;
+
+    private TiledImage(int width, int height, int tileSize) {
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+        this.columns = (width + tileSize - 1) / tileSize;
+        this.tiles = new TilePool.Tile[columns * ((height + tileSize - 1) / tileSize)];
+    }
+
+    /**
+     * Splits an image into tiles, reading one row of tiles at a time.
+     * @param image the image to split
+     * @param tileSize the width and height of the tiles
+     * @param pool interns the tiles
+     * @return the tiled image, which holds one use of each of its tiles
+     */
+    static TiledImage of(Image image, int tileSize, TilePool pool) {
+        TiledImage tiled = new TiledImage((int) image.getWidth(), (int) image.getHeight(), tileSize);
+        for (int startRow = 0, row = 0; startRow < tiled.height; startRow += tileSize, row++) {
+            int rows = Math.min(tileSize, tiled.height - startRow);
+            int[] band = FxRasterAdapter.fromImage(image, startRow, startRow + rows).getPixels();
+            for (int startColumn = 0, column = 0; startColumn < tiled.width; startColumn += tileSize, column++) {
+                int columns = Math.min(tileSize, tiled.width - startColumn);
+                int[] pixels = new int[columns * rows];
+                for (int y = 0; y < rows; y++) {
+                    System.arraycopy(band, y * tiled.width + startColumn, pixels, y * columns, columns);
+                }
+                tiled.tiles[row * tiled.columns + column] = pool.intern(columns, rows, pixels);
+            }
+        }
+        return tiled;
+    }
+
+    /**
+     * Assembles the tiles into a new image.
+     * @return a new writable image holding the pixels of the tiles
+     */
+    WritableImage toImage() {
+        WritableImage image = new WritableImage(width, height);
+        for (int i = 0; i < tiles.length; i++) {
+            TilePool.Tile tile = tiles[i];
+            image.getPixelWriter().setPixels((i % columns) * tileSize, (i / columns) * tileSize, tile.width, tile.height,
+                    PixelFormat.getIntArgbInstance(), tile.pixels, 0, tile.width);
+        }
+        return image;
+    }
+
+    /**
+     * Gives up this image's use of its tiles. The pool never changes tile pixels, so an
+     * assembly already under way still reads valid pixels, but the image must not be
+     * used afterwards.
+     * @param pool the pool the tiles were interned in
+     */
+    void release(TilePool pool) {
+        for (TilePool.Tile tile : tiles) {
+            pool.release(tile);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.pixelcraftgui.model.io;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Reads any format ImageIO supports one region of rows at a time, with
+ * {@link ImageReadParam#setSourceRegion}. Only the requested rows are kept in memory,
+ * though depending on the format the reader may have to decode the rows above a
+ * region again for each region.
+ */
+class ImageIoRowSource implements RowSource {
+
+    private final ImageInputStream stream;
+    private final ImageReader reader;
+    private final int width;
+    private final int height;
+    private final boolean alpha;
+    private int rowsRead;
+
+    ImageIoRowSource(Path file) throws IOException {
+        this.stream = ImageIO.createImageInputStream(file.toFile());
+        if (stream == null) {
+            throw new IOException("Cannot open " + file);
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+        if (!readers.hasNext()) {
+            stream.close();
+            throw new IOException("Unsupported image format");
+        }
+        this.reader = readers.next();
+        try {
+            reader.setInput(stream, true, true);
+            this.width = reader.getWidth(0);
+            this.height = reader.getHeight(0);
+            this.alpha = reader.getRawImageType(0) == null || reader.getRawImageType(0).getColorModel().hasAlpha();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean hasAlpha() {
+        return alpha;
+    }
+
+    @Override
+    public void readRows(int[] pixels, int offset, int stride, int rows) throws IOException {
+        if (rowsRead + rows > height) {
+            throw new IllegalStateException("Image has only " + height + " rows");
+        }
+        if (rows == 0) {
+            return;
+        }
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceRegion(new Rectangle(0, rowsRead, width, rows));
+        BufferedImage region = reader.read(0, param);
+        region.getRGB(0, 0, width, rows, pixels, offset, stride);
+        rowsRead += rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.dispose();
+        } finally {
+            stream.close();
+        }
+    }
+}
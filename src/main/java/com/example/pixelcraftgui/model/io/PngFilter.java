@@ -0,0 +1,34 @@
+package com.example.pixelcraftgui.model.io;
+
+/**
+ * PNG row filters. A filter replaces each byte with its difference from a prediction
+ * (the byte to the left, above, or a mix of both), which makes smooth images compress better.
+ * Stronger prediction costs more time per row.
+ */
+public enum PngFilter {
+    /** Stores the bytes as they are; fastest, largest files. */
+    NONE(0),
+    /** Predicts from the pixel to the left; cheap and effective on photos. */
+    SUB(1),
+    /** Predicts from the pixel above. */
+    UP(2),
+    /** Predicts from the mean of the pixels to the left and above. */
+    AVERAGE(3),
+    /** Predicts from the left, above or upper-left pixel, whichever is closest to their gradient. */
+    PAETH(4),
+    /** Tries every filter on each row and keeps the one with the smallest sum of differences; smallest files, slowest. */
+    ADAPTIVE(-1);
+
+    private final int type;
+
+    PngFilter(int type) {
+        this.type = type;
+    }
+
+    /**
+     * @return the filter type byte written before each row, or -1 for {@link #ADAPTIVE}
+     */
+    int getType() {
+        return type;
+    }
+}
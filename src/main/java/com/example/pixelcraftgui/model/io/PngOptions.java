@@ -0,0 +1,29 @@
+package com.example.pixelcraftgui.model.io;
+
+import java.util.zip.Deflater;
+
+/**
+ * Trades PNG file size for encoding speed.
+ * @param compressionLevel the deflate level, 0 (store) to 9 (smallest)
+ * @param filter the row filter
+ */
+public record PngOptions(int compressionLevel, PngFilter filter) {
+
+    /** Fast encoding with reasonable size: about what most image editors write. */
+    public static final PngOptions DEFAULT = new PngOptions(4, PngFilter.SUB);
+
+    /** Fastest encoding, for scratch files. */
+    public static final PngOptions FASTEST = new PngOptions(1, PngFilter.NONE);
+
+    /** Smallest files, several times slower than {@link #DEFAULT}. */
+    public static final PngOptions SMALLEST = new PngOptions(Deflater.BEST_COMPRESSION, PngFilter.ADAPTIVE);
+
+    public PngOptions {
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException("Compression level must be between 0 and 9: " + compressionLevel);
+        }
+        if (filter == null) {
+            throw new IllegalArgumentException("Filter must not be null");
+        }
+    }
+}
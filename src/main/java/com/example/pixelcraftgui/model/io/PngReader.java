@@ -0,0 +1,366 @@
+package com.example.pixelcraftgui.model.io;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads non-interlaced PNG images as ARGB rows, from top to bottom.
+ *
+ * Rows are inflated and unfiltered as they are read, so the decoder never holds more than
+ * two rows besides the inflate buffers, and images far larger than the heap can be read
+ * band by band. All bit depths and color types are supported; 16-bit channels are
+ * reduced to their high byte, and transparency from a {@code tRNS} chunk becomes alpha.
+ * Interlaced images cannot be read row by row and are rejected.
+ */
+public class PngReader implements RowSource {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    private final DataInputStream in;
+    private final int width;
+    private final int height;
+    private final int bitDepth;
+    private final int colorType;
+    private final int channels;
+    private final int bytesPerPixel;
+    private int[] palette;
+    private byte[] transparency;
+    private final Inflater inflater = new Inflater();
+    private final DataInputStream data;
+
+    // Raw bytes of the current and previous row
+    private byte[] row;
+    private byte[] previous;
+    private int rowsRead;
+
+    // The chunk being read: its type and the data bytes left in it
+    private String chunkType;
+    private int chunkRemaining;
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Starts reading an image by reading the chunks before its pixel data.
+     * @param in the stream to read from; closed by {@link #close()}
+     * @throws IOException if the stream is not a PNG image this reader supports
+     */
+    public PngReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        byte[] signature = new byte[SIGNATURE.length];
+        this.in.readFully(signature);
+        if (!Arrays.equals(signature, SIGNATURE)) {
+            throw new IOException("Not a PNG image");
+        }
+
+        nextChunk();
+        if (!"IHDR".equals(chunkType) || chunkRemaining != 13) {
+            throw new IOException("PNG image does not start with a header");
+        }
+        byte[] header = readChunkData();
+        this.width = getInt(header, 0);
+        this.height = getInt(header, 4);
+        this.bitDepth = header[8];
+        this.colorType = header[9];
+        if (width < 1 || height < 1) {
+            throw new IOException("Invalid PNG size: " + width + "x" + height);
+        }
+        if (header[10] != 0 || header[11] != 0) {
+            throw new IOException("Unknown PNG compression or filter method");
+        }
+        if (header[12] != 0) {
+            throw new IOException("Interlaced PNG images cannot be read row by row");
+        }
+        this.channels = switch (colorType) {
+            case 0, 3 -> 1;
+            case 2 -> 3;
+            case 4 -> 2;
+            case 6 -> 4;
+            default -> throw new IOException("Unknown PNG color type: " + colorType);
+        };
+        if (Integer.bitCount(bitDepth) != 1 || bitDepth > 16 || channels > 1 && bitDepth < 8
+                || colorType == 3 && bitDepth == 16) {
+            throw new IOException("Invalid PNG bit depth " + bitDepth + " for color type " + colorType);
+        }
+        this.bytesPerPixel = Math.max(1, channels * bitDepth / 8);
+        int rowBytes = Math.toIntExact(((long) width * channels * bitDepth + 7) / 8);
+        this.row = new byte[rowBytes];
+        this.previous = new byte[rowBytes];
+
+        // Read the chunks up to the first IDAT, then stream the image data
+        for (nextChunk(); !"IDAT".equals(chunkType); nextChunk()) {
+            switch (chunkType) {
+                case "PLTE" -> palette = readPalette(readChunkData());
+                case "tRNS" -> transparency = readChunkData();
+                case "IEND" -> throw new IOException("PNG image has no image data");
+                default -> readChunkData();
+            }
+        }
+        if (colorType == 3) {
+            if (palette == null) {
+                throw new IOException("Palette PNG image without a palette");
+            }
+            applyPaletteAlpha();
+        }
+        this.data = new DataInputStream(new InflaterInputStream(new IdatStream(), inflater, 1 << 16));
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean hasAlpha() {
+        return colorType == 4 || colorType == 6 || transparency != null;
+    }
+
+    @Override
+    public void readRows(int[] pixels, int offset, int stride, int rows) throws IOException {
+        if (rowsRead + rows > height) {
+            throw new IllegalStateException("Image has only " + height + " rows");
+        }
+        for (int r = 0; r < rows; r++) {
+            int filter = data.readUnsignedByte();
+            data.readFully(row);
+            unfilter(filter);
+            toArgb(pixels, offset + r * stride);
+            byte[] swap = previous;
+            previous = row;
+            row = swap;
+            rowsRead++;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            in.close();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private void unfilter(int type) throws IOException {
+        byte[] cur = row;
+        byte[] up = previous; // all zeros before the first row
+        int bpp = bytesPerPixel;
+        int length = cur.length;
+        switch (type) {
+            case 0 -> { }
+            case 1 -> {
+                for (int i = bpp; i < length; i++) {
+                    cur[i] += cur[i - bpp];
+                }
+            }
+            case 2 -> {
+                for (int i = 0; i < length; i++) {
+                    cur[i] += up[i];
+                }
+            }
+            case 3 -> {
+                for (int i = 0; i < length; i++) {
+                    int left = i >= bpp ? cur[i - bpp] & 0xff : 0;
+                    cur[i] += (byte) ((left + (up[i] & 0xff)) >> 1);
+                }
+            }
+            case 4 -> {
+                for (int i = 0; i < length; i++) {
+                    int left = i >= bpp ? cur[i - bpp] & 0xff : 0;
+                    int upperLeft = i >= bpp ? up[i - bpp] & 0xff : 0;
+                    cur[i] += (byte) paeth(left, up[i] & 0xff, upperLeft);
+                }
+            }
+            default -> throw new IOException("Unknown PNG row filter: " + type);
+        }
+    }
+
+    private static int paeth(int left, int up, int upperLeft) {
+        int estimate = left + up - upperLeft;
+        int distanceLeft = Math.abs(estimate - left);
+        int distanceUp = Math.abs(estimate - up);
+        int distanceUpperLeft = Math.abs(estimate - upperLeft);
+        if (distanceLeft <= distanceUp && distanceLeft <= distanceUpperLeft) {
+            return left;
+        }
+        return distanceUp <= distanceUpperLeft ? up : upperLeft;
+    }
+
+    /**
+     * Converts the current row to packed ARGB pixels.
+     */
+    private void toArgb(int[] pixels, int offset) {
+        byte[] bytes = row;
+        // Distance between the high bytes of two samples
+        int step = bitDepth / 8;
+        switch (colorType) {
+            case 2, 6 -> {
+                int key = colorType == 2 ? colorKey() : -1;
+                for (int x = 0, i = 0; x < width; x++) {
+                    int r = bytes[i] & 0xff;
+                    int g = bytes[i + step] & 0xff;
+                    int b = bytes[i + 2 * step] & 0xff;
+                    int a = colorType == 6 ? bytes[i + 3 * step] & 0xff : 0xff;
+                    int rgb = r << 16 | g << 8 | b;
+                    if (rgb == key) {
+                        a = 0;
+                    }
+                    pixels[offset + x] = a << 24 | rgb;
+                    i += bytesPerPixel;
+                }
+            }
+            case 4 -> {
+                for (int x = 0, i = 0; x < width; x++, i += bytesPerPixel) {
+                    int v = bytes[i] & 0xff;
+                    pixels[offset + x] = (bytes[i + step] & 0xff) << 24 | v << 16 | v << 8 | v;
+                }
+            }
+            default -> {
+                // Grayscale or palette, possibly several pixels per byte
+                int key = colorType == 0 ? colorKey() : -1;
+                int max = (1 << Math.min(bitDepth, 8)) - 1;
+                for (int x = 0; x < width; x++) {
+                    int sample = sample(bytes, x);
+                    if (colorType == 3) {
+                        pixels[offset + x] = sample < palette.length ? palette[sample] : 0xff000000;
+                    } else {
+                        int v = sample * 255 / max;
+                        pixels[offset + x] = (sample == key ? 0 : 0xff000000) | v << 16 | v << 8 | v;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the sample of a single-channel pixel, reduced to 8 bits for 16-bit images.
+     */
+    private int sample(byte[] bytes, int x) {
+        if (bitDepth >= 8) {
+            return bytes[x * (bitDepth / 8)] & 0xff;
+        }
+        int bit = x * bitDepth;
+        int shift = 8 - bitDepth - (bit & 7);
+        return (bytes[bit >> 3] >> shift) & ((1 << bitDepth) - 1);
+    }
+
+    /**
+     * Gets the transparent color of a grayscale or RGB image, in the form the samples are
+     * compared in, or -1 if there is none.
+     */
+    private int colorKey() {
+        if (transparency == null) {
+            return -1;
+        }
+        // Keys are 16-bit values; only the byte a sample is reduced to is compared
+        if (colorType == 0) {
+            int gray = (transparency[0] & 0xff) << 8 | transparency[1] & 0xff;
+            return bitDepth == 16 ? gray >> 8 : gray;
+        }
+        int shift = bitDepth == 16 ? 8 : 0;
+        int r = ((transparency[0] & 0xff) << 8 | transparency[1] & 0xff) >> shift;
+        int g = ((transparency[2] & 0xff) << 8 | transparency[3] & 0xff) >> shift;
+        int b = ((transparency[4] & 0xff) << 8 | transparency[5] & 0xff) >> shift;
+        return r << 16 | g << 8 | b;
+    }
+
+    private static int[] readPalette(byte[] bytes) {
+        int[] colors = new int[bytes.length / 3];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = 0xff000000 | (bytes[3 * i] & 0xff) << 16 | (bytes[3 * i + 1] & 0xff) << 8 | bytes[3 * i + 2] & 0xff;
+        }
+        return colors;
+    }
+
+    /**
+     * Applies the palette alpha values of a {@code tRNS} chunk once all chunks before the data are read.
+     */
+    private void applyPaletteAlpha() {
+        if (transparency != null) {
+            for (int i = 0; i < Math.min(transparency.length, palette.length); i++) {
+                palette[i] = (transparency[i] & 0xff) << 24 | palette[i] & 0xffffff;
+            }
+        }
+    }
+
+    /**
+     * Reads the length and type of the next chunk.
+     */
+    private void nextChunk() throws IOException {
+        chunkRemaining = in.readInt();
+        if (chunkRemaining < 0) {
+            throw new IOException("Invalid PNG chunk length");
+        }
+        byte[] type = new byte[4];
+        in.readFully(type);
+        chunkType = new String(type, StandardCharsets.US_ASCII);
+        crc.reset();
+        crc.update(type);
+    }
+
+    /**
+     * Reads the rest of the current chunk and checks its CRC.
+     */
+    private byte[] readChunkData() throws IOException {
+        byte[] bytes = new byte[chunkRemaining];
+        in.readFully(bytes);
+        crc.update(bytes);
+        chunkRemaining = 0;
+        checkCrc();
+        return bytes;
+    }
+
+    private void checkCrc() throws IOException {
+        if (in.readInt() != (int) crc.getValue()) {
+            throw new IOException("Corrupt PNG chunk: " + chunkType);
+        }
+    }
+
+    private static int getInt(byte[] bytes, int index) {
+        return (bytes[index] & 0xff) << 24 | (bytes[index + 1] & 0xff) << 16
+                | (bytes[index + 2] & 0xff) << 8 | bytes[index + 3] & 0xff;
+    }
+
+    /**
+     * Reads the data of consecutive IDAT chunks as one stream.
+     */
+    private class IdatStream extends InputStream {
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            while (chunkRemaining == 0) {
+                if (!"IDAT".equals(chunkType)) {
+                    return -1;
+                }
+                checkCrc();
+                nextChunk();
+                if (!"IDAT".equals(chunkType)) {
+                    throw new EOFException("PNG image data ends before the last row");
+                }
+            }
+            int n = in.read(bytes, offset, Math.min(length, chunkRemaining));
+            if (n < 0) {
+                throw new EOFException("PNG image data ends before the last row");
+            }
+            crc.update(bytes, offset, n);
+            chunkRemaining -= n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.pixelcraftgui.model.io;
+
+import com.example.pixelcraftgui.model.ImageRaster;
+import com.example.pixelcraftgui.model.engine.CancellationToken;
+import com.example.pixelcraftgui.model.engine.ProgressListener;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes 8-bit PNG images straight from ARGB rows.
+ *
+ * Rows are converted, filtered and deflated as they are written, so the encoder never
+ * holds more than two rows besides the deflate buffers, and images can be written
+ * band by band as they are produced. Images that are fully opaque are stored as
+ * RGB instead of RGBA, which saves a quarter of the data before compression.
+ */
+public class PngWriter implements Closeable {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final int IDAT_SIZE = 1 << 16;
+
+    /** Rows written between progress reports and cancellation checks in {@link #write}. */
+    private static final int ROWS_PER_STEP = 64;
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final int bytesPerPixel;
+    private final PngFilter filter;
+    private final Deflater deflater;
+    private final DeflaterOutputStream idat;
+
+    // Raw bytes of the current and previous row, and one filtered row per filter type
+    private byte[] row;
+    private byte[] previous;
+    private final byte[][] filtered = new byte[5][];
+    private int rowsWritten;
+
+    /**
+     * Starts an image by writing the PNG header.
+     * @param out the stream to write to; closed by {@link #close()}
+     * @param width the image width
+     * @param height the image height
+     * @param alpha true to store the alpha channel, false to store an opaque RGB image
+     * @param options the compression level and row filter
+     * @throws IOException if the header cannot be written
+     */
+    public PngWriter(OutputStream out, int width, int height, boolean alpha, PngOptions options) throws IOException {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("PNG images must be at least 1x1, got " + width + "x" + height);
+        }
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.bytesPerPixel = alpha ? 4 : 3;
+        this.filter = options.filter();
+        this.row = new byte[width * bytesPerPixel];
+        this.previous = new byte[width * bytesPerPixel];
+        for (int type = 0; type < filtered.length; type++) {
+            filtered[type] = new byte[1 + width * bytesPerPixel];
+            filtered[type][0] = (byte) type;
+        }
+
+        this.out.write(SIGNATURE);
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8;                  // bits per channel
+        header[9] = (byte) (alpha ? 6 : 2); // RGBA or RGB
+        writeChunk("IHDR", header, header.length);
+
+        this.deflater = new Deflater(options.compressionLevel());
+        this.idat = new DeflaterOutputStream(new IdatStream(), deflater, IDAT_SIZE);
+    }
+
+    /**
+     * Writes a whole raster.
+     * @param raster the pixels
+     * @param out the stream to write to; not closed
+     * @param options the compression level and row filter
+     * @param token checked every few rows; once cancelled the image is left incomplete
+     * @param listener notified with the number of rows written
+     * @throws IOException if the stream cannot be written
+     * @throws java.util.concurrent.CancellationException if the token was cancelled
+     */
+    public static void write(ImageRaster raster, OutputStream out, PngOptions options,
+                             CancellationToken token, ProgressListener listener) throws IOException {
+        int height = raster.getHeight();
+        PngWriter writer = new PngWriter(new NonClosingStream(out), raster.getWidth(), height, hasAlpha(raster), options);
+        try (writer) {
+            for (int y = 0; y < height; y += ROWS_PER_STEP) {
+                token.throwIfCancelled();
+                int rows = Math.min(ROWS_PER_STEP, height - y);
+                writer.writeRows(raster.getPixels(), raster.index(0, y), raster.getStride(), rows);
+                listener.progress(y + rows, height);
+            }
+        }
+    }
+
+    /**
+     * @param raster the pixels to check
+     * @return true if any pixel is not fully opaque
+     */
+    public static boolean hasAlpha(ImageRaster raster) {
+        int[] pixels = raster.getPixels();
+        for (int y = 0; y < raster.getHeight(); y++) {
+            for (int i = raster.index(0, y), end = i + raster.getWidth(); i < end; i++) {
+                if (pixels[i] >>> 24 != 0xff) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the next rows of the image.
+     * @param pixels the packed ARGB pixels
+     * @param offset the array index of the first pixel of the first row
+     * @param stride the distance in the array between two rows
+     * @param rows the number of rows to write
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeRows(int[] pixels, int offset, int stride, int rows) throws IOException {
+        if (rowsWritten + rows > height) {
+            throw new IllegalStateException("Image has only " + height + " rows");
+        }
+        for (int r = 0; r < rows; r++) {
+            toBytes(pixels, offset + r * stride);
+            byte[] line = filterRow();
+            idat.write(line, 0, line.length);
+            byte[] swap = previous;
+            previous = row;
+            row = swap;
+            rowsWritten++;
+        }
+    }
+
+    /**
+     * Finishes the image data and writes the end of the file.
+     * @throws IOException if the stream cannot be written
+     * @throws IllegalStateException if not all rows were written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rowsWritten != height) {
+                throw new IllegalStateException("Only " + rowsWritten + " of " + height + " rows were written");
+            }
+            idat.finish();
+            idat.flush();
+            writeChunk("IEND", new byte[0], 0);
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    private void toBytes(int[] pixels, int offset) {
+        byte[] bytes = row;
+        if (bytesPerPixel == 4) {
+            for (int x = 0, i = 0; x < width; x++, i += 4) {
+                int pixel = pixels[offset + x];
+                bytes[i] = (byte) (pixel >> 16);
+                bytes[i + 1] = (byte) (pixel >> 8);
+                bytes[i + 2] = (byte) pixel;
+                bytes[i + 3] = (byte) (pixel >>> 24);
+            }
+        } else {
+            for (int x = 0, i = 0; x < width; x++, i += 3) {
+                int pixel = pixels[offset + x];
+                bytes[i] = (byte) (pixel >> 16);
+                bytes[i + 1] = (byte) (pixel >> 8);
+                bytes[i + 2] = (byte) pixel;
+            }
+        }
+    }
+
+    /**
+     * Filters the current row against the previous one.
+     * @return the filter type byte followed by the filtered row
+     */
+    private byte[] filterRow() {
+        if (filter != PngFilter.ADAPTIVE) {
+            applyFilter(filter.getType());
+            return filtered[filter.getType()];
+        }
+        int best = 0;
+        long bestScore = Long.MAX_VALUE;
+        for (int type = 0; type < filtered.length; type++) {
+            applyFilter(type);
+            long score = score(filtered[type]);
+            if (score < bestScore) {
+                best = type;
+                bestScore = score;
+            }
+        }
+        return filtered[best];
+    }
+
+    /**
+     * The usual heuristic: the sum of the filtered bytes taken as signed values, so rows
+     * that are mostly small differences (near 0 or near 256) score low.
+     */
+    private static long score(byte[] line) {
+        long sum = 0;
+        for (int i = 1; i < line.length; i++) {
+            sum += Math.abs(line[i]);
+        }
+        return sum;
+    }
+
+    private void applyFilter(int type) {
+        byte[] cur = row;
+        byte[] up = previous; // all zeros before the first row, as the format requires
+        byte[] dst = filtered[type];
+        int bpp = bytesPerPixel;
+        int length = cur.length;
+        switch (type) {
+            case 0 -> System.arraycopy(cur, 0, dst, 1, length);
+            case 1 -> {
+                System.arraycopy(cur, 0, dst, 1, bpp);
+                for (int i = bpp; i < length; i++) {
+                    dst[i + 1] = (byte) (cur[i] - cur[i - bpp]);
+                }
+            }
+            case 2 -> {
+                for (int i = 0; i < length; i++) {
+                    dst[i + 1] = (byte) (cur[i] - up[i]);
+                }
+            }
+            case 3 -> {
+                for (int i = 0; i < length; i++) {
+                    int left = i >= bpp ? cur[i - bpp] & 0xff : 0;
+                    dst[i + 1] = (byte) (cur[i] - ((left + (up[i] & 0xff)) >> 1));
+                }
+            }
+            default -> {
+                for (int i = 0; i < length; i++) {
+                    int left = i >= bpp ? cur[i - bpp] & 0xff : 0;
+                    int upperLeft = i >= bpp ? up[i - bpp] & 0xff : 0;
+                    dst[i + 1] = (byte) (cur[i] - paeth(left, up[i] & 0xff, upperLeft));
+                }
+            }
+        }
+    }
+
+    private static int paeth(int left, int up, int upperLeft) {
+        int estimate = left + up - upperLeft;
+        int distanceLeft = Math.abs(estimate - left);
+        int distanceUp = Math.abs(estimate - up);
+        int distanceUpperLeft = Math.abs(estimate - upperLeft);
+        if (distanceLeft <= distanceUp && distanceLeft <= distanceUpperLeft) {
+            return left;
+        }
+        return distanceUp <= distanceUpperLeft ? up : upperLeft;
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void putInt(byte[] bytes, int index, int value) {
+        bytes[index] = (byte) (value >>> 24);
+        bytes[index + 1] = (byte) (value >>> 16);
+        bytes[index + 2] = (byte) (value >>> 8);
+        bytes[index + 3] = (byte) value;
+    }
+
+    /**
+     * Collects compressed bytes and writes them out as IDAT chunks.
+     */
+    private class IdatStream extends OutputStream {
+
+        private final byte[] buffer = new byte[IDAT_SIZE];
+        private int count;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                int n = Math.min(length, buffer.length - count);
+                System.arraycopy(bytes, offset, buffer, count, n);
+                count += n;
+                offset += n;
+                length -= n;
+                if (count == buffer.length) {
+                    flush();
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (count > 0) {
+                writeChunk("IDAT", buffer, count);
+                count = 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    /**
+     * Keeps {@link #write} from closing the caller's stream.
+     */
+    private static class NonClosingStream extends FilterOutputStream {
+
+        NonClosingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.pixelcraftgui.model.io;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reads an image file as ARGB rows, from top to bottom, without decoding the whole image at once.
+ */
+public interface RowSource extends Closeable {
+
+    int getWidth();
+
+    int getHeight();
+
+    /**
+     * @return true if the image may hold pixels that are not fully opaque
+     */
+    boolean hasAlpha();
+
+    /**
+     * Reads the next rows of the image.
+     * @param pixels receives the packed ARGB pixels
+     * @param offset the array index of the first pixel of the first row
+     * @param stride the distance in the array between two rows
+     * @param rows the number of rows to read
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    void readRows(int[] pixels, int offset, int stride, int rows) throws IOException;
+
+    /**
+     * Opens an image file. Non-interlaced PNG files are decoded row by row as they are
+     * read; other formats are decoded one region of rows at a time through ImageIO.
+     * @param file the image file
+     * @return a source positioned before the first row
+     * @throws IOException if the file cannot be read or no reader supports it
+     */
+    static RowSource open(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+        try {
+            in.mark(32);
+            byte[] start = in.readNBytes(29);
+            in.reset();
+            // Byte 28 of a PNG file is the interlace method of its header
+            boolean png = start.length == 29 && Arrays.equals(start, 0, 4, new byte[]{(byte) 0x89, 'P', 'N', 'G'}, 0, 4);
+            if (png && start[28] == 0) {
+                return new PngReader(in);
+            }
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+        in.close();
+        return new ImageIoRowSource(file);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.pixelcraftgui.model.io;
+
+import com.example.pixelcraftgui.model.Footprint;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import com.example.pixelcraftgui.model.PointConverter;
+import com.example.pixelcraftgui.model.blur.MotionBlur;
+import com.example.pixelcraftgui.model.convolution.BorderMode;
+import com.example.pixelcraftgui.model.convolution.ConvolutionConverter;
+import com.example.pixelcraftgui.model.engine.CancellationToken;
+import com.example.pixelcraftgui.model.engine.ProgressListener;
+import com.example.pixelcraftgui.model.engine.TileExecutor;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Applies a converter to an image file and writes the result as PNG, one strip of rows
+ * at a time, for images too large to hold in memory.
+ *
+ * Each strip is read together with a halo: the rows above and below it that the
+ * converter's passes read, which for a chain of neighborhood passes is the sum of their
+ * radii. The passes run on the strip and its halo, and only the strip rows, which see the
+ * same neighborhoods as in a whole-image conversion, are encoded. The halo rows of one
+ * strip are kept for the next, so every source row is decoded once and memory use
+ * depends on the strip size and the halo, not on the image size.
+ *
+ * Geometric converters may read any row and cannot be applied this way; nor can
+ * convolutions that wrap around the top and bottom edges. Every other converter gives the
+ * same pixels as a whole-image conversion.
+ */
+public class StreamingProcessor {
+
+    /** Output pixels per strip when no strip height is given: 16 MB of ARGB pixels. */
+    private static final int DEFAULT_STRIP_PIXELS = 1 << 22;
+
+    private final TileExecutor tileExecutor;
+    private final int stripRows;
+
+    /**
+     * Creates a processor with strips of about four million pixels.
+     * @param tileExecutor converts each strip in parallel
+     */
+    public StreamingProcessor(TileExecutor tileExecutor) {
+        this(tileExecutor, 0);
+    }
+
+    /**
+     * @param tileExecutor converts each strip in parallel
+     * @param stripRows the rows per strip, or 0 to choose from the image width
+     */
+    public StreamingProcessor(TileExecutor tileExecutor, int stripRows) {
+        if (stripRows < 0) {
+            throw new IllegalArgumentException("Strip rows must not be negative: " + stripRows);
+        }
+        this.tileExecutor = tileExecutor;
+        this.stripRows = stripRows;
+    }
+
+    /**
+     * Checks whether a converter can be applied strip by strip.
+     * @param converter the converter
+     * @return true if none of its passes needs rows beyond a fixed distance
+     */
+    public static boolean canStream(ImageConverter converter) {
+        for (ImageConverter pass : converter.getPasses()) {
+            if (pass.getFootprint().getKind() == Footprint.Kind.GEOMETRIC
+                    || pass instanceof ConvolutionConverter convolution && convolution.getBorderMode() == BorderMode.WRAP) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converts an image file. The output is written under a temporary name and moved
+     * into place once complete, so a cancelled or failed conversion leaves any existing
+     * file untouched. Converters are expected to keep opaque images opaque: the output is
+     * stored with an alpha channel only if the source has one.
+     * @param converter the converter to apply
+     * @param source the image file to read
+     * @param target the PNG file to write
+     * @param options the compression of the output
+     * @param token checked before each strip
+     * @param listener notified with the number of rows written
+     * @throws IOException if the source cannot be read or the target written
+     * @throws IllegalArgumentException if the converter cannot be applied strip by strip
+     * @throws java.util.concurrent.CancellationException if the token was cancelled
+     */
+    public void process(ImageConverter converter, Path source, Path target, PngOptions options,
+                        CancellationToken token, ProgressListener listener) throws IOException {
+        if (!canStream(converter)) {
+            throw new IllegalArgumentException(converter.getName() + " needs the whole image and cannot be applied strip by strip");
+        }
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        try (RowSource input = RowSource.open(source);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial), 1 << 16)) {
+            PngWriter writer = new PngWriter(out, input.getWidth(), input.getHeight(), input.hasAlpha(), options);
+            try (writer) {
+                convert(converter.getPasses(), input, writer, token, listener);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void convert(List<ImageConverter> passes, RowSource input, PngWriter writer,
+                         CancellationToken token, ProgressListener listener) throws IOException {
+        int width = input.getWidth();
+        int height = input.getHeight();
+        int halo = 0;
+        for (ImageConverter pass : passes) {
+            halo += pass.getFootprint().getRadius();
+        }
+        int rows = stripRows > 0 ? stripRows : Math.max(1, DEFAULT_STRIP_PIXELS / width);
+        rows = Math.min(rows, height);
+
+        // Source rows [windowStart, windowEnd) are held at the start of the window
+        int[] window = new int[Math.multiplyExact(width, Math.min(height, rows + 2 * halo))];
+        int windowStart = 0;
+        int windowEnd = 0;
+        for (int startRow = 0; startRow < height; startRow += rows) {
+            token.throwIfCancelled();
+            int endRow = Math.min(startRow + rows, height);
+            int first = Math.max(0, startRow - halo);
+            int last = Math.min(height, endRow + halo);
+
+            // Keep the rows shared with the previous strip and read the new ones
+            System.arraycopy(window, (first - windowStart) * width, window, 0, (windowEnd - first) * width);
+            windowStart = first;
+            input.readRows(window, (windowEnd - first) * width, width, last - windowEnd);
+            windowEnd = last;
+
+            ImageRaster strip = new ImageRaster(width, last - first, window);
+            for (ImageConverter pass : passes) {
+                strip = convertPass(pass, strip, first, height);
+            }
+            writer.writeRows(strip.getPixels(), (startRow - first) * width, width, endRow - startRow);
+            listener.progress(endRow, height);
+        }
+    }
+
+    /**
+     * Runs one pass on a strip. Point converters may depend on the pixel position, and
+     * motion blurs trace their lines from an edge of the image, so both are given the
+     * rows' position in the whole image.
+     */
+    private ImageRaster convertPass(ImageConverter pass, ImageRaster strip, int firstRow, int imageHeight) {
+        if (pass instanceof PointConverter point) {
+            int width = strip.getWidth();
+            ImageRaster output = new ImageRaster(width, strip.getHeight());
+            for (int y = 0; y < strip.getHeight(); y++) {
+                point.convertRun(strip.getPixels(), output.getPixels(), y * width, width, 0, firstRow + y);
+            }
+            return output;
+        }
+        if (pass instanceof MotionBlur blur) {
+            return tileExecutor.execute(blur.inStrip(firstRow, imageHeight), strip);
+        }
+        return tileExecutor.execute(pass, strip);
+    }
+}
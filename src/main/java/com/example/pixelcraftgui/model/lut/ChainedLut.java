@@ -0,0 +1,54 @@
+package com.example.pixelcraftgui.model.lut;
+
+import java.util.Arrays;
+
+/**
+ * Applies tables that could not be merged into one, in order.
+ * Used when a cross-channel table follows a per-channel one.
+ */
+final class ChainedLut implements ColorLut {
+
+    private final ColorLut[] luts;
+
+    ChainedLut(ColorLut first, ColorLut next) {
+        this(first instanceof ChainedLut chained ? append(chained.luts, next) : new ColorLut[]{first, next});
+    }
+
+    private ChainedLut(ColorLut[] luts) {
+        this.luts = luts;
+    }
+
+    private static ColorLut[] append(ColorLut[] luts, ColorLut next) {
+        ColorLut[] result = Arrays.copyOf(luts, luts.length + 1);
+        result[luts.length] = next;
+        return result;
+    }
+
+    @Override
+    public int apply(int pixel) {
+        for (ColorLut lut : luts) {
+            pixel = lut.apply(pixel);
+        }
+        return pixel;
+    }
+
+    @Override
+    public void apply(int[] src, int[] dst, int offset, int length) {
+        luts[0].apply(src, dst, offset, length);
+        for (int i = 1; i < luts.length; i++) {
+            luts[i].apply(dst, dst, offset, length);
+        }
+    }
+
+    @Override
+    public ColorLut andThen(ColorLut next) {
+        // Merge into the last table when possible instead of growing the chain
+        ColorLut merged = luts[luts.length - 1].andThen(next);
+        if (merged instanceof ChainedLut) {
+            return new ChainedLut(append(luts, next));
+        }
+        ColorLut[] result = luts.clone();
+        result[luts.length - 1] = merged;
+        return new ChainedLut(result);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.pixelcraftgui.model.lut;
+
+import com.example.pixelcraftgui.helper.ARGB;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A lookup table that transforms each ARGB channel independently with a 256-entry table.
+ * The tables hold values already shifted into their channel position, so a pixel is
+ * transformed with four loads and three ORs.
+ */
+public final class ChannelLut implements ColorLut {
+
+    private static final ChannelLut IDENTITY = of(v -> v, v -> v, v -> v, v -> v);
+
+    private final int[] alpha;
+    private final int[] red;
+    private final int[] green;
+    private final int[] blue;
+
+    private ChannelLut(int[] alpha, int[] red, int[] green, int[] blue) {
+        this.alpha = alpha;
+        this.red = red;
+        this.green = green;
+        this.blue = blue;
+    }
+
+    /**
+     * Compiles a table from one function per channel. Results are clamped to 0-255.
+     * @param alpha maps an input alpha value to the output alpha value
+     * @param red maps an input red value to the output red value
+     * @param green maps an input green value to the output green value
+     * @param blue maps an input blue value to the output blue value
+     * @return the compiled table
+     */
+    public static ChannelLut of(IntUnaryOperator alpha, IntUnaryOperator red,
+                                IntUnaryOperator green, IntUnaryOperator blue) {
+        return new ChannelLut(table(alpha, 24), table(red, 16), table(green, 8), table(blue, 0));
+    }
+
+    /**
+     * Compiles a table that applies the same function to red, green and blue.
+     * @param alpha maps an input alpha value to the output alpha value
+     * @param color maps an input color value to the output color value
+     * @return the compiled table
+     */
+    public static ChannelLut of(IntUnaryOperator alpha, IntUnaryOperator color) {
+        return of(alpha, color, color, color);
+    }
+
+    /**
+     * @return a table that leaves every pixel unchanged
+     */
+    public static ChannelLut identity() {
+        return IDENTITY;
+    }
+
+    private static int[] table(IntUnaryOperator function, int shift) {
+        int[] table = new int[256];
+        for (int v = 0; v < 256; v++) {
+            table[v] = ARGB.clamp(function.applyAsInt(v)) << shift;
+        }
+        return table;
+    }
+
+    int alphaBits(int value) {
+        return alpha[value];
+    }
+
+    int alpha(int value) {
+        return alpha[value] >>> 24;
+    }
+
+    int red(int value) {
+        return red[value] >>> 16;
+    }
+
+    int green(int value) {
+        return green[value] >>> 8;
+    }
+
+    int blue(int value) {
+        return blue[value];
+    }
+
+    @Override
+    public int apply(int pixel) {
+        return alpha[pixel >>> 24] | red[(pixel >> 16) & 0xff] | green[(pixel >> 8) & 0xff] | blue[pixel & 0xff];
+    }
+
+    @Override
+    public void apply(int[] src, int[] dst, int offset, int length) {
+        int[] alpha = this.alpha, red = this.red, green = this.green, blue = this.blue;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int pixel = src[i];
+            dst[i] = alpha[pixel >>> 24] | red[(pixel >> 16) & 0xff] | green[(pixel >> 8) & 0xff] | blue[pixel & 0xff];
+        }
+    }
+
+    @Override
+    public ColorLut andThen(ColorLut next) {
+        if (next instanceof ChannelLut n) {
+            // Per-channel tables compose channel by channel
+            return of(v -> n.alpha(alpha(v)), v -> n.red(red(v)), v -> n.green(green(v)), v -> n.blue(blue(v)));
+        }
+        return ColorLut.super.andThen(next);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.pixelcraftgui.model.lut;
+
+/**
+ * A precompiled point-wise color transform.
+ * Lookup tables are built once when a converter is created, so applying them costs a
+ * few table loads per pixel instead of re-evaluating the converter's arithmetic.
+ * Tables compose: a chain of color effects can often be collapsed into a single table.
+ */
+public interface ColorLut {
+
+    /**
+     * Transforms one pixel.
+     * @param pixel the packed ARGB input pixel
+     * @return the packed ARGB output pixel
+     */
+    int apply(int pixel);
+
+    /**
+     * Transforms a run of pixels. {@code src} and {@code dst} may be the same array.
+     * @param src the input pixels
+     * @param dst the output pixels
+     * @param offset the array index of the first pixel, in both arrays
+     * @param length the number of pixels
+     */
+    void apply(int[] src, int[] dst, int offset, int length);
+
+    /**
+     * Composes this table with another one applied after it.
+     * @param next the table to apply to the output of this one
+     * @return a table equivalent to applying this table and then {@code next}
+     */
+    default ColorLut andThen(ColorLut next) {
+        return new ChainedLut(this, next);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.pixelcraftgui.model.lut;
+
+import com.example.pixelcraftgui.model.PointConverter;
+
+/**
+ * A point converter that applies a compiled color table.
+ * Effects whose arithmetic is expensive per pixel extend it to run on their table,
+ * and pipelines use it to run a chain of table-based effects as one table.
+ */
+public class LutConverter implements PointConverter {
+
+    private final String name;
+    private final ColorLut lut;
+
+    /**
+     * @param name the converter name
+     * @param lut the table to apply
+     */
+    public LutConverter(String name, ColorLut lut) {
+        this.name = name;
+        this.lut = lut;
+    }
+
+    @Override
+    public int convertPixel(int pixel, int x, int y) {
+        return lut.apply(pixel);
+    }
+
+    @Override
+    public void convertRun(int[] src, int[] dst, int offset, int length, int x, int y) {
+        lut.apply(src, dst, offset, length);
+    }
+
+    @Override
+    public ColorLut toLut() {
+        return lut;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
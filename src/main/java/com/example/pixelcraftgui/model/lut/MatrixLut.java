@@ -0,0 +1,141 @@
+package com.example.pixelcraftgui.model.lut;
+
+import com.example.pixelcraftgui.helper.ARGB;
+
+/**
+ * A cross-channel color transform: a 3x3 matrix over red, green and blue in 16.16 fixed point,
+ * followed by per-channel tables. Covers effects such as grayscale and sepia where each output
+ * channel mixes all input channels. Alpha is passed through the per-channel table only.
+ *
+ * Output channel c is {@code post_c[clamp((w[c][0] * r + w[c][1] * g + w[c][2] * b) >> 16)]}.
+ */
+public final class MatrixLut implements ColorLut {
+
+    /** Number of fractional bits in the matrix weights. */
+    public static final int SHIFT = 16;
+
+    private final int[] weights;
+    private final ChannelLut post;
+    /*
+     * When all nine weights are equal (an unweighted average, as in grayscale) the output only
+     * depends on r + g + b, so the matrix and the post tables are compiled into one table
+     * indexed by that sum. Null for other matrices.
+     */
+    private final int[] sumTable;
+
+    private MatrixLut(int[] weights, ChannelLut post) {
+        this.weights = weights;
+        this.post = post;
+        this.sumTable = isUniform(weights) ? sumTable(weights[0], post) : null;
+    }
+
+    private static boolean isUniform(int[] weights) {
+        for (int weight : weights) {
+            if (weight != weights[0]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] sumTable(int weight, ChannelLut post) {
+        int[] table = new int[3 * 255 + 1];
+        for (int sum = 0; sum < table.length; sum++) {
+            int value = ARGB.clamp((weight * sum) >> SHIFT);
+            table[sum] = ARGB.pack(0, post.red(value), post.green(value), post.blue(value));
+        }
+        return table;
+    }
+
+    /**
+     * Compiles a matrix transform from fixed-point weights.
+     * @param weights the nine weights in row-major order (red row, green row, blue row), scaled by 2^16
+     * @param post the table applied to the clamped matrix output and to the input alpha
+     * @return the compiled transform
+     */
+    public static MatrixLut ofFixed(int[] weights, ChannelLut post) {
+        if (weights.length != 9) {
+            throw new IllegalArgumentException("A color matrix needs 9 weights, got " + weights.length);
+        }
+        return new MatrixLut(weights.clone(), post);
+    }
+
+    /**
+     * Compiles a matrix transform, rounding the weights to 16.16 fixed point.
+     * @param matrix the 3x3 matrix, rows are the red, green and blue outputs
+     * @param post the table applied to the clamped matrix output and to the input alpha
+     * @return the compiled transform
+     */
+    public static MatrixLut of(double[][] matrix, ChannelLut post) {
+        int[] weights = new int[9];
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 3; col++) {
+                weights[row * 3 + col] = (int) Math.round(matrix[row][col] * (1 << SHIFT));
+            }
+        }
+        return new MatrixLut(weights, post);
+    }
+
+    /**
+     * Gets the fixed-point weights.
+     * @return a copy of the nine weights in row-major order
+     */
+    public int[] getWeights() {
+        return weights.clone();
+    }
+
+    public ChannelLut getPost() {
+        return post;
+    }
+
+    @Override
+    public int apply(int pixel) {
+        int[] w = weights;
+        int r = ARGB.red(pixel);
+        int g = ARGB.green(pixel);
+        int b = ARGB.blue(pixel);
+        if (sumTable != null) {
+            return post.alphaBits(ARGB.alpha(pixel)) | sumTable[r + g + b];
+        }
+        int outR = ARGB.clamp((w[0] * r + w[1] * g + w[2] * b) >> SHIFT);
+        int outG = ARGB.clamp((w[3] * r + w[4] * g + w[5] * b) >> SHIFT);
+        int outB = ARGB.clamp((w[6] * r + w[7] * g + w[8] * b) >> SHIFT);
+        return post.apply(ARGB.pack(ARGB.alpha(pixel), outR, outG, outB));
+    }
+
+    @Override
+    public void apply(int[] src, int[] dst, int offset, int length) {
+        ChannelLut post = this.post;
+        int end = offset + length;
+        if (sumTable != null) {
+            int[] table = sumTable;
+            for (int i = offset; i < end; i++) {
+                int pixel = src[i];
+                dst[i] = post.alphaBits(ARGB.alpha(pixel)) | table[ARGB.red(pixel) + ARGB.green(pixel) + ARGB.blue(pixel)];
+            }
+            return;
+        }
+        int[] w = weights;
+        int w0 = w[0], w1 = w[1], w2 = w[2];
+        int w3 = w[3], w4 = w[4], w5 = w[5], w6 = w[6], w7 = w[7], w8 = w[8];
+        for (int i = offset; i < end; i++) {
+            int pixel = src[i];
+            int r = ARGB.red(pixel);
+            int g = ARGB.green(pixel);
+            int b = ARGB.blue(pixel);
+            int outR = ARGB.clamp((w0 * r + w1 * g + w2 * b) >> SHIFT);
+            int outG = ARGB.clamp((w3 * r + w4 * g + w5 * b) >> SHIFT);
+            int outB = ARGB.clamp((w6 * r + w7 * g + w8 * b) >> SHIFT);
+            dst[i] = post.apply(ARGB.pack(ARGB.alpha(pixel), outR, outG, outB));
+        }
+    }
+
+    @Override
+    public ColorLut andThen(ColorLut next) {
+        if (next instanceof ChannelLut channels) {
+            // Per-channel tables after the matrix fold into its post tables
+            return new MatrixLut(weights, (ChannelLut) post.andThen(channels));
+        }
+        return ColorLut.super.andThen(next);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.pixelcraftgui.model.preview;
+
+import com.example.pixelcraftgui.model.FxRasterAdapter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import javafx.scene.image.Image;
+
+/**
+ * Shrinks images by an integer factor, averaging each square block of pixels into one.
+ * The source is read a few rows at a time, so shrinking a very large image never holds
+ * more than one band of it in a raster.
+ */
+public final class Downscaler {
+
+    // Rows read from the source per band, rounded up to a whole number of blocks
+    private static final int BAND_ROWS = 256;
+
+    private Downscaler() {
+    }
+
+    /**
+     * Gets the smallest factor that makes the image fit in the given bounds.
+     * @param width the image width
+     * @param height the image height
+     * @param maxWidth the largest allowed width
+     * @param maxHeight the largest allowed height
+     * @return the factor, at least 1
+     */
+    public static int factorFor(int width, int height, int maxWidth, int maxHeight) {
+        int byWidth = (width + Math.max(1, maxWidth) - 1) / Math.max(1, maxWidth);
+        int byHeight = (height + Math.max(1, maxHeight) - 1) / Math.max(1, maxHeight);
+        return Math.max(1, Math.max(byWidth, byHeight));
+    }
+
+    /**
+     * Shrinks an image. The last block of each row and column may be partial; it is
+     * averaged over the pixels it holds.
+     * @param image the source image
+     * @param factor the block size
+     * @return a compact raster of {@code ceil(width / factor)} by {@code ceil(height / factor)} pixels
+     */
+    public static ImageRaster downscale(Image image, int factor) {
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        ImageRaster output = new ImageRaster((width + factor - 1) / factor, (height + factor - 1) / factor);
+        int bandRows = Math.max(1, BAND_ROWS / factor) * factor;
+        for (int startRow = 0; startRow < height; startRow += bandRows) {
+            int endRow = Math.min(startRow + bandRows, height);
+            averageBlocks(FxRasterAdapter.fromImage(image, startRow, endRow), factor, output, startRow / factor);
+        }
+        return output;
+    }
+
+    /**
+     * Shrinks a raster.
+     * @param input the source raster
+     * @param factor the block size
+     * @return a compact raster of {@code ceil(width / factor)} by {@code ceil(height / factor)} pixels
+     */
+    public static ImageRaster downscale(ImageRaster input, int factor) {
+        ImageRaster source = input.compact();
+        ImageRaster output = new ImageRaster((source.getWidth() + factor - 1) / factor,
+                (source.getHeight() + factor - 1) / factor);
+        averageBlocks(source, factor, output, 0);
+        return output;
+    }
+
+    /**
+     * Averages the blocks of a compact band whose first row is aligned on a block boundary.
+     */
+    private static void averageBlocks(ImageRaster band, int factor, ImageRaster output, int firstOutputRow) {
+        int width = band.getWidth();
+        int outWidth = output.getWidth();
+        int[] src = band.getPixels();
+        int[] dst = output.getPixels();
+        int[] a = new int[outWidth];
+        int[] r = new int[outWidth];
+        int[] g = new int[outWidth];
+        int[] b = new int[outWidth];
+
+        for (int blockTop = 0; blockTop < band.getHeight(); blockTop += factor) {
+            int blockRows = Math.min(factor, band.getHeight() - blockTop);
+            for (int y = blockTop; y < blockTop + blockRows; y++) {
+                int x = y * width;
+                int rowEnd = x + width;
+                for (int column = 0; column < outWidth; column++) {
+                    int blockEnd = Math.min(x + factor, rowEnd);
+                    int sa = 0, sr = 0, sg = 0, sb = 0;
+                    for (; x < blockEnd; x++) {
+                        int pixel = src[x];
+                        sa += pixel >>> 24;
+                        sr += (pixel >> 16) & 0xff;
+                        sg += (pixel >> 8) & 0xff;
+                        sb += pixel & 0xff;
+                    }
+                    a[column] += sa;
+                    r[column] += sr;
+                    g[column] += sg;
+                    b[column] += sb;
+                }
+            }
+            int outRow = (firstOutputRow + blockTop / factor) * outWidth;
+            for (int column = 0; column < outWidth; column++) {
+                int count = blockRows * (Math.min(width, (column + 1) * factor) - column * factor);
+                int half = count / 2;
+                dst[outRow + column] = (a[column] + half) / count << 24
+                        | (r[column] + half) / count << 16
+                        | (g[column] + half) / count << 8
+                        | (b[column] + half) / count;
+                a[column] = r[column] = g[column] = b[column] = 0;
+            }
+        }
+    }
+}
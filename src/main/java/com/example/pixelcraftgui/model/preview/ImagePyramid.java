@@ -0,0 +1,119 @@
+package com.example.pixelcraftgui.model.preview;
+
+import com.example.pixelcraftgui.model.FxRasterAdapter;
+import javafx.scene.image.Image;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * A mipmap pyramid of an image: level 0 is the image itself and each further level is
+ * half the size of the one before, averaged from it in 2x2 blocks.
+ *
+ * Displaying the level closest to the on-screen size keeps textures small and spares the
+ * scene graph from shrinking a huge image on every layout pass. Levels are built lazily,
+ * on the given executor, the first time they are requested; until then the nearest larger
+ * level that is available stands in.
+ */
+public class ImagePyramid {
+
+    private final Image[] levels;
+    private final boolean[] requested;
+    private final Executor executor;
+
+    /**
+     * @param base the full-size image
+     * @param executor builds the levels in the background
+     */
+    public ImagePyramid(Image base, Executor executor) {
+        int size = (int) Math.max(base.getWidth(), base.getHeight());
+        // Halve until the longer side is a single pixel
+        this.levels = new Image[Math.max(1, 32 - Integer.numberOfLeadingZeros(size))];
+        this.levels[0] = base;
+        this.requested = new boolean[levels.length];
+        this.executor = executor;
+    }
+
+    public Image getBase() {
+        return levels[0];
+    }
+
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    /**
+     * Gets the smallest level that is still at least as large as the display size, so the
+     * displayed image is only ever shrunk.
+     * @param displayWidth the on-screen width, in device pixels
+     * @param displayHeight the on-screen height, in device pixels
+     * @return the level index
+     */
+    public int levelFor(double displayWidth, double displayHeight) {
+        double scale = Math.max(displayWidth / getBase().getWidth(), displayHeight / getBase().getHeight());
+        int level = 0;
+        while (level + 1 < levels.length && scale <= 1.0 / (2 << level)) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Gets a level if it has been built, or else the nearest larger level that has.
+     * @param level the wanted level
+     * @return the image of the wanted level or of a larger one, never null
+     */
+    public synchronized Image getAvailable(int level) {
+        for (int i = level; i > 0; i--) {
+            if (levels[i] != null) {
+                return levels[i];
+            }
+        }
+        return levels[0];
+    }
+
+    /**
+     * Gets a level, building it and any missing level above it in the background if needed.
+     * @param level the wanted level
+     * @param onReady called on the executor once the level is built; not called when it already
+     *                was built, or when it has already been requested and is still being built
+     * @return true if the level is available now
+     */
+    public boolean request(int level, Consumer<Image> onReady) {
+        synchronized (this) {
+            if (levels[level] != null) {
+                return true;
+            }
+            if (requested[level]) {
+                return false;
+            }
+            requested[level] = true;
+        }
+        executor.execute(() -> onReady.accept(build(level)));
+        return false;
+    }
+
+    /**
+     * Builds the missing levels up to the given one, each from the level above.
+     */
+    private Image build(int level) {
+        Image image = getAvailable(level);
+        int built = levelOf(image);
+        while (built < level) {
+            image = FxRasterAdapter.toImage(Downscaler.downscale(image, 2));
+            built++;
+            synchronized (this) {
+                levels[built] = image;
+            }
+        }
+        return image;
+    }
+
+    private synchronized int levelOf(Image image) {
+        for (int i = 0; i < levels.length; i++) {
+            if (levels[i] == image) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Not a level of this pyramid");
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.pixelcraftgui.model.preview;
+
+import com.example.pixelcraftgui.model.FxRasterAdapter;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import com.example.pixelcraftgui.model.engine.CancellationToken;
+import com.example.pixelcraftgui.model.engine.ProgressListener;
+import com.example.pixelcraftgui.model.engine.TileExecutor;
+import javafx.scene.image.Image;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Renders quick previews of a converter on a downscaled copy of the source image.
+ *
+ * The copy (the proxy) is shrunk just enough to fit the area the preview is shown in,
+ * so the cost of a preview depends on the size of that area rather than on the source.
+ * It is built once and reused until the source or the area changes.
+ * Requests are debounced: a request replaces any request still waiting and cancels
+ * the render in progress, and only the latest one is delivered.
+ */
+public class PreviewRenderer {
+
+    /** How long a request waits for a newer one before it starts rendering, in milliseconds. */
+    public static final long DEBOUNCE_MILLIS = 15;
+
+    /**
+     * A rendered preview.
+     * @param image the converted proxy
+     * @param scale the size of the proxy relative to the source
+     * @param renderNanos the time spent converting the proxy
+     */
+    public record Preview(Image image, double scale, long renderNanos) {
+    }
+
+    private final TileExecutor tileExecutor;
+    private final Executor deliveryExecutor;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pixelcraft-preview");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Written on the caller thread, read by the render thread
+    private volatile Image source;
+    private volatile long generation;
+    private ScheduledFuture<?> pending;
+    private CancellationToken running = new CancellationToken();
+
+    // Only touched on the render thread
+    private Image proxySource;
+    private int proxyFactor;
+    private ImageRaster proxy;
+
+    /**
+     * @param tileExecutor the executor that converts the proxy
+     * @param deliveryExecutor runs the callbacks of completed previews, for example {@code Platform::runLater}
+     */
+    public PreviewRenderer(TileExecutor tileExecutor, Executor deliveryExecutor) {
+        this.tileExecutor = tileExecutor;
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    /**
+     * Sets the image that previews are rendered from and cancels any request in progress.
+     * @param source the full-size image, or null
+     */
+    public synchronized void setSource(Image source) {
+        this.source = source;
+        cancel();
+    }
+
+    /**
+     * Gets the size of the proxy that a preview of the current source fits in the given area.
+     * Use it to scale converter settings measured in pixels before requesting the preview.
+     * @param maxWidth the width of the preview area, in pixels
+     * @param maxHeight the height of the preview area, in pixels
+     * @return the size of the proxy relative to the source, or 1 without a source
+     */
+    public double scaleFor(int maxWidth, int maxHeight) {
+        Image image = source;
+        if (image == null) {
+            return 1;
+        }
+        return 1.0 / Downscaler.factorFor((int) image.getWidth(), (int) image.getHeight(), maxWidth, maxHeight);
+    }
+
+    /**
+     * Builds the proxy for the given area in the background, so that the first preview
+     * of a new source does not wait for the whole source to be read.
+     * @param maxWidth the width of the preview area, in pixels
+     * @param maxHeight the height of the preview area, in pixels
+     */
+    public void prepare(int maxWidth, int maxHeight) {
+        scheduler.execute(() -> {
+            Image image = source;
+            if (image != null) {
+                proxyFor(image, maxWidth, maxHeight);
+            }
+        });
+    }
+
+    /**
+     * Requests a preview, replacing any previous request.
+     * @param converter the converter to preview, with its settings already scaled
+     * @param maxWidth the width of the preview area, in pixels
+     * @param maxHeight the height of the preview area, in pixels
+     * @param onRendered receives the preview on the delivery executor, unless a newer request was made since
+     */
+    public synchronized void render(ImageConverter converter, int maxWidth, int maxHeight,
+                                    Consumer<Preview> onRendered) {
+        cancel();
+        long request = generation;
+        CancellationToken token = running;
+        pending = scheduler.schedule(() -> run(request, token, converter, maxWidth, maxHeight, onRendered),
+                DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Drops the waiting request and stops the render in progress. Safe to call more than once.
+     */
+    public synchronized void cancel() {
+        generation++;
+        running.cancel();
+        running = new CancellationToken();
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    private void run(long request, CancellationToken token, ImageConverter converter,
+                     int maxWidth, int maxHeight, Consumer<Preview> onRendered) {
+        Image image = source;
+        if (image == null || request != generation) {
+            return;
+        }
+        ImageRaster input = proxyFor(image, maxWidth, maxHeight);
+        if (request != generation) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        Image result;
+        try {
+            result = FxRasterAdapter.toImage(tileExecutor.execute(converter, input, token, ProgressListener.NONE));
+        } catch (CancellationException e) {
+            return;
+        }
+        Preview preview = new Preview(result, 1.0 / proxyFactor, System.nanoTime() - start);
+        deliveryExecutor.execute(() -> {
+            if (request == generation) {
+                onRendered.accept(preview);
+            }
+        });
+    }
+
+    /**
+     * Gets the proxy of an image for an area, shrinking the image again only if either changed.
+     */
+    private ImageRaster proxyFor(Image image, int maxWidth, int maxHeight) {
+        int factor = Downscaler.factorFor((int) image.getWidth(), (int) image.getHeight(), maxWidth, maxHeight);
+        if (image != proxySource || factor != proxyFactor) {
+            proxy = Downscaler.downscale(image, factor);
+            proxySource = image;
+            proxyFactor = factor;
+        }
+        return proxy;
+    }
+}
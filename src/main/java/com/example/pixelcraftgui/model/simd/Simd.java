@@ -0,0 +1,64 @@
+package com.example.pixelcraftgui.model.simd;
+
+/**
+ * Decides at runtime whether converters use the SIMD kernels of {@link VectorKernels}.
+ *
+ * The kernels need the incubating {@code jdk.incubator.vector} module, which is only
+ * resolved when the JVM is started with {@code --add-modules jdk.incubator.vector}, and
+ * a CPU with vector registers of at least 128 bits. Otherwise converters run their
+ * scalar loops. Setting the system property {@code pixelcraft.simd.scalar=true}, or
+ * calling {@link #setForceScalar}, forces the scalar loops so both paths can be compared;
+ * they produce identical output.
+ */
+public final class Simd {
+
+    private static final boolean AVAILABLE = probe();
+
+    private static volatile boolean forceScalar = Boolean.getBoolean("pixelcraft.simd.scalar");
+
+    private Simd() {
+    }
+
+    private static boolean probe() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            return VectorKernels.lanes() >= 4;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the vector module is present and the CPU has wide enough vectors
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * @return true if converters should call the SIMD kernels
+     */
+    public static boolean isEnabled() {
+        return AVAILABLE && !forceScalar;
+    }
+
+    /**
+     * Forces the scalar loops even where the SIMD kernels are available.
+     * @param scalar true to force the scalar loops, false to use SIMD where available
+     */
+    public static void setForceScalar(boolean scalar) {
+        forceScalar = scalar;
+    }
+
+    /**
+     * @return a short description of the active path, for logs and benchmarks
+     */
+    public static String describe() {
+        if (!AVAILABLE) {
+            return "scalar (vector API unavailable)";
+        }
+        return forceScalar ? "scalar (forced)" : "SIMD, " + VectorKernels.lanes() + " ints per vector";
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.pixelcraftgui.model.simd;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD versions of the hot pixel loops, using the preferred vector width of the CPU.
+ *
+ * Every kernel processes whole vectors only and returns the number of pixels it converted,
+ * always a multiple of the vector length; the caller finishes the remaining pixels with its
+ * scalar loop. Each kernel computes exactly the same result as the scalar loop it replaces.
+ * Only call these methods when {@link Simd#isEnabled()} is true: this class cannot be
+ * loaded without the {@code jdk.incubator.vector} module.
+ */
+public final class VectorKernels {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {
+    }
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    /**
+     * Inverts red, green and blue and makes the pixels opaque.
+     * @return the number of pixels converted
+     */
+    public static int invert(int[] src, int[] dst, int offset, int length) {
+        int count = SPECIES.loopBound(length);
+        for (int i = offset, end = offset + count; i < end; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, src, i)
+                    .lanewise(VectorOperators.OR, 0xff000000)
+                    .lanewise(VectorOperators.XOR, 0x00ffffff)
+                    .intoArray(dst, i);
+        }
+        return count;
+    }
+
+    /**
+     * Replaces red, green and blue with their integer average, keeping alpha.
+     * @param average the fixed-point reciprocal of 3 such that {@code (sum * average) >>> 16 == sum / 3}
+     * @return the number of pixels converted
+     */
+    public static int grayscale(int[] src, int[] dst, int offset, int length, int average) {
+        int count = SPECIES.loopBound(length);
+        for (int i = offset, end = offset + count; i < end; i += SPECIES.length()) {
+            IntVector pixel = IntVector.fromArray(SPECIES, src, i);
+            IntVector gray = red(pixel).add(green(pixel)).add(blue(pixel))
+                    .mul(average)
+                    .lanewise(VectorOperators.LSHR, 16);
+            pixel.and(0xff000000)
+                    .or(gray.lanewise(VectorOperators.LSHL, 16))
+                    .or(gray.lanewise(VectorOperators.LSHL, 8))
+                    .or(gray)
+                    .intoArray(dst, i);
+        }
+        return count;
+    }
+
+    /**
+     * Rounds each color channel down to a multiple of {@code interval} and makes the pixels opaque.
+     * @param multiplier the fixed-point reciprocal of the interval such that
+     *                   {@code (v * multiplier) >>> 16 == v / interval} for every channel value
+     * @return the number of pixels converted
+     */
+    public static int posterize(int[] src, int[] dst, int offset, int length, int multiplier, int interval) {
+        int count = SPECIES.loopBound(length);
+        for (int i = offset, end = offset + count; i < end; i += SPECIES.length()) {
+            IntVector pixel = IntVector.fromArray(SPECIES, src, i);
+            IntVector r = red(pixel).mul(multiplier).lanewise(VectorOperators.LSHR, 16).mul(interval);
+            IntVector g = green(pixel).mul(multiplier).lanewise(VectorOperators.LSHR, 16).mul(interval);
+            IntVector b = blue(pixel).mul(multiplier).lanewise(VectorOperators.LSHR, 16).mul(interval);
+            pack(IntVector.broadcast(SPECIES, 255), r, g, b).intoArray(dst, i);
+        }
+        return count;
+    }
+
+    /**
+     * Applies a 16.16 fixed-point color matrix, adds a per-pixel grain to every channel and scales
+     * the result, making the pixels opaque. Each channel is
+     * {@code (clamp(clamp((w[c][0] * r + w[c][1] * g + w[c][2] * b) >> 16) + grain[i]) * scale) >>> 16}.
+     * @param weights the nine matrix weights in row-major order
+     * @param grain the value added to the channels of each pixel, indexed from 0 for the first pixel
+     * @param scale the 16.16 fixed-point factor applied last
+     * @return the number of pixels converted
+     */
+    public static int matrixWithGrain(int[] src, int[] dst, int offset, int length,
+                                      int[] weights, int[] grain, int scale) {
+        int count = SPECIES.loopBound(length);
+        for (int i = 0; i < count; i += SPECIES.length()) {
+            IntVector pixel = IntVector.fromArray(SPECIES, src, offset + i);
+            IntVector noise = IntVector.fromArray(SPECIES, grain, i);
+            IntVector r = red(pixel);
+            IntVector g = green(pixel);
+            IntVector b = blue(pixel);
+            IntVector outR = grainChannel(r, g, b, weights[0], weights[1], weights[2], noise, scale);
+            IntVector outG = grainChannel(r, g, b, weights[3], weights[4], weights[5], noise, scale);
+            IntVector outB = grainChannel(r, g, b, weights[6], weights[7], weights[8], noise, scale);
+            pack(IntVector.broadcast(SPECIES, 255), outR, outG, outB).intoArray(dst, offset + i);
+        }
+        return count;
+    }
+
+    private static IntVector grainChannel(IntVector r, IntVector g, IntVector b, int wr, int wg, int wb,
+                                          IntVector noise, int scale) {
+        IntVector value = clamp(r.mul(wr).add(g.mul(wg)).add(b.mul(wb)).lanewise(VectorOperators.ASHR, 16));
+        return clamp(value.add(noise)).mul(scale).lanewise(VectorOperators.LSHR, 16);
+    }
+
+    /**
+     * Splits packed pixels into channel rows.
+     * @param alpha the alpha row, or null to skip alpha
+     * @param planeOffset the index in the channel rows of the first pixel
+     * @return the number of pixels split
+     */
+    public static int unpack(int[] src, int srcOffset, int[] red, int[] green, int[] blue, int[] alpha,
+                             int planeOffset, int length) {
+        int count = SPECIES.loopBound(length);
+        for (int i = 0; i < count; i += SPECIES.length()) {
+            IntVector pixel = IntVector.fromArray(SPECIES, src, srcOffset + i);
+            red(pixel).intoArray(red, planeOffset + i);
+            green(pixel).intoArray(green, planeOffset + i);
+            blue(pixel).intoArray(blue, planeOffset + i);
+            if (alpha != null) {
+                pixel.lanewise(VectorOperators.LSHR, 24).intoArray(alpha, planeOffset + i);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Packs fixed-point channel sums into pixels: each channel is {@code clamp(sum >> shift)}.
+     * @param alpha the alpha sums, or null to keep the alpha of the source pixels
+     * @param alphaSource the source pixels, at the same indices as {@code dst}; read only when {@code alpha} is null
+     * @return the number of pixels packed
+     */
+    public static int pack(int[] red, int[] green, int[] blue, int[] alpha, int shift,
+                           int[] alphaSource, int[] dst, int dstOffset, int length) {
+        int count = SPECIES.loopBound(length);
+        for (int i = 0; i < count; i += SPECIES.length()) {
+            IntVector r = clamp(IntVector.fromArray(SPECIES, red, i).lanewise(VectorOperators.ASHR, shift));
+            IntVector g = clamp(IntVector.fromArray(SPECIES, green, i).lanewise(VectorOperators.ASHR, shift));
+            IntVector b = clamp(IntVector.fromArray(SPECIES, blue, i).lanewise(VectorOperators.ASHR, shift));
+            IntVector a = alpha != null
+                    ? clamp(IntVector.fromArray(SPECIES, alpha, i).lanewise(VectorOperators.ASHR, shift))
+                    : IntVector.fromArray(SPECIES, alphaSource, dstOffset + i).lanewise(VectorOperators.LSHR, 24);
+            pack(a, r, g, b).intoArray(dst, dstOffset + i);
+        }
+        return count;
+    }
+
+    /**
+     * Adds {@code weight * values[offset + x]} to {@code sum[x]}.
+     * @return the number of elements updated
+     */
+    public static int multiplyAdd(int[] sum, int[] values, int offset, int weight, int length) {
+        int count = SPECIES.loopBound(length);
+        for (int x = 0; x < count; x += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, values, offset + x)
+                    .mul(weight)
+                    .add(IntVector.fromArray(SPECIES, sum, x))
+                    .intoArray(sum, x);
+        }
+        return count;
+    }
+
+    private static IntVector red(IntVector pixel) {
+        return pixel.lanewise(VectorOperators.LSHR, 16).and(0xff);
+    }
+
+    private static IntVector green(IntVector pixel) {
+        return pixel.lanewise(VectorOperators.LSHR, 8).and(0xff);
+    }
+
+    private static IntVector blue(IntVector pixel) {
+        return pixel.and(0xff);
+    }
+
+    private static IntVector clamp(IntVector value) {
+        return value.max(0).min(255);
+    }
+
+    private static IntVector pack(IntVector a, IntVector r, IntVector g, IntVector b) {
+        return a.lanewise(VectorOperators.LSHL, 24)
+                .or(r.lanewise(VectorOperators.LSHL, 16))
+                .or(g.lanewise(VectorOperators.LSHL, 8))
+                .or(b);
+    }
+}
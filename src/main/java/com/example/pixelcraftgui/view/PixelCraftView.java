@@ -2,8 +2,15 @@ package com.example.pixelcraftgui.view;
 
 import com.example.pixelcraftgui.model.PixelCraftModel;
 import com.example.pixelcraftgui.model.ConverterFactory;
+import com.example.pixelcraftgui.model.ParameterSpec;
+import com.example.pixelcraftgui.model.preview.ImagePyramid;
+import javafx.application.Platform;
+import javafx.beans.value.ObservableDoubleValue;
+import javafx.geometry.Bounds;
+import javafx.geometry.Dimension2D;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
@@ -14,6 +21,11 @@ import javafx.stage.Stage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * View class for the PixelCraft GUI application.
@@ -21,6 +33,8 @@ import java.io.File;
  */
 public class PixelCraftView implements PropertyChangeListener {
     
+    private static final String ZOOM_FIT = "Fit";
+    
     private Stage stage;
     private PixelCraftModel model;
     
@@ -34,11 +48,35 @@ public class PixelCraftView implements PropertyChangeListener {
     private Button resetButton;
     private ComboBox<String> converterComboBox;
     private Button applyButton;
+    private HBox parameterBox;
+    private CheckBox previewCheckBox;
+    private CheckBox progressiveCheckBox;
+    private ComboBox<String> zoomComboBox;
     private Label statusLabel;
+    private ProgressBar progressBar;
+    private Button cancelButton;
     private ScrollPane imageScrollPane;
     private ScrollPane originalScrollPane;
     private SplitPane splitPane;
     
+    // Controls of the selected converter's settings, in display order
+    private final Map<ParameterSpec, Slider> parameterSliders = new LinkedHashMap<>();
+    private Runnable onParametersChanged = () -> { };
+    
+    // Mipmap pyramids of the displayed images; an image shown on both sides shares one
+    private ImagePyramid currentPyramid;
+    private ImagePyramid originalPyramid;
+    private final ExecutorService pyramidExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pixelcraft-pyramid");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // A preview or partial result shown in place of the current image, and the full size it stands for
+    private Image overlay;
+    private double overlayWidth;
+    private double overlayHeight;
+    
     public PixelCraftView(Stage stage) {
         this.stage = stage;
         initializeUI();
@@ -60,9 +98,7 @@ public class PixelCraftView implements PropertyChangeListener {
         mainLayout.setCenter(splitPane);
         
         // Create status bar
-        statusLabel = new Label("Ready");
-        statusLabel.setPadding(new Insets(5));
-        mainLayout.setBottom(statusLabel);
+        mainLayout.setBottom(createStatusBar());
         
         // Set up the scene
         Scene scene = new Scene(mainLayout, 1200, 800);
@@ -108,16 +144,102 @@ public class PixelCraftView implements PropertyChangeListener {
         converterComboBox = new ComboBox<>();
         converterComboBox.getItems().addAll(ConverterFactory.getAvailableConverters());
         converterComboBox.setValue(ConverterFactory.GRAYSCALE);
+        converterComboBox.valueProperty().addListener((_, _, type) -> {
+            showParameters(type != null ? ConverterFactory.getParameterSpecs(type) : List.of());
+            onParametersChanged.run();
+        });
+        
+        // Settings of the selected effect, rebuilt whenever the effect changes
+        parameterBox = new HBox(5);
+        parameterBox.setAlignment(Pos.CENTER_LEFT);
         
         applyButton = new Button("Apply Effect");
         applyButton.setTooltip(new Tooltip("Apply selected effect to image"));
         applyButton.setDisable(true);
         
-        toolbar.getItems().addAll(converterLabel, converterComboBox, applyButton);
+        previewCheckBox = new CheckBox("Preview");
+        previewCheckBox.setTooltip(new Tooltip("Show the selected effect as you change its settings"));
+        
+        progressiveCheckBox = new CheckBox("Progressive");
+        progressiveCheckBox.setTooltip(new Tooltip("Show the visible part of an effect first, as it is computed"));
+        progressiveCheckBox.setSelected(true);
+        
+        toolbar.getItems().addAll(converterLabel, converterComboBox, parameterBox, applyButton,
+                previewCheckBox, progressiveCheckBox, new Separator());
+        
+        // Zoom, shared by both images
+        Label zoomLabel = new Label("Zoom:");
+        zoomComboBox = new ComboBox<>();
+        zoomComboBox.getItems().addAll(ZOOM_FIT, "25%", "50%", "100%", "200%", "400%");
+        zoomComboBox.setValue(ZOOM_FIT);
+        zoomComboBox.setTooltip(new Tooltip("Fit the images to their panes or show them at a fixed scale"));
+        zoomComboBox.valueProperty().addListener((_, _, _) -> refreshImages());
+        
+        toolbar.getItems().addAll(zoomLabel, zoomComboBox);
         
         return toolbar;
     }
     
+    /**
+     * Replaces the setting controls with one slider per setting.
+     * @param specs the settings of the selected effect
+     */
+    private void showParameters(List<ParameterSpec> specs) {
+        parameterSliders.clear();
+        parameterBox.getChildren().clear();
+        for (ParameterSpec spec : specs) {
+            Slider slider = new Slider(spec.min(), spec.max(), spec.defaultValue());
+            slider.setPrefWidth(120);
+            if (spec.integer()) {
+                slider.setMajorTickUnit(1);
+                slider.setMinorTickCount(0);
+                slider.setSnapToTicks(true);
+            }
+            Label value = new Label();
+            value.setMinWidth(35);
+            value.setText(formatParameter(spec, slider.getValue()));
+            slider.valueProperty().addListener((_, _, v) -> {
+                value.setText(formatParameter(spec, v.doubleValue()));
+                onParametersChanged.run();
+            });
+            parameterSliders.put(spec, slider);
+            parameterBox.getChildren().addAll(new Label(spec.label() + ":"), slider, value);
+        }
+    }
+    
+    private static String formatParameter(ParameterSpec spec, double value) {
+        return spec.integer() ? Long.toString(Math.round(value)) : String.format("%.1f", value);
+    }
+    
+    /**
+     * Creates the status bar with the status message and the progress of a running effect.
+     */
+    private HBox createStatusBar() {
+        statusLabel = new Label("Ready");
+        
+        progressBar = new ProgressBar(0);
+        progressBar.setPrefWidth(200);
+        
+        cancelButton = new Button("Cancel");
+        cancelButton.setTooltip(new Tooltip("Cancel the running effect"));
+        
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        
+        HBox statusBar = new HBox(10, statusLabel, spacer, progressBar, cancelButton);
+        statusBar.setAlignment(Pos.CENTER_LEFT);
+        statusBar.setPadding(new Insets(5));
+        setProgressVisible(false);
+        return statusBar;
+    }
+    
+    private void setProgressVisible(boolean visible) {
+        progressBar.setVisible(visible);
+        progressBar.setManaged(visible);
+        cancelButton.setVisible(visible);
+        cancelButton.setManaged(visible);
+    }
+    
     /**
      * Creates the image display area with side-by-side comparison.
      */
@@ -154,6 +276,10 @@ public class PixelCraftView implements PropertyChangeListener {
         );
         currentBox.setPadding(new Insets(10));
         
+        // Fitted images follow the size of their panes
+        originalScrollPane.viewportBoundsProperty().addListener((_, _, _) -> refreshImages());
+        imageScrollPane.viewportBoundsProperty().addListener((_, _, _) -> refreshImages());
+        
         // Create split pane
         SplitPane splitPane = new SplitPane(originalBox, currentBox);
         splitPane.setDividerPositions(0.5);
@@ -179,23 +305,87 @@ public class PixelCraftView implements PropertyChangeListener {
         Image currentImage = model.getCurrentImage();
         Image originalImage = model.getOriginalImage();
         
+        ImagePyramid current = pyramidFor(currentImage);
+        originalPyramid = originalImage == currentImage ? current : pyramidFor(originalImage);
+        currentPyramid = current;
+        
+        // A new current image replaces any preview
+        clearPreview();
         if (currentImage != null) {
-            imageView.setImage(currentImage);
             saveButton.setDisable(false);
             applyButton.setDisable(false);
         } else {
-            imageView.setImage(null);
             saveButton.setDisable(true);
             applyButton.setDisable(true);
         }
         
-        if (originalImage != null) {
-            originalImageView.setImage(originalImage);
-            resetButton.setDisable(false);
+        resetButton.setDisable(originalImage == null);
+    }
+    
+    /**
+     * Gets the pyramid of an image, reusing the one already built for it if any.
+     */
+    private ImagePyramid pyramidFor(Image image) {
+        if (image == null) {
+            return null;
+        }
+        for (ImagePyramid pyramid : new ImagePyramid[]{currentPyramid, originalPyramid}) {
+            if (pyramid != null && pyramid.getBase() == image) {
+                return pyramid;
+            }
+        }
+        return new ImagePyramid(image, pyramidExecutor);
+    }
+    
+    /**
+     * Sizes both image views for the zoom and binds the pyramid level closest to their on-screen size.
+     */
+    private void refreshImages() {
+        if (overlay != null) {
+            Dimension2D size = displaySize(overlayWidth, overlayHeight, imageScrollPane);
+            imageView.setFitWidth(size.getWidth());
+            imageView.setFitHeight(size.getHeight());
+            imageView.setImage(overlay);
+        } else {
+            bindLevel(imageView, imageScrollPane, currentPyramid);
+        }
+        bindLevel(originalImageView, originalScrollPane, originalPyramid);
+    }
+    
+    /**
+     * Shows the best level of a pyramid that is already built, and has the level
+     * for the current size built in the background if it is not.
+     */
+    private void bindLevel(ImageView view, ScrollPane pane, ImagePyramid pyramid) {
+        if (pyramid == null) {
+            view.setImage(null);
+            return;
+        }
+        Image base = pyramid.getBase();
+        Dimension2D size = displaySize(base.getWidth(), base.getHeight(), pane);
+        view.setFitWidth(size.getWidth());
+        view.setFitHeight(size.getHeight());
+        int level = pyramid.levelFor(size.getWidth() * stage.getOutputScaleX(), size.getHeight() * stage.getOutputScaleY());
+        pyramid.request(level, _ -> Platform.runLater(this::refreshImages));
+        view.setImage(pyramid.getAvailable(level));
+    }
+    
+    /**
+     * Gets the on-screen size of an image at the selected zoom.
+     * Fitted images are shrunk to their pane but never enlarged.
+     */
+    private Dimension2D displaySize(double width, double height, ScrollPane pane) {
+        String zoom = zoomComboBox.getValue();
+        double scale;
+        if (ZOOM_FIT.equals(zoom)) {
+            Bounds viewport = pane.getViewportBounds();
+            scale = viewport.getWidth() > 0 && viewport.getHeight() > 0
+                    ? Math.min(1, Math.min(viewport.getWidth() / width, viewport.getHeight() / height))
+                    : 1;
         } else {
-            originalImageView.setImage(null);
-            resetButton.setDisable(true);
+            scale = Double.parseDouble(zoom.substring(0, zoom.length() - 1)) / 100;
         }
+        return new Dimension2D(Math.max(1, width * scale), Math.max(1, height * scale));
     }
     
     /**
@@ -248,6 +438,20 @@ public class PixelCraftView implements PropertyChangeListener {
         alert.showAndWait();
     }
     
+    /**
+     * Asks the user to confirm an action.
+     * @param title the dialog title
+     * @param message the question
+     * @return true if the user confirmed
+     */
+    public boolean showConfirmation(String title, String message) {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        return alert.showAndWait().filter(ButtonType.OK::equals).isPresent();
+    }
+    
     /**
      * Updates the status label with the specified message.
      * @param message the status message
@@ -256,6 +460,34 @@ public class PixelCraftView implements PropertyChangeListener {
         statusLabel.setText(message);
     }
     
+    /**
+     * Shows the progress of a running effect and disables the controls that would change the image.
+     * @param progress the job progress, from 0 to 1 (or -1 when indeterminate)
+     */
+    public void showProgress(ObservableDoubleValue progress) {
+        progressBar.progressProperty().bind(progress);
+        cancelButton.setDisable(false);
+        setProgressVisible(true);
+        setEditingDisabled(true);
+    }
+    
+    /**
+     * Hides the progress bar once a running effect or save has finished, failed or been cancelled.
+     */
+    public void hideProgress() {
+        progressBar.progressProperty().unbind();
+        setProgressVisible(false);
+        setEditingDisabled(false);
+    }
+    
+    private void setEditingDisabled(boolean disabled) {
+        loadButton.setDisable(disabled);
+        applyButton.setDisable(disabled || model == null || !model.hasImage());
+        resetButton.setDisable(disabled || model == null || model.getOriginalImage() == null);
+        undoButton.setDisable(disabled || model == null || !model.canUndo());
+        redoButton.setDisable(disabled || model == null || !model.canRedo());
+    }
+    
     /**
      * Gets the selected converter name from the combo box.
      * @return the selected converter name
@@ -264,6 +496,112 @@ public class PixelCraftView implements PropertyChangeListener {
         return converterComboBox.getValue();
     }
     
+    /**
+     * Gets the settings chosen for the selected converter.
+     * @return the parameter values by name, formatted for {@link ConverterFactory#createConverter(String, Map)}
+     */
+    public Map<String, String> getParameterValues() {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (Map.Entry<ParameterSpec, Slider> entry : parameterSliders.entrySet()) {
+            ParameterSpec spec = entry.getKey();
+            double value = entry.getValue().getValue();
+            values.put(spec.name(), spec.format(spec.integer() ? value : Math.round(value * 10) / 10.0));
+        }
+        return values;
+    }
+    
+    /**
+     * Sets the action run whenever the selected converter or one of its settings changes.
+     * @param action the action, run on the JavaFX Application Thread
+     */
+    public void setOnParametersChanged(Runnable action) {
+        this.onParametersChanged = action;
+    }
+    
+    public boolean isPreviewEnabled() {
+        return previewCheckBox.isSelected();
+    }
+    
+    public boolean isProgressiveEnabled() {
+        return progressiveCheckBox.isSelected();
+    }
+    
+    /**
+     * Gets the size of the area the modified image is shown in, in device pixels.
+     * @return the width of the viewport, at least 1
+     */
+    public int getPreviewWidth() {
+        return (int) Math.max(1, Math.ceil(imageScrollPane.getViewportBounds().getWidth() * stage.getOutputScaleX()));
+    }
+    
+    /**
+     * Gets the size of the area the modified image is shown in, in device pixels.
+     * @return the height of the viewport, at least 1
+     */
+    public int getPreviewHeight() {
+        return (int) Math.max(1, Math.ceil(imageScrollPane.getViewportBounds().getHeight() * stage.getOutputScaleY()));
+    }
+    
+    /**
+     * Shows a preview in place of the modified image. The preview is drawn at the size of
+     * the current image, so the view does not jump between the preview and the result.
+     * @param preview the downscaled preview
+     */
+    public void showPreview(Image preview) {
+        Image currentImage = model.getCurrentImage();
+        showOverlay(preview, currentImage.getWidth(), currentImage.getHeight());
+    }
+    
+    /**
+     * Shows a partially computed result in place of the modified image.
+     * @param partial a full-resolution image whose rows are filled in as they complete
+     */
+    public void showPartialResult(Image partial) {
+        showOverlay(partial, partial.getWidth(), partial.getHeight());
+    }
+    
+    private void showOverlay(Image image, double width, double height) {
+        overlay = image;
+        overlayWidth = width;
+        overlayHeight = height;
+        refreshImages();
+    }
+    
+    /**
+     * Gets the part of the modified image that is visible in its scroll pane.
+     * @return the visible region as fractions of the displayed image width and height
+     */
+    public Rectangle2D getVisibleRegion() {
+        Bounds image = imageView.getLayoutBounds();
+        if (image.getWidth() <= 0 || image.getHeight() <= 0) {
+            return new Rectangle2D(0, 0, 1, 1);
+        }
+        Bounds viewport = imageView.sceneToLocal(imageScrollPane.localToScene(imageScrollPane.getLayoutBounds()));
+        double left = Math.clamp((viewport.getMinX() - image.getMinX()) / image.getWidth(), 0, 1);
+        double top = Math.clamp((viewport.getMinY() - image.getMinY()) / image.getHeight(), 0, 1);
+        double right = Math.clamp((viewport.getMaxX() - image.getMinX()) / image.getWidth(), left, 1);
+        double bottom = Math.clamp((viewport.getMaxY() - image.getMinY()) / image.getHeight(), top, 1);
+        return new Rectangle2D(left, top, right - left, bottom - top);
+    }
+    
+    /**
+     * Registers an action run whenever the modified image is scrolled or its viewport resized.
+     * @param action the action, run on the JavaFX Application Thread
+     */
+    public void addViewportListener(Runnable action) {
+        imageScrollPane.hvalueProperty().addListener((_, _, _) -> action.run());
+        imageScrollPane.vvalueProperty().addListener((_, _, _) -> action.run());
+        imageScrollPane.viewportBoundsProperty().addListener((_, _, _) -> action.run());
+    }
+    
+    /**
+     * Shows the current image again in place of a preview or partial result.
+     */
+    public void clearPreview() {
+        overlay = null;
+        refreshImages();
+    }
+    
     // Getters for controller access
     public Button getLoadButton() { return loadButton; }
     public Button getSaveButton() { return saveButton; }
@@ -271,7 +609,9 @@ public class PixelCraftView implements PropertyChangeListener {
     public Button getRedoButton() { return redoButton; }
     public Button getResetButton() { return resetButton; }
     public Button getApplyButton() { return applyButton; }
+    public Button getCancelButton() { return cancelButton; }
     public ComboBox<String> getConverterComboBox() { return converterComboBox; }
+    public CheckBox getPreviewCheckBox() { return previewCheckBox; }
     
     /**
      * Sets the model reference.
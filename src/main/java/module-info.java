@@ -3,6 +3,9 @@ module com.example.pixelcraftgui {
     requires javafx.fxml;
     requires transitive javafx.graphics;
     requires transitive java.desktop;
+    requires static jdk.incubator.vector;
+    requires jdk.jfr;
+    requires jdk.management;
 
     opens com.example.pixelcraftgui to javafx.fxml;
     opens com.example.pixelcraftgui.view to javafx.fxml;
@@ -13,5 +16,13 @@ module com.example.pixelcraftgui {
     exports com.example.pixelcraftgui.view;
     exports com.example.pixelcraftgui.controller;
     exports com.example.pixelcraftgui.model;
+    exports com.example.pixelcraftgui.model.blur;
+    exports com.example.pixelcraftgui.model.cache;
+    exports com.example.pixelcraftgui.model.convolution;
+    exports com.example.pixelcraftgui.model.engine;
+    exports com.example.pixelcraftgui.model.history;
+    exports com.example.pixelcraftgui.model.io;
+    exports com.example.pixelcraftgui.model.lut;
+    exports com.example.pixelcraftgui.model.preview;
     exports com.example.pixelcraftgui.helper;
 } 
\ No newline at end of file
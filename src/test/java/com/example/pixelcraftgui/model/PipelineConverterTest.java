@@ -0,0 +1,61 @@
+package com.example.pixelcraftgui.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PipelineConverterTest {
+
+    @Test
+    void multiPassPipelinesConvertBandByBand() {
+        ImageRaster input = testImage(41, 33, 1);
+        PipelineConverter pipeline = ConverterFactory.createPipeline("Test",
+                ConverterFactory.SHARPEN, ConverterFactory.GRAYSCALE, ConverterFactory.BOX_BLUR);
+        assertTrue(pipeline.getPasses().size() > 1);
+        ImageRaster banded = pipeline.createOutput(input);
+        for (int row = 0; row < input.getHeight(); row += 5) {
+            pipeline.convertRows(input, banded, row, Math.min(row + 5, input.getHeight()));
+        }
+        assertArrayEquals(pipeline.convertRaster(input).getPixels(), banded.getPixels());
+    }
+
+    @Test
+    void interleavedConversionsOfDifferentInputsDoNotMix() {
+        ImageRaster first = testImage(30, 20, 2);
+        ImageRaster second = testImage(30, 20, 3);
+        PipelineConverter pipeline = ConverterFactory.createPipeline("Test", ConverterFactory.BOX_BLUR, ConverterFactory.ROTATE_90);
+        ImageRaster firstOutput = pipeline.createOutput(first);
+        ImageRaster secondOutput = pipeline.createOutput(second);
+        for (int row = 0; row < firstOutput.getHeight(); row += 4) {
+            int end = Math.min(row + 4, firstOutput.getHeight());
+            pipeline.convertRows(first, firstOutput, row, end);
+            pipeline.convertRows(second, secondOutput, row, end);
+        }
+        assertArrayEquals(pipeline.convertRaster(first).getPixels(), firstOutput.getPixels());
+        assertArrayEquals(pipeline.convertRaster(second).getPixels(), secondOutput.getPixels());
+    }
+
+    @Test
+    void rejectsOutputsItDidNotCreate() {
+        ImageRaster input = testImage(8, 8, 4);
+        PipelineConverter pipeline = ConverterFactory.createPipeline("Test", ConverterFactory.SHARPEN, ConverterFactory.INVERT,
+                ConverterFactory.BOX_BLUR);
+        assertThrows(IllegalArgumentException.class, () -> pipeline.convertRows(input, new ImageRaster(8, 8), 0, 8));
+        ImageRaster output = pipeline.createOutput(input);
+        pipeline.convertRows(input, output, 0, 8);
+        // Released once every row is computed
+        assertThrows(IllegalArgumentException.class, () -> pipeline.convertRows(input, output, 0, 1));
+    }
+
+    private static ImageRaster testImage(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xff000000 | random.nextInt(1 << 24);
+        }
+        return new ImageRaster(width, height, pixels);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.pixelcraftgui.model.blur;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class MotionBlurTest {
+
+    private static final double[] ANGLES = {0, 17, 30, 45, 60, 90, 123, 180, 200, 270, 315, 350};
+
+    @Test
+    void lengthOneKeepsTheImage() {
+        ImageRaster input = testImage(19, 14);
+        for (double angle : ANGLES) {
+            assertArrayEquals(input.getPixels(), new MotionBlur(1, angle).convertRaster(input).getPixels());
+        }
+    }
+
+    @Test
+    void averagesAlongAxesAndDiagonals() {
+        ImageRaster input = testImage(23, 17);
+        // Angle, step along x, step along y
+        int[][] lines = {{0, 1, 0}, {90, 0, 1}, {180, -1, 0}, {270, 0, -1}, {45, 1, 1}, {135, -1, 1}};
+        for (int length : new int[]{2, 5, 9, 40}) {
+            for (int[] line : lines) {
+                MotionBlur blur = new MotionBlur(length, line[0]);
+                int taps = line[0] % 90 == 0 ? length : 1 + (int) ((length - 1) * Math.sqrt(0.5));
+                int[] expected = reference(input, taps, line[1], line[2]);
+                assertClose(expected, blur.convertRaster(input).getPixels(), length + " at " + line[0] + " degrees");
+            }
+        }
+    }
+
+    @Test
+    void keepsFlatAreasFlat() {
+        int[] pixels = new int[24 * 18];
+        Arrays.fill(pixels, 0x80c0ffee);
+        ImageRaster flat = new ImageRaster(24, 18, pixels);
+        for (double angle : ANGLES) {
+            assertArrayEquals(pixels, new MotionBlur(11, angle).convertRaster(flat).getPixels(), angle + " degrees");
+        }
+    }
+
+    @Test
+    void bandsGiveTheSameResultAsOnePass() {
+        ImageRaster input = testImage(37, 29);
+        for (double angle : ANGLES) {
+            MotionBlur blur = new MotionBlur(13, angle);
+            int[] whole = blur.convertRaster(input).getPixels();
+            for (int bandRows : new int[]{1, 3, 8}) {
+                ImageRaster banded = blur.createOutput(input);
+                for (int row = 0; row < input.getHeight(); row += bandRows) {
+                    blur.convertRows(input, banded, row, Math.min(row + bandRows, input.getHeight()));
+                }
+                assertArrayEquals(whole, banded.getPixels(), angle + " degrees in bands of " + bandRows);
+            }
+        }
+    }
+
+    @Test
+    void stripsMatchTheWholeImage() {
+        ImageRaster input = testImage(31, 47);
+        int height = input.getHeight();
+        for (double angle : ANGLES) {
+            MotionBlur blur = new MotionBlur(15, angle);
+            int[] whole = blur.convertRaster(input).getPixels();
+            int halo = blur.getFootprint().getRadius();
+            for (int stripRows : new int[]{1, 4, 10, 47}) {
+                for (int start = 0; start < height; start += stripRows) {
+                    int end = Math.min(start + stripRows, height);
+                    int first = Math.max(0, start - halo);
+                    int last = Math.min(height, end + halo);
+                    ImageRaster strip = new ImageRaster(input.getWidth(), last - first,
+                            Arrays.copyOfRange(input.getPixels(), first * input.getWidth(), last * input.getWidth()));
+                    ImageConverter converter = blur.inStrip(first, height);
+                    int[] converted = converter.convertRaster(strip).getPixels();
+                    int width = input.getWidth();
+                    assertArrayEquals(Arrays.copyOfRange(whole, start * width, end * width),
+                            Arrays.copyOfRange(converted, (start - first) * width, (end - first) * width),
+                            angle + " degrees, rows " + start + " to " + end);
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectsLengthsBelowOne() {
+        assertThrows(IllegalArgumentException.class, () -> new MotionBlur(0, 0));
+    }
+
+    /**
+     * Averages each pixel with the following {@code taps - 1} pixels along a line,
+     * leaving out those outside the image.
+     */
+    private static int[] reference(ImageRaster input, int taps, int dx, int dy) {
+        int width = input.getWidth();
+        int height = input.getHeight();
+        int[] result = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int[] sums = new int[4];
+                int count = 0;
+                for (int k = 0; k < taps; k++) {
+                    int sx = x + k * dx;
+                    int sy = y + k * dy;
+                    if (sx < 0 || sx >= width || sy < 0 || sy >= height) {
+                        break;
+                    }
+                    int pixel = input.getPixels()[sy * width + sx];
+                    for (int c = 0; c < 4; c++) {
+                        sums[c] += pixel >>> (8 * c) & 0xff;
+                    }
+                    count++;
+                }
+                int average = 0;
+                for (int c = 0; c < 4; c++) {
+                    average |= Math.round((float) sums[c] / count) << (8 * c);
+                }
+                result[y * width + x] = average;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The blur divides in fixed point, so a channel may differ from the exact average by one.
+     */
+    private static void assertClose(int[] expected, int[] actual, String message) {
+        for (int i = 0; i < expected.length; i++) {
+            for (int shift = 0; shift < 32; shift += 8) {
+                int difference = (expected[i] >>> shift & 0xff) - (actual[i] >>> shift & 0xff);
+                assertTrue(Math.abs(difference) <= 1, message + ": pixel " + i + " expected "
+                        + Integer.toHexString(expected[i]) + " but was " + Integer.toHexString(actual[i]));
+            }
+        }
+    }
+
+    private static ImageRaster testImage(int width, int height) {
+        Random random = new Random(width * 7919L + height);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        return new ImageRaster(width, height, pixels);
+    }
+}
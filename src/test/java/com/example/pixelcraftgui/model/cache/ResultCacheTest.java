@@ -0,0 +1,88 @@
+package com.example.pixelcraftgui.model.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.pixelcraftgui.model.ConverterFactory;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ResultCacheTest {
+
+    // Input and result of a 10x10 conversion
+    private static final long ENTRY_BYTES = 2 * 4 * 10 * 10;
+
+    private final ImageConverter invert = ConverterFactory.createConverter(ConverterFactory.INVERT);
+
+    @Test
+    void hashCollisionIsAMiss() {
+        ResultCache cache = new ResultCache(1 << 20);
+        ImageRaster input = testImage(10, 10, 1);
+        ImageRaster other = testImage(10, 10, 2);
+        ResultCache.Key key = cache.keyFor(input, invert);
+        ImageRaster result = invert.convertRaster(input);
+        cache.put(key, input, result);
+
+        // A key for different pixels that happens to have the same hash
+        ResultCache.Key forged = new ResultCache.Key(10, 10, key.contentHash(), key.operation());
+        assertNull(cache.get(forged, other));
+        assertEquals(1, cache.getMisses());
+        assertSame(result, cache.get(key, input));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWithinBudget() {
+        long budget = 2 * ENTRY_BYTES + ENTRY_BYTES / 2;
+        ResultCache cache = new ResultCache(budget);
+        ImageRaster[] inputs = {testImage(10, 10, 1), testImage(10, 10, 2), testImage(10, 10, 3)};
+        ResultCache.Key[] keys = new ResultCache.Key[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            keys[i] = cache.keyFor(inputs[i], invert);
+            cache.put(keys[i], inputs[i], invert.convertRaster(inputs[i]));
+            assertTrue(cache.getBytes() <= budget);
+            if (i == 1) {
+                // Makes the second result the least recently used
+                assertNotNull(cache.get(keys[0], inputs[0]));
+            }
+        }
+        assertEquals(2, cache.size());
+        assertEquals(2 * ENTRY_BYTES, cache.getBytes());
+        assertNotNull(cache.get(keys[0], inputs[0]));
+        assertNull(cache.get(keys[1], inputs[1]));
+        assertNotNull(cache.get(keys[2], inputs[2]));
+    }
+
+    @Test
+    void doesNotKeepResultsLargerThanTheBudget() {
+        ResultCache cache = new ResultCache(ENTRY_BYTES - 1);
+        ImageRaster input = testImage(10, 10, 1);
+        ResultCache.Key key = cache.keyFor(input, invert);
+        cache.put(key, input, invert.convertRaster(input));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+    }
+
+    @Test
+    void doesNotCacheSeededConverters() {
+        ResultCache cache = new ResultCache(1 << 20);
+        ImageRaster input = testImage(10, 10, 1);
+        assertNull(cache.keyFor(input, ConverterFactory.createConverter(ConverterFactory.OLD_PHOTO)));
+        assertNull(cache.keyFor(input, ConverterFactory.createConverter(ConverterFactory.SOFT_VINTAGE)));
+        assertNotNull(cache.keyFor(input, ConverterFactory.createConverter(ConverterFactory.POSTER_NEGATIVE)));
+    }
+
+    private static ImageRaster testImage(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        return new ImageRaster(width, height, pixels);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.pixelcraftgui.model.convolution;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.pixelcraftgui.model.ImageRaster;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ConvolutionConverterTest {
+
+    /** The converter works in fixed point, so a channel may differ from the exact result by one. */
+    private static final int TOLERANCE = 1;
+
+    private static final Kernel SHARPEN = Kernel.of(
+            new double[]{0, -1, 0},
+            new double[]{-1, 5, -1},
+            new double[]{0, -1, 0});
+
+    private static final Kernel EMBOSS = Kernel.of(
+            new double[]{-2, -1, 0},
+            new double[]{-1, 1, 1},
+            new double[]{0, 1, 2}).withBias(64);
+
+    private static final Kernel SOBEL = Kernel.of(
+            new double[]{-1, 0, 1},
+            new double[]{-2, 0, 2},
+            new double[]{-1, 0, 1});
+
+    /** Not separable, not symmetric and wider than it is tall. */
+    private static final Kernel UNEVEN = new Kernel(5, 3,
+            0.05, 0.1, -0.05, 0.2, 0.01,
+            0.1, 0.3, 0.02, -0.1, 0.07,
+            0.03, -0.02, 0.15, 0.1, 0.04);
+
+    @Test
+    void separableKernelsMatchTheExactConvolution() {
+        for (Kernel kernel : new Kernel[]{Kernel.box(1), Kernel.box(3), Kernel.gaussian(1.2), SOBEL}) {
+            for (BorderMode border : BorderMode.values()) {
+                assertTrue(new ConvolutionConverter("Test", kernel, border, false).isSeparable());
+                assertMatchesReference(kernel, border, false, testImage(23, 17));
+            }
+        }
+    }
+
+    @Test
+    void otherKernelsMatchTheExactConvolution() {
+        for (Kernel kernel : new Kernel[]{SHARPEN, EMBOSS, UNEVEN}) {
+            for (BorderMode border : BorderMode.values()) {
+                assertFalse(new ConvolutionConverter("Test", kernel, border, false).isSeparable());
+                assertMatchesReference(kernel, border, false, testImage(23, 17));
+            }
+        }
+    }
+
+    @Test
+    void filtersAlphaOnlyWhenAsked() {
+        ImageRaster input = testImage(16, 12);
+        for (Kernel kernel : new Kernel[]{Kernel.box(2), SHARPEN}) {
+            for (BorderMode border : BorderMode.values()) {
+                ImageRaster kept = new ConvolutionConverter("Test", kernel, border, false).convertRaster(input);
+                for (int i = 0; i < input.getPixels().length; i++) {
+                    assertEquals(input.getPixels()[i] >>> 24, kept.getPixels()[i] >>> 24);
+                }
+                assertMatchesReference(kernel, border, true, input);
+            }
+        }
+    }
+
+    @Test
+    void kernelsLargerThanTheImageReadThroughTheBorder() {
+        for (BorderMode border : BorderMode.values()) {
+            assertMatchesReference(Kernel.box(6), border, false, testImage(5, 3));
+            assertMatchesReference(UNEVEN, border, false, testImage(1, 1));
+            assertMatchesReference(SHARPEN, border, false, testImage(2, 9));
+        }
+    }
+
+    @Test
+    void blursKeepFlatAreasExactly() {
+        int[] pixels = new int[30 * 20];
+        Arrays.fill(pixels, 0xff7f3c01);
+        ImageRaster flat = new ImageRaster(30, 20, pixels);
+        for (Kernel kernel : new Kernel[]{Kernel.box(2), Kernel.gaussian(2.5), SHARPEN}) {
+            ImageRaster output = new ConvolutionConverter("Test", kernel, BorderMode.MIRROR, true).convertRaster(flat);
+            assertArrayEquals(pixels, output.getPixels());
+        }
+    }
+
+    @Test
+    void bandsGiveTheSameResultAsOnePass() {
+        ImageRaster input = testImage(31, 29);
+        for (Kernel kernel : new Kernel[]{Kernel.gaussian(2), UNEVEN}) {
+            for (BorderMode border : BorderMode.values()) {
+                ConvolutionConverter converter = new ConvolutionConverter("Test", kernel, border, true);
+                ImageRaster whole = converter.convertRaster(input);
+                ImageRaster banded = converter.createOutput(input);
+                for (int row = 0; row < input.getHeight(); row += 4) {
+                    converter.convertRows(input, banded, row, Math.min(row + 4, input.getHeight()));
+                }
+                assertArrayEquals(whole.getPixels(), banded.getPixels(), kernel + " " + border);
+            }
+        }
+    }
+
+    /**
+     * Compares every channel with a convolution computed in double precision
+     * directly from the kernel weights.
+     */
+    private static void assertMatchesReference(Kernel kernel, BorderMode border, boolean filterAlpha, ImageRaster input) {
+        ConvolutionConverter converter = new ConvolutionConverter("Test", kernel, border, filterAlpha);
+        ImageRaster output = converter.convertRaster(input);
+        int width = input.getWidth();
+        int height = input.getHeight();
+        int centerX = kernel.getWidth() / 2;
+        int centerY = kernel.getHeight() / 2;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int actual = output.getPixels()[output.index(x, y)];
+                for (int shift = 0; shift < 32; shift += 8) {
+                    int expected;
+                    if (shift == 24 && !filterAlpha) {
+                        expected = input.getPixels()[input.index(x, y)] >>> 24;
+                    } else {
+                        double sum = kernel.getBias();
+                        for (int ky = 0; ky < kernel.getHeight(); ky++) {
+                            int sy = border.resolve(y + ky - centerY, height);
+                            for (int kx = 0; kx < kernel.getWidth(); kx++) {
+                                int sx = border.resolve(x + kx - centerX, width);
+                                sum += kernel.getWeight(kx, ky) * (input.getPixels()[input.index(sx, sy)] >>> shift & 0xff);
+                            }
+                        }
+                        expected = (int) Math.max(0, Math.min(255, Math.round(sum)));
+                    }
+                    int channel = actual >>> shift & 0xff;
+                    assertTrue(Math.abs(channel - expected) <= TOLERANCE, border + " at (" + x + ", " + y + ") channel "
+                            + shift / 8 + ": expected " + expected + " but was " + channel);
+                }
+            }
+        }
+    }
+
+    private static ImageRaster testImage(int width, int height) {
+        Random random = new Random(width * 131L + height);
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int red = x * 255 / Math.max(1, width - 1);
+                int green = random.nextInt(256);
+                int blue = (x + y) % 7 == 0 ? 255 : 0;
+                pixels[y * width + x] = random.nextInt(256) << 24 | red << 16 | green << 8 | blue;
+            }
+        }
+        return new ImageRaster(width, height, pixels);
+    }
+}
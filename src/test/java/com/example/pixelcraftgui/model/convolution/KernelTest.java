@@ -0,0 +1,128 @@
+package com.example.pixelcraftgui.model.convolution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class KernelTest {
+
+    @Test
+    void boxAndGaussianKernelsAreNormalized() {
+        for (Kernel kernel : new Kernel[]{Kernel.box(1), Kernel.box(4), Kernel.gaussian(0.8), Kernel.gaussian(3)}) {
+            assertEquals(1.0, sum(kernel), 1e-9);
+            assertEquals(kernel.getWidth(), kernel.getHeight());
+        }
+        assertEquals(19, Kernel.gaussian(3).getWidth());
+    }
+
+    @Test
+    void separatesProductsOfTwoVectors() {
+        assertSeparates(Kernel.box(2));
+        assertSeparates(Kernel.gaussian(1.5));
+        // Sobel: [1 2 1]^T x [-1 0 1]
+        assertSeparates(Kernel.of(
+                new double[]{-1, 0, 1},
+                new double[]{-2, 0, 2},
+                new double[]{-1, 0, 1}));
+        // A non-square product of uneven vectors
+        double[] column = {0.5, -3, 2};
+        double[] row = {1, 4, -2, 0.25, 7};
+        double[] weights = new double[15];
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 5; x++) {
+                weights[y * 5 + x] = column[y] * row[x];
+            }
+        }
+        assertSeparates(new Kernel(5, 3, weights));
+    }
+
+    @Test
+    void rowVectorIsScaledToUnitAbsoluteSum() {
+        double[][] vectors = Kernel.of(
+                new double[]{-1, 0, 1},
+                new double[]{-2, 0, 2},
+                new double[]{-1, 0, 1}).separate();
+        assertNotNull(vectors);
+        double total = 0;
+        for (double weight : vectors[1]) {
+            total += Math.abs(weight);
+        }
+        assertEquals(1.0, total, 1e-12);
+    }
+
+    @Test
+    void rejectsKernelsThatAreNotProducts() {
+        assertNull(Kernel.of(
+                new double[]{0, -1, 0},
+                new double[]{-1, 5, -1},
+                new double[]{0, -1, 0}).separate());
+        assertNull(Kernel.of(
+                new double[]{-2, -1, 0},
+                new double[]{-1, 1, 1},
+                new double[]{0, 1, 2}).separate());
+        assertNull(new Kernel(3, 3, new double[9]).separate());
+    }
+
+    @Test
+    void keepsWeightsWhenAddingBias() {
+        Kernel kernel = Kernel.of(new double[]{1, 2}, new double[]{3, 4}).withBias(128);
+        assertEquals(128, kernel.getBias(), 0);
+        assertEquals(3, kernel.getWeight(0, 1), 0);
+        assertEquals(2, kernel.getWeight(1, 0), 0);
+    }
+
+    @Test
+    void rejectsInvalidShapes() {
+        assertThrows(IllegalArgumentException.class, () -> new Kernel(0, 3));
+        assertThrows(IllegalArgumentException.class, () -> new Kernel(2, 2, 1, 2, 3));
+        assertThrows(IllegalArgumentException.class, () -> Kernel.of(new double[]{1, 2}, new double[]{3}));
+    }
+
+    @Test
+    void resolvesIndicesOutsideTheImage() {
+        // aaa|abcd|ddd
+        assertResolves(BorderMode.CLAMP, 4, new int[]{-3, -1, 0, 3, 4, 6}, new int[]{0, 0, 0, 3, 3, 3});
+        // dcb|abcd|cba
+        assertResolves(BorderMode.MIRROR, 4, new int[]{-3, -2, -1, 0, 3, 4, 5, 6, 7, 10}, new int[]{3, 2, 1, 0, 3, 2, 1, 0, 1, 2});
+        // bcd|abcd|abc
+        assertResolves(BorderMode.WRAP, 4, new int[]{-5, -3, -1, 0, 3, 4, 6}, new int[]{3, 1, 3, 0, 3, 0, 2});
+        for (BorderMode border : BorderMode.values()) {
+            assertResolves(border, 1, new int[]{-4, -1, 0, 1, 5}, new int[]{0, 0, 0, 0, 0});
+        }
+    }
+
+    private static void assertSeparates(Kernel kernel) {
+        double[][] vectors = kernel.separate();
+        assertNotNull(vectors, "separable kernel");
+        double max = 0;
+        for (int y = 0; y < kernel.getHeight(); y++) {
+            for (int x = 0; x < kernel.getWidth(); x++) {
+                max = Math.max(max, Math.abs(kernel.getWeight(x, y)));
+            }
+        }
+        for (int y = 0; y < kernel.getHeight(); y++) {
+            for (int x = 0; x < kernel.getWidth(); x++) {
+                assertEquals(kernel.getWeight(x, y), vectors[0][y] * vectors[1][x], 1e-12 * max);
+            }
+        }
+    }
+
+    private static void assertResolves(BorderMode border, int length, int[] indices, int[] expected) {
+        for (int i = 0; i < indices.length; i++) {
+            assertEquals(expected[i], border.resolve(indices[i], length), border + " " + indices[i] + " of " + length);
+        }
+    }
+
+    private static double sum(Kernel kernel) {
+        double sum = 0;
+        for (int y = 0; y < kernel.getHeight(); y++) {
+            for (int x = 0; x < kernel.getWidth(); x++) {
+                sum += kernel.getWeight(x, y);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.pixelcraftgui.model.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.example.pixelcraftgui.model.ConverterFactory;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class TileExecutorTest {
+
+    // Several bands per pass, with a last band shorter than the others
+    private static final int WIDTH = 301;
+    private static final int HEIGHT = 457;
+
+    // Old Photo draws a random seed per instance unless given one
+    private static final Map<String, String> PARAMETERS = Map.of(ConverterFactory.PARAM_SEED, "7");
+
+    @Test
+    void executeMatchesConvertRasterForEveryConverter() {
+        ImageRaster input = testImage(WIDTH, HEIGHT, 1);
+        TileExecutor executor = new TileExecutor(4);
+        for (String type : ConverterFactory.getAvailableConverters()) {
+            ImageConverter converter = ConverterFactory.createConverter(type, PARAMETERS);
+            assertSameRaster(type, converter.convertRaster(input), executor.execute(converter, input));
+        }
+    }
+
+    @Test
+    void focusedExecuteMatchesConvertRasterForEveryConverter() {
+        ImageRaster input = testImage(WIDTH, HEIGHT, 2);
+        TileExecutor executor = new TileExecutor(4);
+        ViewportFocus focus = new ViewportFocus();
+        focus.set(0.6, 0.8);
+        for (String type : ConverterFactory.getAvailableConverters()) {
+            ImageConverter converter = ConverterFactory.createConverter(type, PARAMETERS);
+            ImageRaster output = executor.execute(converter, input, new CancellationToken(), ProgressListener.NONE,
+                    focus, (raster, startRow, endRow) -> { });
+            assertSameRaster(type, converter.convertRaster(input), output);
+        }
+    }
+
+    @Test
+    void executeReadsOnlyTheRegionOfAView() {
+        ImageRaster image = testImage(WIDTH + 20, HEIGHT + 10, 3);
+        ImageRaster view = new ImageRaster(WIDTH, HEIGHT, image.getPixels(), image.index(20, 10), image.getStride());
+        TileExecutor executor = new TileExecutor(4);
+        for (String type : new String[] {ConverterFactory.SHARPEN, ConverterFactory.BOX_BLUR, ConverterFactory.ROTATE_90}) {
+            ImageConverter converter = ConverterFactory.createConverter(type, PARAMETERS);
+            assertSameRaster(type, converter.convertRaster(view.compact()), executor.execute(converter, view));
+        }
+    }
+
+    private static void assertSameRaster(String type, ImageRaster expected, ImageRaster actual) {
+        assertEquals(expected.getWidth(), actual.getWidth(), type);
+        assertEquals(expected.getHeight(), actual.getHeight(), type);
+        assertArrayEquals(expected.compact().getPixels(), actual.compact().getPixels(), type);
+    }
+
+    private static ImageRaster testImage(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        return new ImageRaster(width, height, pixels);
+    }
+}
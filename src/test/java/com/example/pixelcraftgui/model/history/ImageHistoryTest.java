@@ -0,0 +1,110 @@
+package com.example.pixelcraftgui.model.history;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import com.example.pixelcraftgui.model.FxRasterAdapter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+import javafx.scene.image.Image;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ImageHistoryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoresEveryStateAfterSpilling() {
+        // No budget and no hot states, so every state but the first and the current one is spilled
+        ImageHistory history = new ImageHistory(0, 0, false, directory);
+        List<ImageRaster> states = pushStates(history);
+        long liveBytes = 4L * (states.get(0).getPixels().length + states.get(states.size() - 1).getPixels().length);
+        await(() -> history.getSpilledBytes() > 0 && history.getHeapBytes() == liveBytes);
+
+        for (int position = states.size() - 2; position >= 0; position--) {
+            assertPixels(states.get(position), history.undo());
+        }
+        assertFalse(history.canUndo());
+        for (int position = 1; position < states.size(); position++) {
+            assertPixels(states.get(position), history.redo());
+        }
+        assertFalse(history.canRedo());
+    }
+
+    @Test
+    void evictsStatesThatCannotBeSpilled() throws IOException {
+        // A file where the scratch directory should be, so every spill fails
+        ImageHistory history = new ImageHistory(0, 0, false, Files.createFile(directory.resolve("scratch")));
+        List<ImageRaster> states = pushStates(history);
+        await(() -> history.size() == 2);
+
+        assertEquals(1, history.getIndex());
+        assertEquals(0, history.getSpilledBytes());
+        assertPixels(states.get(0), history.undo());
+        assertFalse(history.canUndo());
+        assertPixels(states.get(states.size() - 1), history.redo());
+    }
+
+    /**
+     * Pushes a series of edits, one of which changes the image size.
+     * @return the pixels of each state, in order
+     */
+    private static List<ImageRaster> pushStates(ImageHistory history) {
+        List<ImageRaster> states = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            ImageRaster state = i == 3 ? testImage(30, 45, i) : testImage(45, 30, i);
+            states.add(state);
+            if (i == 0) {
+                history.reset(FxRasterAdapter.toImage(state));
+            } else {
+                history.push(FxRasterAdapter.toImage(state), null);
+            }
+        }
+        return states;
+    }
+
+    private static void assertPixels(ImageRaster expected, Image image) {
+        assertTrue(image != null, "No state restored");
+        assertEquals(expected.getWidth(), (int) image.getWidth());
+        assertEquals(expected.getHeight(), (int) image.getHeight());
+        assertArrayEquals(expected.getPixels(), FxRasterAdapter.fromImage(image).getPixels());
+    }
+
+    /**
+     * Waits for the history's background work to reach a condition.
+     */
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("History did not settle");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+
+    private static ImageRaster testImage(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = 0xff000000 | random.nextInt(1 << 24);
+        }
+        return new ImageRaster(width, height, pixels);
+    }
+}
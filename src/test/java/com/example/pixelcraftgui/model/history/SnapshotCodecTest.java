@@ -0,0 +1,90 @@
+package com.example.pixelcraftgui.model.history;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.pixelcraftgui.model.FxRasterAdapter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import com.example.pixelcraftgui.model.RasterStore;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotCodecTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsStoresOfAnyShape() throws IOException {
+        // The last size spans several strips of the encoder
+        int[][] sizes = {{1, 1}, {1, 300}, {300, 1}, {257, 311}};
+        for (int[] size : sizes) {
+            ImageRaster raster = testImage(size[0], size[1], size[0] * 31L + size[1], true);
+            try (RasterStore store = RasterStore.map(size[0], size[1], directory)) {
+                store.writeRows(0, size[1], raster.getPixels(), 0);
+                byte[] snapshot = SnapshotCodec.encode(store);
+                ImageRaster decoded = SnapshotCodec.decode(new ByteArrayInputStream(snapshot), size[0], size[1]);
+                assertArrayEquals(raster.getPixels(), decoded.getPixels(), size[0] + "x" + size[1]);
+            }
+        }
+    }
+
+    @Test
+    void encodesEachStateIndependentlyOfThePreviousOne() throws IOException {
+        ImageRaster previous = testImage(64, 48, 1, false);
+        int[] edited = previous.getPixels().clone();
+        Arrays.fill(edited, 20 * 64, 30 * 64, 0xff336699);
+        ImageRaster current = new ImageRaster(64, 48, edited);
+
+        byte[] previousSnapshot = SnapshotCodec.encode(FxRasterAdapter.toImage(previous));
+        byte[] currentSnapshot = SnapshotCodec.encode(FxRasterAdapter.toImage(current));
+
+        assertArrayEquals(previous.getPixels(), SnapshotCodec.decode(new ByteArrayInputStream(previousSnapshot), 64, 48).getPixels());
+        assertArrayEquals(current.getPixels(), SnapshotCodec.decode(new ByteArrayInputStream(currentSnapshot), 64, 48).getPixels());
+    }
+
+    @Test
+    void restoresStatesOfADifferentSize() throws IOException {
+        ImageRaster landscape = testImage(40, 30, 2, true);
+        ImageRaster portrait = testImage(30, 40, 3, true);
+        byte[] landscapeSnapshot = SnapshotCodec.encode(storeOf(landscape));
+        byte[] portraitSnapshot = SnapshotCodec.encode(storeOf(portrait));
+
+        try (RasterStore store = RasterStore.map(30, 40, directory)) {
+            SnapshotCodec.decode(new ByteArrayInputStream(portraitSnapshot), store);
+            assertArrayEquals(portrait.getPixels(), store.readBand(0, 40).getPixels());
+        }
+        assertArrayEquals(landscape.getPixels(), SnapshotCodec.decode(new ByteArrayInputStream(landscapeSnapshot), 40, 30).getPixels());
+    }
+
+    @Test
+    void rejectsTruncatedSnapshots() throws IOException {
+        byte[] snapshot = SnapshotCodec.encode(storeOf(testImage(50, 50, 4, true)));
+        byte[] truncated = Arrays.copyOf(snapshot, snapshot.length / 2);
+        assertThrows(IOException.class, () -> SnapshotCodec.decode(new ByteArrayInputStream(truncated), 50, 50));
+    }
+
+    private RasterStore storeOf(ImageRaster raster) throws IOException {
+        RasterStore store = RasterStore.map(raster.getWidth(), raster.getHeight(), directory);
+        store.writeRows(0, raster.getHeight(), raster.getPixels(), 0);
+        return store;
+    }
+
+    private static ImageRaster testImage(int width, int height, long seed, boolean alpha) {
+        Random random = new Random(seed);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            // Smooth gradients with noise, like the photos the codec is tuned for
+            int noise = random.nextInt(8);
+            int value = (i % width + i / width + noise) & 0xff;
+            int a = alpha ? random.nextInt(256) : 0xff;
+            pixels[i] = a << 24 | value << 16 | (255 - value) << 8 | noise * 16;
+        }
+        return new ImageRaster(width, height, pixels);
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.pixelcraftgui.model.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.pixelcraftgui.model.ImageRaster;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PngReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsWhatPngWriterWrites() throws IOException {
+        for (boolean alpha : new boolean[]{false, true}) {
+            ImageRaster raster = PngWriterTest.testImage(41, 27, alpha);
+            for (PngFilter filter : PngFilter.values()) {
+                for (int level : new int[]{0, 6}) {
+                    byte[] png = PngWriterTest.encode(raster, new PngOptions(level, filter));
+                    assertArrayEquals(raster.getPixels(), read(png, 5), filter + " at level " + level);
+                }
+            }
+        }
+    }
+
+    @Test
+    void readsRgbAndArgbImagesWrittenByImageIo() throws IOException {
+        for (int type : new int[]{BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB}) {
+            BufferedImage image = new BufferedImage(53, 31, type);
+            int[] pixels = PngWriterTest.testImage(53, 31, type == BufferedImage.TYPE_INT_ARGB).getPixels();
+            image.setRGB(0, 0, 53, 31, pixels, 0, 53);
+            assertArrayEquals(rgb(image), read(imageIo(image), 7));
+        }
+    }
+
+    @Test
+    void readsPaletteImagesOfEveryBitDepth() throws IOException {
+        Random random = new Random(3);
+        for (int bits : new int[]{1, 2, 4, 8}) {
+            int colors = 1 << bits;
+            byte[] red = new byte[colors];
+            byte[] green = new byte[colors];
+            byte[] blue = new byte[colors];
+            byte[] alpha = new byte[colors];
+            random.nextBytes(red);
+            random.nextBytes(green);
+            random.nextBytes(blue);
+            random.nextBytes(alpha);
+            for (IndexColorModel model : new IndexColorModel[]{
+                    new IndexColorModel(bits, colors, red, green, blue),
+                    new IndexColorModel(bits, colors, red, green, blue, alpha)}) {
+                BufferedImage image = new BufferedImage(37, 13,
+                        bits == 8 ? BufferedImage.TYPE_BYTE_INDEXED : BufferedImage.TYPE_BYTE_BINARY, model);
+                for (int y = 0; y < 13; y++) {
+                    for (int x = 0; x < 37; x++) {
+                        image.getRaster().setSample(x, y, 0, random.nextInt(colors));
+                    }
+                }
+                assertArrayEquals(rgb(image), read(imageIo(image), 4), bits + "-bit palette");
+            }
+        }
+    }
+
+    @Test
+    void readsGrayImages() throws IOException {
+        Random random = new Random(5);
+        for (int type : new int[]{BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_USHORT_GRAY}) {
+            BufferedImage image = new BufferedImage(29, 11, type);
+            int shift = type == BufferedImage.TYPE_USHORT_GRAY ? 8 : 0;
+            int[] expected = new int[29 * 11];
+            for (int i = 0; i < expected.length; i++) {
+                int sample = random.nextInt(1 << (8 + shift));
+                image.getRaster().setSample(i % 29, i / 29, 0, sample);
+                // Samples are read as they are stored, without a color space conversion
+                expected[i] = 0xff000000 | (sample >> shift) * 0x010101;
+            }
+            PngReader reader = new PngReader(new ByteArrayInputStream(imageIo(image)));
+            assertFalse(reader.hasAlpha());
+            assertArrayEquals(expected, read(imageIo(image), 11));
+        }
+    }
+
+    @Test
+    void readsIntoAStridedArray() throws IOException {
+        ImageRaster raster = PngWriterTest.testImage(10, 6, true);
+        int stride = 13;
+        int[] padded = new int[3 + stride * 6];
+        try (PngReader reader = new PngReader(new ByteArrayInputStream(PngWriterTest.encode(raster, PngOptions.DEFAULT)))) {
+            assertEquals(10, reader.getWidth());
+            assertEquals(6, reader.getHeight());
+            assertTrue(reader.hasAlpha());
+            reader.readRows(padded, 3, stride, 2);
+            reader.readRows(padded, 3 + 2 * stride, stride, 4);
+            assertThrows(IllegalStateException.class, () -> reader.readRows(padded, 0, stride, 1));
+        }
+        for (int y = 0; y < 6; y++) {
+            for (int x = 0; x < 10; x++) {
+                assertEquals(raster.getPixels()[y * 10 + x], padded[3 + y * stride + x]);
+            }
+        }
+    }
+
+    @Test
+    void opensInterlacedImagesThroughImageIo() throws IOException {
+        BufferedImage image = new BufferedImage(33, 21, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, 33, 21, PngWriterTest.testImage(33, 21, true).getPixels(), 0, 33);
+        Path file = directory.resolve("interlaced.png");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        assertThrows(IOException.class, () -> new PngReader(Files.newInputStream(file)).close());
+        try (RowSource source = RowSource.open(file)) {
+            assertFalse(source instanceof PngReader);
+            int[] pixels = new int[33 * 21];
+            source.readRows(pixels, 0, 33, 8);
+            source.readRows(pixels, 8 * 33, 33, 13);
+            assertArrayEquals(rgb(image), pixels);
+        }
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        assertThrows(IOException.class, () -> new PngReader(new ByteArrayInputStream("GIF89a....".getBytes())));
+        byte[] png = PngWriterTest.encode(PngWriterTest.testImage(4, 4, false), PngOptions.DEFAULT);
+        byte[] truncated = Arrays.copyOf(png, 30);
+        assertThrows(IOException.class, () -> new PngReader(new ByteArrayInputStream(truncated)));
+    }
+
+    /**
+     * Reads an image a few rows at a time.
+     */
+    private static int[] read(byte[] png, int rowsPerRead) throws IOException {
+        try (PngReader reader = new PngReader(new ByteArrayInputStream(png))) {
+            int width = reader.getWidth();
+            int height = reader.getHeight();
+            int[] pixels = new int[width * height];
+            for (int y = 0; y < height; y += rowsPerRead) {
+                reader.readRows(pixels, y * width, width, Math.min(rowsPerRead, height - y));
+            }
+            return pixels;
+        }
+    }
+
+    private static byte[] imageIo(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, "png", out));
+        return out.toByteArray();
+    }
+
+    private static int[] rgb(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.pixelcraftgui.model.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.pixelcraftgui.model.ImageRaster;
+import com.example.pixelcraftgui.model.engine.CancellationToken;
+import com.example.pixelcraftgui.model.engine.ProgressListener;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+
+class PngWriterTest {
+
+    private static final int[] LEVELS = {0, 1, 4, 9};
+
+    @Test
+    void opaqueImagesDecodeWithImageIo() throws IOException {
+        ImageRaster raster = testImage(37, 23, false);
+        for (PngFilter filter : PngFilter.values()) {
+            for (int level : LEVELS) {
+                assertArrayEquals(raster.getPixels(), decode(encode(raster, new PngOptions(level, filter))),
+                        filter + " at level " + level);
+            }
+        }
+    }
+
+    @Test
+    void translucentImagesDecodeWithImageIo() throws IOException {
+        ImageRaster raster = testImage(31, 19, true);
+        for (PngFilter filter : PngFilter.values()) {
+            for (int level : LEVELS) {
+                assertArrayEquals(raster.getPixels(), decode(encode(raster, new PngOptions(level, filter))),
+                        filter + " at level " + level);
+            }
+        }
+    }
+
+    @Test
+    void singlePixelAndSingleRowImages() throws IOException {
+        for (ImageRaster raster : new ImageRaster[]{testImage(1, 1, true), testImage(64, 1, false), testImage(1, 64, true)}) {
+            for (PngFilter filter : PngFilter.values()) {
+                assertArrayEquals(raster.getPixels(), decode(encode(raster, new PngOptions(4, filter))), filter.toString());
+            }
+        }
+    }
+
+    @Test
+    void writesRowsFromAStridedArray() throws IOException {
+        int width = 20;
+        int height = 9;
+        int stride = 27;
+        int[] padded = new int[5 + stride * height];
+        ImageRaster expected = testImage(width, height, false);
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(expected.getPixels(), y * width, padded, 5 + y * stride, width);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PngWriter writer = new PngWriter(out, width, height, false, PngOptions.SMALLEST)) {
+            writer.writeRows(padded, 5, stride, 4);
+            writer.writeRows(padded, 5 + 4 * stride, stride, height - 4);
+        }
+        assertArrayEquals(expected.getPixels(), decode(out.toByteArray()));
+    }
+
+    @Test
+    void detectsTranslucentPixels() {
+        assertFalse(PngWriter.hasAlpha(testImage(16, 16, false)));
+        ImageRaster raster = testImage(16, 16, false);
+        raster.getPixels()[raster.index(15, 15)] &= 0xfeffffff;
+        assertTrue(PngWriter.hasAlpha(raster));
+    }
+
+    @Test
+    void rejectsTooManyOrTooFewRows() throws IOException {
+        PngWriter writer = new PngWriter(new ByteArrayOutputStream(), 4, 2, false, PngOptions.DEFAULT);
+        assertThrows(IllegalStateException.class, () -> writer.writeRows(new int[12], 0, 4, 3));
+        writer.writeRows(new int[4], 0, 4, 1);
+        assertThrows(IllegalStateException.class, writer::close);
+    }
+
+    @Test
+    void reportsProgressAndStopsWhenCancelled() throws IOException {
+        ImageRaster raster = testImage(8, 200, false);
+        int[] last = new int[2];
+        PngWriter.write(raster, new ByteArrayOutputStream(), PngOptions.FASTEST, new CancellationToken(),
+                (done, total) -> {
+                    last[0] = (int) done;
+                    last[1] = (int) total;
+                });
+        assertEquals(200, last[0]);
+        assertEquals(200, last[1]);
+
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        assertThrows(CancellationException.class, () -> PngWriter.write(raster, new ByteArrayOutputStream(),
+                PngOptions.FASTEST, token, ProgressListener.NONE));
+    }
+
+    @Test
+    void rejectsInvalidLevels() {
+        assertThrows(IllegalArgumentException.class, () -> new PngOptions(10, PngFilter.NONE));
+        assertThrows(IllegalArgumentException.class, () -> new PngOptions(-2, PngFilter.NONE));
+    }
+
+    static byte[] encode(ImageRaster raster, PngOptions options) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PngWriter.write(raster, out, options, new CancellationToken(), ProgressListener.NONE);
+        return out.toByteArray();
+    }
+
+    static int[] decode(byte[] png) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    /**
+     * Gradients with noise, so every row filter has something to predict, plus flat runs
+     * and, optionally, alpha values across the whole range.
+     */
+    static ImageRaster testImage(int width, int height, boolean alpha) {
+        Random random = new Random(width * 31L + height);
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int red = (x * 255 / Math.max(1, width - 1) + random.nextInt(5)) & 0xff;
+                int green = (y * 255 / Math.max(1, height - 1)) & 0xff;
+                int blue = x < width / 3 ? 0x80 : random.nextInt(256);
+                int a = alpha ? random.nextInt(256) : 0xff;
+                pixels[y * width + x] = a << 24 | red << 16 | green << 8 | blue;
+            }
+        }
+        return new ImageRaster(width, height, pixels);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.pixelcraftgui.model.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.pixelcraftgui.model.ConverterFactory;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import com.example.pixelcraftgui.model.engine.CancellationToken;
+import com.example.pixelcraftgui.model.engine.ProgressListener;
+import com.example.pixelcraftgui.model.engine.TileExecutor;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StreamingProcessorTest {
+
+    private final TileExecutor tileExecutor = new TileExecutor(2);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void streamedEffectsMatchWholeImageConversion() throws IOException {
+        ImageRaster image = PngWriterTest.testImage(67, 53, false);
+        Path source = save(image, "source.png");
+        int streamed = 0;
+        for (String type : ConverterFactory.getAvailableConverters()) {
+            ImageConverter converter = ConverterFactory.createConverter(type);
+            if (!StreamingProcessor.canStream(converter)) {
+                continue;
+            }
+            streamed++;
+            for (int stripRows : new int[]{1, 7, 16, 0}) {
+                assertStreams(converter, image, source, stripRows, type + " in strips of " + stripRows);
+            }
+        }
+        assertTrue(streamed > 5, "only " + streamed + " effects can stream");
+    }
+
+    @Test
+    void streamedMotionBlursMatchAtEveryAngle() throws IOException {
+        ImageRaster image = PngWriterTest.testImage(45, 71, true);
+        Path source = save(image, "source.png");
+        for (int angle = 0; angle < 360; angle += 15) {
+            ImageConverter blur = ConverterFactory.createConverter(ConverterFactory.BLUR, Map.of(
+                    ConverterFactory.PARAM_LENGTH, "21", ConverterFactory.PARAM_ANGLE, Integer.toString(angle)));
+            for (int stripRows : new int[]{1, 5, 32}) {
+                assertStreams(blur, image, source, stripRows, angle + " degrees in strips of " + stripRows);
+            }
+        }
+    }
+
+    @Test
+    void refusesEffectsThatNeedTheWholeImage() throws IOException {
+        Path source = save(PngWriterTest.testImage(8, 8, false), "source.png");
+        Path target = directory.resolve("target.png");
+        for (String type : new String[]{ConverterFactory.ROTATE_90, ConverterFactory.MIRROR}) {
+            ImageConverter converter = ConverterFactory.createConverter(type);
+            assertFalse(StreamingProcessor.canStream(converter));
+            assertThrows(IllegalArgumentException.class, () -> new StreamingProcessor(tileExecutor).process(converter,
+                    source, target, PngOptions.DEFAULT, new CancellationToken(), ProgressListener.NONE));
+        }
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    void cancellingLeavesTheTargetUntouched() throws IOException {
+        Path source = save(PngWriterTest.testImage(16, 40, false), "source.png");
+        Path target = directory.resolve("target.png");
+        Files.writeString(target, "previous");
+        CancellationToken token = new CancellationToken();
+        ProgressListener cancelAfterFirstStrip = (done, total) -> token.cancel();
+        assertThrows(CancellationException.class, () -> new StreamingProcessor(tileExecutor, 8).process(
+                ConverterFactory.createConverter(ConverterFactory.INVERT), source, target, PngOptions.DEFAULT,
+                token, cancelAfterFirstStrip));
+        assertEquals("previous", Files.readString(target));
+        assertFalse(Files.exists(directory.resolve("target.png.part")));
+    }
+
+    private void assertStreams(ImageConverter converter, ImageRaster image, Path source, int stripRows, String message)
+            throws IOException {
+        Path target = directory.resolve("target.png");
+        long[] progress = new long[2];
+        new StreamingProcessor(tileExecutor, stripRows).process(converter, source, target, PngOptions.FASTEST,
+                new CancellationToken(), (done, total) -> {
+                    progress[0] = done;
+                    progress[1] = total;
+                });
+        assertEquals(image.getHeight(), progress[0], message);
+        assertEquals(image.getHeight(), progress[1], message);
+        assertArrayEquals(tileExecutor.execute(converter, image).getPixels(), load(target), message);
+    }
+
+    private Path save(ImageRaster image, String name) throws IOException {
+        Path file = directory.resolve(name);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            PngWriter.write(image, out, PngOptions.FASTEST, new CancellationToken(), ProgressListener.NONE);
+        }
+        return file;
+    }
+
+    private static int[] load(Path file) throws IOException {
+        try (RowSource source = RowSource.open(file)) {
+            int[] pixels = new int[source.getWidth() * source.getHeight()];
+            source.readRows(pixels, 0, source.getWidth(), source.getHeight());
+            return pixels;
+        }
+    }
+}
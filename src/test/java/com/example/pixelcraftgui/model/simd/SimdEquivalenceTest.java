@@ -0,0 +1,93 @@
+package com.example.pixelcraftgui.model.simd;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import com.example.pixelcraftgui.model.ConverterFactory;
+import com.example.pixelcraftgui.model.ImageConverter;
+import com.example.pixelcraftgui.model.ImageRaster;
+import com.example.pixelcraftgui.model.convolution.BorderMode;
+import com.example.pixelcraftgui.model.convolution.ConvolutionConverter;
+import com.example.pixelcraftgui.model.convolution.Kernel;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the converters with SIMD kernels on {@link VectorKernels} and with the scalar loops
+ * and checks both give the same pixels. The SIMD side only differs from the scalar side when
+ * the JVM resolves {@code jdk.incubator.vector}; otherwise both runs take the scalar loops.
+ */
+class SimdEquivalenceTest {
+
+    // Covers rows shorter than a vector, exact multiples and ragged tails
+    private static final int[] WIDTHS = {1, 7, 16, 17, 255, 1000};
+
+    @Test
+    void grayscaleMatchesScalar() {
+        assertSameAsScalar(() -> ConverterFactory.createConverter(ConverterFactory.GRAYSCALE));
+    }
+
+    @Test
+    void invertMatchesScalar() {
+        assertSameAsScalar(() -> ConverterFactory.createConverter(ConverterFactory.INVERT));
+    }
+
+    @Test
+    void posterizeMatchesScalar() {
+        for (int levels : new int[] {2, 3, 4, 7, 16}) {
+            assertSameAsScalar(() -> ConverterFactory.createConverter(ConverterFactory.POSTERIZE,
+                    Map.of(ConverterFactory.PARAM_LEVELS, Integer.toString(levels))));
+        }
+    }
+
+    @Test
+    void oldPhotoMatchesScalar() {
+        assertSameAsScalar(() -> ConverterFactory.createConverter(ConverterFactory.OLD_PHOTO,
+                Map.of(ConverterFactory.PARAM_SEED, "42")));
+    }
+
+    @Test
+    void convolutionsMatchScalar() {
+        for (String type : new String[] {ConverterFactory.SHARPEN, ConverterFactory.EDGE_DETECT, ConverterFactory.EMBOSS,
+                ConverterFactory.BOX_BLUR, ConverterFactory.GAUSSIAN_BLUR}) {
+            assertSameAsScalar(() -> ConverterFactory.createConverter(type));
+        }
+        assertSameAsScalar(() -> ConverterFactory.createConverter(ConverterFactory.BOX_BLUR,
+                Map.of(ConverterFactory.PARAM_RADIUS, "9", ConverterFactory.PARAM_BORDER, BorderMode.WRAP.name())));
+    }
+
+    @Test
+    void convolutionsWithAlphaMatchScalar() {
+        assertSameAsScalar(() -> new ConvolutionConverter("Box", Kernel.box(3), BorderMode.MIRROR, true));
+        assertSameAsScalar(() -> new ConvolutionConverter("Gaussian", Kernel.gaussian(2.5), BorderMode.CLAMP, true));
+        assertSameAsScalar(() -> new ConvolutionConverter("Sharpen",
+                Kernel.of(new double[] {0, -1, 0}, new double[] {-1, 5, -1}, new double[] {0, -1, 0}), BorderMode.CLAMP, true));
+    }
+
+    private static void assertSameAsScalar(Supplier<ImageConverter> converters) {
+        for (int width : WIDTHS) {
+            ImageRaster input = testImage(width, 5, width);
+            int[] scalar;
+            int[] simd;
+            try {
+                Simd.setForceScalar(true);
+                scalar = converters.get().convertRaster(input).getPixels();
+                Simd.setForceScalar(false);
+                simd = converters.get().convertRaster(input).getPixels();
+            } finally {
+                Simd.setForceScalar(Boolean.getBoolean("pixelcraft.simd.scalar"));
+            }
+            assertArrayEquals(scalar, simd, converters.get().getName() + " differs at width " + width);
+        }
+    }
+
+    private static ImageRaster testImage(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+        return new ImageRaster(width, height, pixels);
+    }
+}